@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+/**
+ * Coordinate store backed by two flat arrays.
+ */
+public class ArrayCoordinateStore extends CoordinateStore {
+
+    private final double[] xs, ys;
+
+    /**
+     * @param xs The x coordinate of each site.
+     * @param ys The y coordinate of each site.
+     */
+    public ArrayCoordinateStore(double[] xs, double[] ys) {
+        assert xs.length == ys.length;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    @Override
+    public int getNbSites() {
+        return xs.length;
+    }
+
+    @Override
+    public double getX(int site) {
+        return xs[site];
+    }
+
+    @Override
+    public double getY(int site) {
+        return ys[site];
+    }
+
+    /**
+     * @return The x coordinates. Must not be modified.
+     */
+    public double[] getXs() {
+        return xs;
+    }
+
+    /**
+     * @return The y coordinates. Must not be modified.
+     */
+    public double[] getYs() {
+        return ys;
+    }
+}
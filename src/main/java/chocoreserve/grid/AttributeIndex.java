@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory index of the values of one attribute of the sites of a grid: maps each value to the sorted internal ids
+ * of the sites having it.
+ *
+ * Values are compared after normalization: integral numbers are compared as longs and other numbers as doubles
+ * (so that e.g. an Integer query matches a Long attribute read from a DBF file), other values as strings. As with
+ * the GeoTools equality filter, a number and a string representing a number also match (e.g. 12 matches the DBF
+ * character value "12", and "3" matches 3.0), while two strings are only compared as strings.
+ */
+public class AttributeIndex {
+
+    private final Map<Object, int[]> index;
+    private final Map<Object, int[]> numericStrings;
+
+    /**
+     * @param values The value of the attribute for each site, in internal id order.
+     */
+    public AttributeIndex(Object[] values) {
+        Object[] keys = new Object[values.length];
+        Object[] numericKeys = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = key(values[i]);
+            numericKeys[i] = values[i] instanceof Number ? null : numericKey(keys[i]);
+        }
+        this.index = group(keys, true);
+        this.numericStrings = group(numericKeys, false);
+    }
+
+    /**
+     * @param keys      The key of each site, in internal id order.
+     * @param keepNulls If false, the sites with a null key are not indexed.
+     * @return The sorted internal ids of the sites having each key.
+     */
+    private static Map<Object, int[]> group(Object[] keys, boolean keepNulls) {
+        Map<Object, int[]> counts = new HashMap<>();
+        for (Object key : keys) {
+            if (key == null && !keepNulls) {
+                continue;
+            }
+            int[] count = counts.get(key);
+            if (count == null) {
+                counts.put(key, new int[]{1});
+            } else {
+                count[0]++;
+            }
+        }
+        Map<Object, int[]> groups = new HashMap<>();
+        for (Map.Entry<Object, int[]> entry : counts.entrySet()) {
+            groups.put(entry.getKey(), new int[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null && !keepNulls) {
+                continue;
+            }
+            int[] count = counts.get(keys[i]);
+            groups.get(keys[i])[count[0]++] = i;
+        }
+        return groups;
+    }
+
+    private static Object key(Object value) {
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d) && !Double.isInfinite(d)) {
+                return (long) d;
+            }
+            return d;
+        }
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * @param key The key of a non-numeric value.
+     * @return The key of the number the value represents, null if it does not represent a number.
+     */
+    private static Object numericKey(Object key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            return key(Double.parseDouble(key.toString().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param value A value of the attribute.
+     * @return The sorted internal ids of the sites having this value. Must not be modified.
+     */
+    public int[] get(Object value) {
+        Object key = key(value);
+        int[] ids = index.get(key);
+        int[] converted;
+        if (value instanceof Number) {
+            converted = numericStrings.get(key);
+        } else {
+            Object numericKey = numericKey(key);
+            converted = numericKey == null ? null : index.get(numericKey);
+        }
+        if (converted == null) {
+            return ids == null ? new int[0] : ids;
+        }
+        return ids == null ? converted : merge(ids, converted);
+    }
+
+    /**
+     * @return The union of two disjoint sorted arrays, sorted.
+     */
+    private static int[] merge(int[] a, int[] b) {
+        int[] merged = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < merged.length; k++) {
+            merged[k] = j == b.length || (i < a.length && a[i] < b[j]) ? a[i++] : b[j++];
+        }
+        return merged;
+    }
+
+    /**
+     * @return The number of distinct values.
+     */
+    public int getNbValues() {
+        return index.size();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+/**
+ * Cartesian coordinates (center or centroid) of the sites of a grid, stored as primitive values rather than as one
+ * small array per site. A store is built once per grid (see Grid.getCoordinateStore) and shared by every constraint
+ * that needs site coordinates.
+ */
+public abstract class CoordinateStore {
+
+    private double[] bounds;
+
+    /**
+     * @param coordinates The coordinates of each site, as {x, y} arrays.
+     * @return A store backed by flat copies of the coordinates.
+     */
+    public static CoordinateStore of(double[][] coordinates) {
+        double[] xs = new double[coordinates.length];
+        double[] ys = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++) {
+            xs[i] = coordinates[i][0];
+            ys[i] = coordinates[i][1];
+        }
+        return new ArrayCoordinateStore(xs, ys);
+    }
+
+    /**
+     * @param xs The x coordinate of each site.
+     * @param ys The y coordinate of each site.
+     * @return A store backed by the given arrays (not copied).
+     */
+    public static CoordinateStore of(double[] xs, double[] ys) {
+        return new ArrayCoordinateStore(xs, ys);
+    }
+
+    /**
+     * @return The number of sites.
+     */
+    public abstract int getNbSites();
+
+    /**
+     * @param site The index of a site.
+     * @return The x coordinate of the site.
+     */
+    public abstract double getX(int site);
+
+    /**
+     * @param site The index of a site.
+     * @return The y coordinate of the site.
+     */
+    public abstract double getY(int site);
+
+    /**
+     * @param site The index of a site.
+     * @return The coordinates of the site, as a new {x, y} array.
+     */
+    public double[] getCoordinates(int site) {
+        return new double[]{getX(site), getY(site)};
+    }
+
+    /**
+     * @return The euclidean distance between two sites.
+     */
+    public double distance(int site1, int site2) {
+        double dx = getX(site1) - getX(site2);
+        double dy = getY(site1) - getY(site2);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @return The euclidean distance between a site and a point.
+     */
+    public double distance(int site, double x, double y) {
+        double dx = getX(site) - x;
+        double dy = getY(site) - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @return The minimum x coordinate of the sites.
+     */
+    public double getMinX() {
+        return getBounds()[0];
+    }
+
+    /**
+     * @return The maximum x coordinate of the sites.
+     */
+    public double getMaxX() {
+        return getBounds()[1];
+    }
+
+    /**
+     * @return The minimum y coordinate of the sites.
+     */
+    public double getMinY() {
+        return getBounds()[2];
+    }
+
+    /**
+     * @return The maximum y coordinate of the sites.
+     */
+    public double getMaxY() {
+        return getBounds()[3];
+    }
+
+    /**
+     * @return The bounding box of the sites as {minX, maxX, minY, maxY}, computed on the first call.
+     */
+    private double[] getBounds() {
+        if (bounds == null) {
+            double[] b = new double[]{
+                    Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                    Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+            };
+            for (int i = 0; i < getNbSites(); i++) {
+                double x = getX(i);
+                double y = getY(i);
+                b[0] = Math.min(b[0], x);
+                b[1] = Math.max(b[1], x);
+                b[2] = Math.min(b[2], y);
+                b[3] = Math.max(b[3], y);
+            }
+            bounds = b;
+        }
+        return bounds;
+    }
+}
@@ -23,11 +23,66 @@
 
 package chocoreserve.grid;
 
+import chocoreserve.grid.neighborhood.CompiledNeighborhood;
+import chocoreserve.grid.neighborhood.INeighborhood;
+
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Abstract base class for grids.
  */
 public abstract class Grid {
 
+    /**
+     * Neighborhoods compiled for this grid, built on demand.
+     */
+    private Map<INeighborhood, CompiledNeighborhood> compiledNeighborhoods;
+
+    /**
+     * Coordinates of the sites, built on demand.
+     */
+    private CoordinateStore coordinateStore;
+
+    /**
+     * @param neighborhood A neighborhood definition.
+     * @return The neighborhood compiled for this grid. It is built on the first call and shared afterwards.
+     */
+    public synchronized CompiledNeighborhood getCompiledNeighborhood(INeighborhood neighborhood) {
+        if (neighborhood instanceof CompiledNeighborhood) {
+            if (((CompiledNeighborhood) neighborhood).getGrid() == this) {
+                return (CompiledNeighborhood) neighborhood;
+            }
+            neighborhood = ((CompiledNeighborhood) neighborhood).getNeighborhood();
+        }
+        if (compiledNeighborhoods == null) {
+            compiledNeighborhoods = new HashMap<>();
+        }
+        CompiledNeighborhood compiled = compiledNeighborhoods.get(neighborhood);
+        if (compiled == null) {
+            compiled = neighborhood.compile(this);
+            compiledNeighborhoods.put(neighborhood, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * @return The coordinates of the sites of the grid. The store is built on the first call and shared afterwards.
+     */
+    public synchronized CoordinateStore getCoordinateStore() {
+        if (coordinateStore == null) {
+            coordinateStore = createCoordinateStore();
+        }
+        return coordinateStore;
+    }
+
+    /**
+     * @return A new coordinate store for this grid. By default, it is filled from getCartesianCoordinates().
+     */
+    protected CoordinateStore createCoordinateStore() {
+        return CoordinateStore.of(getCartesianCoordinates());
+    }
+
     /**
      * @return The number of cells of the grid.
      */
@@ -23,16 +23,22 @@
 
 package chocoreserve.grid;
 
+import chocoreserve.util.Parallel;
+import chocoreserve.vector.SpatialJoin;
 import org.geotools.data.DataStore;
 import org.geotools.data.DataStoreFinder;
 import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
 import org.geotools.data.shapefile.ShapefileDumper;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.FeatureIterator;
-import org.geotools.util.factory.GeoTools;
-import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
@@ -42,20 +48,51 @@ import org.opengis.filter.identity.FeatureId;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
  * Grid loaded from a shapefile.
+ *
+ * The grid keeps the data stores it opens (for its own shapefile and for the layers it is joined with) until it is
+ * closed, so that features are read without reopening the files and parsing their headers again.
  */
-public class ShapefileGrid extends Grid {
+public class ShapefileGrid extends Grid implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_INDEXED_ATTRIBUTES = 8;
+
+    /**
+     * Shapefile data store parameter enabling memory-mapped reading.
+     */
+    public static final String MEMORY_MAPPED_PARAMETER = "memory mapped buffer";
 
     private String filePath;
     public String[] shapeIds;
     private String idColumn;
     private Map<String, Integer> shapeIdToInternalId;
-    private Map<String, Set<String>> neighbors;
-    private Map<String, double[]> centroids;
+    private int[][] neighbors;
+    private double[] centroidXs, centroidYs;
+    private int maxIndexedAttributes = DEFAULT_MAX_INDEXED_ATTRIBUTES;
+
+    /**
+     * Data stores opened by the grid and their feature sources (by shapefile path), kept until close().
+     */
+    private final List<DataStore> dataStores = new ArrayList<>();
+    private final Map<String, FeatureSource<SimpleFeatureType, SimpleFeature>> featureSources = new HashMap<>();
+    private boolean memoryMapped;
+    private boolean closed;
+
+    /**
+     * Attribute indices, in access order for LRU eviction.
+     */
+    private final LinkedHashMap<String, AttributeIndex> attributeIndices =
+            new LinkedHashMap<String, AttributeIndex>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AttributeIndex> eldest) {
+                    return size() > maxIndexedAttributes;
+                }
+            };
 
     private static final Logger LOGGER = Logger.getLogger(ShapefileGrid.class.getName());
 
@@ -64,56 +101,182 @@ public class ShapefileGrid extends Grid {
     }
 
     public ShapefileGrid(String filePath, String idColumn) throws IOException {
+        this(filePath, idColumn, 1);
+    }
+
+    /**
+     * @param filePath    The path of the shapefile.
+     * @param idColumn    The attribute identifying the shapes ("" to use the feature ids).
+     * @param parallelism The number of threads used to compute the neighborhood (1 for a sequential computation).
+     */
+    public ShapefileGrid(String filePath, String idColumn, int parallelism) throws IOException {
+        this(filePath, idColumn, parallelism, false);
+    }
+
+    /**
+     * @param filePath         The path of the shapefile.
+     * @param idColumn         The attribute identifying the shapes ("" to use the feature ids).
+     * @param parallelism      The number of threads used to compute the neighborhood (1 for a sequential
+     *                         computation).
+     * @param useTopologyCache If true, the topology (ids, centroids and neighbors) is read from the sidecar cache
+     *                         file when it is up to date, and written to it otherwise (see ShapefileTopologyCache).
+     */
+    public ShapefileGrid(String filePath, String idColumn, int parallelism, boolean useTopologyCache)
+            throws IOException {
+        this(filePath, idColumn, parallelism, useTopologyCache, false);
+    }
+
+    /**
+     * @param filePath         The path of the shapefile.
+     * @param idColumn         The attribute identifying the shapes ("" to use the feature ids).
+     * @param parallelism      The number of threads used to compute the neighborhood (1 for a sequential
+     *                         computation).
+     * @param useTopologyCache If true, the topology (ids, centroids and neighbors) is read from the sidecar cache
+     *                         file when it is up to date, and written to it otherwise (see ShapefileTopologyCache).
+     * @param memoryMapped     If true, the shapefiles are read through memory-mapped buffers.
+     */
+    public ShapefileGrid(String filePath, String idColumn, int parallelism, boolean useTopologyCache,
+                         boolean memoryMapped) throws IOException {
         this.filePath = filePath;
         this.idColumn = idColumn;
+        this.memoryMapped = memoryMapped;
+
+        ShapefileTopologyCache cache = useTopologyCache ? new ShapefileTopologyCache(filePath, idColumn) : null;
+        if (cache != null && cache.read()) {
+            this.shapeIds = cache.getShapeIds();
+            this.centroidXs = cache.getCentroidXs();
+            this.centroidYs = cache.getCentroidYs();
+            this.neighbors = cache.getNeighbors();
+            this.shapeIdToInternalId = new HashMap<>();
+            for (int i = 0; i < shapeIds.length; i++) {
+                shapeIdToInternalId.put(shapeIds[i], i);
+            }
+            LOGGER.info("Topology of '" + filePath + "' loaded from cache (" + shapeIds.length + " sites)!");
+        } else {
+            loadTopology(parallelism);
+            if (cache != null) {
+                try {
+                    cache.write(shapeIds, centroidXs, centroidYs, neighbors);
+                } catch (IOException e) {
+                    LOGGER.warning("Could not write topology cache '" + cache.getCacheFile() + "': "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
 
+    private void loadTopology(int parallelism) throws IOException {
         LOGGER.info("Loading shapefile '" + filePath + "'...");
 
         FeatureCollection<SimpleFeatureType, SimpleFeature> collection = getFeatureCollection(Filter.INCLUDE);
+        int nbSites = collection.size();
 
-        LOGGER.info("Shapefile successfully loaded (" + collection.size() + " sites)!");
-        LOGGER.info("Computing neighborhood...");
-
-        this.shapeIds = new String[collection.size()];
+        this.shapeIds = new String[nbSites];
         this.shapeIdToInternalId = new HashMap<>();
-        this.neighbors = new HashMap<>(); // neighbors identified with shape id.
-        this.centroids = new HashMap<>();
+        this.centroidXs = new double[nbSites];
+        this.centroidYs = new double[nbSites];
+        Geometry[] geometries = new Geometry[nbSites];
 
         int i = 0;
-        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(GeoTools.getDefaultHints());
-
         try (FeatureIterator<SimpleFeature> features = collection.features()) {
             while (features.hasNext()) {
                 SimpleFeature feature = features.next();
                 shapeIds[i] = getFeatureId(feature);
-                shapeIdToInternalId.put(getFeatureId(feature), i);
-                neighbors.put(getFeatureId(feature), new HashSet<>());
-                MultiPolygon geom = (MultiPolygon) feature.getDefaultGeometryProperty().getValue();
-                centroids.put(shapeIds[i], new double[]{geom.getCentroid().getX(), geom.getCentroid().getY()});
-                Filter filter = ff.or(
-                        ff.touches(ff.property("the_geom"), ff.literal(geom)),
-                        ff.overlaps(ff.property("the_geom"), ff.literal(geom))
-//                        ff.intersects(ff.property("the_geom"), ff.literal(geom))
-                );
-
-                FeatureCollection<SimpleFeatureType, SimpleFeature> neighs = getFeatureCollection(filter);
-
-                try (FeatureIterator<SimpleFeature> neigh = neighs.features()) {
-                    while (neigh.hasNext()) {
-                        SimpleFeature f = neigh.next();
-                        neighbors.get(getFeatureId(feature)).add(getFeatureId(f));
-                    }
-                }
+                shapeIdToInternalId.put(shapeIds[i], i);
+                geometries[i] = (Geometry) feature.getDefaultGeometryProperty().getValue();
+                Point centroid = geometries[i].getCentroid();
+                centroidXs[i] = centroid.getX();
+                centroidYs[i] = centroid.getY();
                 i++;
             }
         }
+
+        LOGGER.info("Shapefile successfully loaded (" + nbSites + " sites)!");
+        LOGGER.info("Computing neighborhood...");
+
+        this.neighbors = computeNeighbors(geometries, parallelism);
+
         LOGGER.info("Neighborhood successfully computed!");
     }
 
-    public Map<String, Set<String>> getNeighbors() {
+    /**
+     * Computes the touching or overlapping geometries of each geometry in a single pass: the geometries are bulk
+     * loaded in an STRtree, and each geometry (prepared) is only tested against the geometries whose envelope
+     * intersects its own.
+     *
+     * @param geometries The geometries.
+     * @return For each geometry, the sorted indices of the geometries touching or overlapping it.
+     */
+    public static int[][] computeNeighbors(Geometry[] geometries) {
+        return computeNeighbors(geometries, 1);
+    }
+
+    /**
+     * Same as computeNeighbors(geometries), with the candidate tests split across a fork-join pool. The index is
+     * only read once built, and each task writes the neighbors of its own geometry, so the result does not depend
+     * on the parallelism.
+     *
+     * @param geometries  The geometries.
+     * @param parallelism The number of threads (1 for a sequential computation).
+     * @return For each geometry, the sorted indices of the geometries touching or overlapping it.
+     */
+    public static int[][] computeNeighbors(Geometry[] geometries, int parallelism) {
+        int nbGeometries = geometries.length;
+        STRtree tree = SpatialJoin.index(geometries);
+        int[][] neighbors = new int[nbGeometries][];
+        AtomicInteger nbDone = new AtomicInteger();
+        int step = Math.max(1, nbGeometries / 10);
+        Parallel.parallelFor(nbGeometries, parallelism, i -> {
+            neighbors[i] = computeNeighbors(geometries, tree, i);
+            int done = nbDone.incrementAndGet();
+            if (done % step == 0) {
+                LOGGER.info("Neighborhood computed for " + done + "/" + nbGeometries + " sites");
+            }
+        });
         return neighbors;
     }
 
+    private static int[] computeNeighbors(Geometry[] geometries, STRtree tree, int i) {
+        PreparedGeometry geom = PreparedGeometryFactory.prepare(geometries[i]);
+        List candidates = tree.query(geometries[i].getEnvelopeInternal());
+        int[] neighs = new int[candidates.size()];
+        int nb = 0;
+        for (Object candidate : candidates) {
+            int j = (Integer) candidate;
+            // The prepared intersection test discards most candidates before the full relate computations
+            if (j != i && geom.intersects(geometries[j])
+                    && (geom.touches(geometries[j]) || geom.overlaps(geometries[j]))) {
+                neighs[nb++] = j;
+            }
+        }
+        neighs = Arrays.copyOf(neighs, nb);
+        Arrays.sort(neighs);
+        return neighs;
+    }
+
+    /**
+     * @return The neighbors of each site, identified by shape ids, as a newly built map. Prefer getNeighborIds.
+     */
+    public Map<String, Set<String>> getNeighbors() {
+        Map<String, Set<String>> neighborMap = new HashMap<>();
+        for (int i = 0; i < shapeIds.length; i++) {
+            Set<String> neighs = new HashSet<>();
+            for (int j : neighbors[i]) {
+                neighs.add(shapeIds[j]);
+            }
+            neighborMap.put(shapeIds[i], neighs);
+        }
+        return neighborMap;
+    }
+
+    /**
+     * @param internalId The internal id of a site.
+     * @return The sorted internal ids of the neighbors of the site. Must not be modified.
+     */
+    public int[] getNeighborIds(int internalId) {
+        return neighbors[internalId];
+    }
+
     public String getFeatureId(SimpleFeature feature) {
         if ("".equals(idColumn)) {
             return feature.getID();
@@ -129,150 +292,218 @@ public class ShapefileGrid extends Grid {
         return shapeIds[internalId];
     }
 
+    /**
+     * @param filePath The path of a shapefile (the grid shapefile or another layer).
+     * @return The feature source of the shapefile. The data store is opened on the first call, then kept open and
+     * shared until the grid is closed.
+     */
+    public synchronized FeatureSource<SimpleFeatureType, SimpleFeature> getFeatureSource(String filePath)
+            throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The shapefile grid '" + this.filePath + "' is closed");
+        }
+        FeatureSource<SimpleFeatureType, SimpleFeature> source = featureSources.get(filePath);
+        if (source == null) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("url", new File(filePath).toURI().toURL());
+            if (memoryMapped) {
+                map.put(MEMORY_MAPPED_PARAMETER, true);
+            }
+            DataStore dataStore = DataStoreFinder.getDataStore(map);
+            if (dataStore == null) {
+                throw new IOException("Cannot open shapefile '" + filePath + "'");
+            }
+            dataStores.add(dataStore);
+            source = dataStore.getFeatureSource(dataStore.getTypeNames()[0]);
+            featureSources.put(filePath, source);
+        }
+        return source;
+    }
+
+    /**
+     * @return The feature source of the grid shapefile (see getFeatureSource(String)).
+     */
+    public FeatureSource<SimpleFeatureType, SimpleFeature> getFeatureSource() throws IOException {
+        return getFeatureSource(filePath);
+    }
+
+    /**
+     * Disposes the data stores opened by the grid. The topology, coordinates and attribute indices remain
+     * available, but the features cannot be read anymore.
+     */
+    @Override
+    public synchronized void close() {
+        for (DataStore dataStore : dataStores) {
+            dataStore.dispose();
+        }
+        dataStores.clear();
+        featureSources.clear();
+        closed = true;
+    }
+
     public FeatureCollection getFeatureCollection(String filePath, Filter filter) throws IOException {
-        File shp = new File(filePath);
-        Map<String, Object> map = new HashMap<>();
-        map.put("url", shp.toURI().toURL());
-        DataStore dataStore = DataStoreFinder.getDataStore(map);
-        String typeName = dataStore.getTypeNames()[0];
-        FeatureSource<SimpleFeatureType, SimpleFeature> source = dataStore.getFeatureSource(typeName);
-        return source.getFeatures(filter);
+        return getFeatureSource(filePath).getFeatures(filter);
     }
 
     public FeatureCollection getFeatureCollection(Filter filter) throws IOException {
         return getFeatureCollection(filePath, filter);
     }
 
+    /**
+     * @param overlappingFilePath The path of another shapefile.
+     * @return For each site, the sorted indices (in reading order) of the features of the other shapefile that
+     * intersect it.
+     */
     public int[][] getOverlappingFeatures(String overlappingFilePath) throws IOException {
-        int[][] overlapping = new int[getNbCells()][];
+        return getOverlappingFeatures(overlappingFilePath, Runtime.getRuntime().availableProcessors());
+    }
 
-        // Assign integer id to overlappingLayer
-        FeatureCollection<SimpleFeatureType, SimpleFeature> overlappping = getFeatureCollection(
+    /**
+     * Computes the overlapping features with a bulk spatial join: both layers are read once, the other layer is
+     * indexed in an STRtree and probed with the prepared geometry of each site.
+     *
+     * @param overlappingFilePath The path of another shapefile.
+     * @param parallelism         The number of threads (1 for a sequential computation).
+     * @return For each site, the sorted indices (in reading order) of the features of the other shapefile that
+     * intersect it.
+     */
+    public int[][] getOverlappingFeatures(String overlappingFilePath, int parallelism) throws IOException {
+        List<Geometry> overlapping = new ArrayList<>();
+        FeatureCollection<SimpleFeatureType, SimpleFeature> others = getFeatureCollection(
                 overlappingFilePath,
                 Filter.INCLUDE
         );
-        Map<String, Integer> mapping = new HashMap<>();
-        int i = 0;
-        try (FeatureIterator<SimpleFeature> feats = overlappping.features()) {
+        try (FeatureIterator<SimpleFeature> feats = others.features()) {
             while (feats.hasNext()) {
-                SimpleFeature f = feats.next();
-                mapping.put(f.getID(), i);
-                i++;
+                overlapping.add((Geometry) feats.next().getDefaultGeometryProperty().getValue());
             }
         }
-        // Compute overlapping
-        i = 0;
+        return SpatialJoin.intersecting(getGeometries(), overlapping.toArray(new Geometry[0]), parallelism);
+    }
+
+    /**
+     * @return The geometries of the sites, read from the shapefile, in internal id order.
+     */
+    public Geometry[] getGeometries() throws IOException {
+        Geometry[] geometries = new Geometry[getNbCells()];
         FeatureCollection<SimpleFeatureType, SimpleFeature> collection = getFeatureCollection(Filter.INCLUDE);
-        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(GeoTools.getDefaultHints());
         try (FeatureIterator<SimpleFeature> features = collection.features()) {
             while (features.hasNext()) {
                 SimpleFeature feature = features.next();
-                MultiPolygon geom = (MultiPolygon) feature.getDefaultGeometryProperty().getValue();
-                Filter filter = ff.intersects(ff.property("the_geom"), ff.literal(geom));
-                FeatureCollection<SimpleFeatureType, SimpleFeature> neighs = getFeatureCollection(
-                        overlappingFilePath,
-                        filter
-                );
-
-                Set<Integer> overlap = new HashSet<>();
-                try (FeatureIterator<SimpleFeature> neigh = neighs.features()) {
-                    while (neigh.hasNext()) {
-                        SimpleFeature f = neigh.next();
-                        overlap.add(mapping.get(f.getID()));
-                    }
-                }
-                overlapping[i] = overlap.stream().mapToInt(v -> v).toArray();
-                i++;
+                geometries[getInternalId(getFeatureId(feature))] =
+                        (Geometry) feature.getDefaultGeometryProperty().getValue();
             }
         }
-        return overlapping;
+        return geometries;
     }
 
+    /**
+     * @param attributeName The name of an attribute.
+     * @param value         A value of the attribute.
+     * @return The shape ids of the sites having this value, in internal id order (see getAttributeIndex).
+     */
     public String[] getShapeIdsByAttribute(String attributeName, Object value) throws IOException {
-        File shp = new File(filePath);
-        Map<String, Object> map = new HashMap<>();
-        map.put("url", shp.toURI().toURL());
-        DataStore dataStore = DataStoreFinder.getDataStore(map);
-        String typeName = dataStore.getTypeNames()[0];
-        FeatureSource<SimpleFeatureType, SimpleFeature> source = dataStore.getFeatureSource(typeName);
-        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
-        Filter filter;
-        filter = ff.or(
-                Arrays.stream(shapeIds)
-                        .map(i -> ff.equals(ff.property(attributeName), ff.literal(value)))
-                        .collect(Collectors.toList())
-        );
-        SimpleFeatureCollection collection = (SimpleFeatureCollection) source.getFeatures(filter);
-        String[] ids = new String[collection.size()];
-        int i = 0;
-        try (FeatureIterator<SimpleFeature> features = collection.features()) {
-            while (features.hasNext()) {
-                SimpleFeature feature = features.next();
-                ids[i] = getFeatureId(feature);
-                i++;
+        return Arrays.stream(getAttributeIndex(attributeName).get(value))
+                .mapToObj(i -> getShapeId(i))
+                .toArray(String[]::new);
+    }
+
+    /**
+     * @param attributeName The name of an attribute.
+     * @param value         A value of the attribute.
+     * @return The sorted internal ids of the sites having this value (see getAttributeIndex).
+     */
+    public int[] getInternalIdsByAttribute(String attributeName, Object value) throws IOException {
+        return getAttributeIndex(attributeName).get(value).clone();
+    }
+
+    /**
+     * @param attributeName The name of an attribute.
+     * @return The index of the values of the attribute. It is built with a single scan of the attribute table on
+     * the first call, and cached afterwards (the least recently used indices are evicted once more than
+     * getMaxIndexedAttributes() attributes are indexed).
+     */
+    public synchronized AttributeIndex getAttributeIndex(String attributeName) throws IOException {
+        AttributeIndex index = attributeIndices.get(attributeName);
+        if (index == null) {
+            Object[] values = new Object[getNbCells()];
+            String[] properties = "".equals(idColumn) || idColumn.equals(attributeName) ?
+                    new String[]{attributeName} :
+                    new String[]{idColumn, attributeName};
+            FeatureSource<SimpleFeatureType, SimpleFeature> source = getFeatureSource();
+            FeatureCollection<SimpleFeatureType, SimpleFeature> collection = source.getFeatures(
+                    new Query(source.getSchema().getTypeName(), Filter.INCLUDE, properties)
+            );
+            try (FeatureIterator<SimpleFeature> features = collection.features()) {
+                while (features.hasNext()) {
+                    SimpleFeature feature = features.next();
+                    values[getInternalId(getFeatureId(feature))] = feature.getAttribute(attributeName);
+                }
             }
+            index = new AttributeIndex(values);
+            attributeIndices.put(attributeName, index);
         }
-        return ids;
+        return index;
     }
 
-    public int[] getInternalIdsByAttribute(String attributeName, Object value) throws IOException {
-        return Arrays.stream(getShapeIdsByAttribute(attributeName, value))
-                .mapToInt(i -> getInternalId(i))
-                .toArray();
+    /**
+     * @return The maximum number of attribute indices kept in memory.
+     */
+    public int getMaxIndexedAttributes() {
+        return maxIndexedAttributes;
+    }
+
+    /**
+     * @param maxIndexedAttributes The maximum number of attribute indices kept in memory.
+     */
+    public synchronized void setMaxIndexedAttributes(int maxIndexedAttributes) {
+        this.maxIndexedAttributes = maxIndexedAttributes;
+        Iterator<String> it = attributeIndices.keySet().iterator();
+        while (attributeIndices.size() > maxIndexedAttributes) {
+            it.next();
+            it.remove();
+        }
     }
 
     @Override
     public int getNbCells() {
-        return neighbors.size();
+        return shapeIds.length;
     }
 
     @Override
     public double[][] getCartesianCoordinates() {
-        try {
-            File shp = new File(filePath);
-            Map<String, Object> map = new HashMap<>();
-            map.put("url", shp.toURI().toURL());
-            DataStore dataStore = null;
-            dataStore = DataStoreFinder.getDataStore(map);
-            String typeName = dataStore.getTypeNames()[0];
-            FeatureSource<SimpleFeatureType, SimpleFeature> source = dataStore.getFeatureSource(typeName);
-            Filter filter = Filter.INCLUDE;
-            FeatureCollection<SimpleFeatureType, SimpleFeature> collection = source.getFeatures(filter);
-            double[][] coords = new double[getNbCells()][2];
-            try (FeatureIterator<SimpleFeature> features = collection.features()) {
-                while (features.hasNext()) {
-                    SimpleFeature feature = features.next();
-                    MultiPolygon geom = (MultiPolygon) feature.getDefaultGeometryProperty().getValue();
-                    coords[getInternalId(getFeatureId(feature))] = new double[]
-                            {geom.getCentroid().getCoordinate().getX(), geom.getCentroid().getCoordinate().getX()};
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        double[][] coords = new double[getNbCells()][];
+        for (int i = 0; i < getNbCells(); i++) {
+            coords[i] = getCartesianCoordinates(i);
         }
-        return null;
+        return coords;
     }
 
     @Override
     public double[] getCartesianCoordinates(int site) {
-        return new double[0];
+        return new double[]{centroidXs[site], centroidYs[site]};
+    }
+
+    @Override
+    protected CoordinateStore createCoordinateStore() {
+        return CoordinateStore.of(centroidXs, centroidYs);
     }
 
     public String exportDot(double scale) {
-        double minX = centroids.values().stream().mapToDouble(i -> i[0]).min().getAsDouble();
-        double minY = centroids.values().stream().mapToDouble(i -> i[1]).min().getAsDouble();
+        double minX = getCoordinateStore().getMinX();
+        double minY = getCoordinateStore().getMinY();
         String arc = " -- ";
         StringBuilder sb = new StringBuilder();
         sb.append("graph ").append("{\n");
         sb.append("node [color = black, fontcolor=black];\n{\n");
-        for (String shapeId : shapeIds) {
-            sb.append("    " + shapeId + " [pos=\"" + (centroids.get(shapeId)[0] - minX) * scale + ", " + (centroids.get(shapeId)[1] - minY) * scale + "!\"];\n");
+        for (int i = 0; i < shapeIds.length; i++) {
+            sb.append("    " + shapeIds[i] + " [pos=\"" + (centroidXs[i] - minX) * scale + ", " + (centroidYs[i] - minY) * scale + "!\"];\n");
         }
         sb.append("\n}\n");
-        for (String shapeId : shapeIds) {
-            for (String neigh : neighbors.get(shapeId)) {
-                if (getInternalId(shapeId) > getInternalId(neigh)) {
-                    sb.append("  " + shapeId + arc + neigh + ";\n");
+        for (int i = 0; i < shapeIds.length; i++) {
+            for (int j : neighbors[i]) {
+                if (i > j) {
+                    sb.append("  " + shapeIds[i] + arc + shapeIds[j] + ";\n");
                 }
             }
         }
@@ -286,13 +517,7 @@ public class ShapefileGrid extends Grid {
     }
 
     public void export(String destPath, String[] shapeIds) throws IOException {
-        // Load existing
-        File shp = new File(filePath);
-        Map<String, Object> map = new HashMap<>();
-        map.put("url", shp.toURI().toURL());
-        DataStore dataStore = DataStoreFinder.getDataStore(map);
-        String typeName = dataStore.getTypeNames()[0];
-        FeatureSource<SimpleFeatureType, SimpleFeature> source = dataStore.getFeatureSource(typeName);
+        FeatureSource<SimpleFeatureType, SimpleFeature> source = getFeatureSource();
         FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2();
         Filter filter;
         if (idColumn.equals("")) {
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Binary sidecar cache (<shapefile>.crtopo) of the topology of a shapefile grid: shape ids in internal id order,
+ * centroids and CSR adjacency. The cache is keyed by a SHA-256 hash of the content of the .shp and .dbf files and
+ * of the id column, so a cache written for another version of the shapefile (or another id column) is ignored.
+ *
+ * Layout (big-endian): magic, version, key (32 bytes), nbSites, nbTargets, then for each site the length and
+ * UTF-8 bytes of its shape id, the centroid x and y arrays, the offsets (nbSites + 1) and the targets.
+ */
+public class ShapefileTopologyCache {
+
+    public static final String EXTENSION = ".crtopo";
+
+    private static final int MAGIC = 0x43525450;
+    private static final int VERSION = 1;
+    private static final int KEY_SIZE = 32;
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final File cacheFile;
+    private final byte[] key;
+
+    private String[] shapeIds;
+    private double[] centroidXs, centroidYs;
+    private int[][] neighbors;
+
+    /**
+     * @param shapefilePath The path of the .shp file.
+     * @param idColumn      The attribute identifying the shapes.
+     */
+    public ShapefileTopologyCache(String shapefilePath, String idColumn) throws IOException {
+        this.cacheFile = new File(shapefilePath + EXTENSION);
+        this.key = computeKey(shapefilePath, idColumn);
+    }
+
+    private static byte[] computeKey(String shapefilePath, String idColumn) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        File dbf = new File(shapefilePath.replaceFirst("\\.[^.]*$", ".dbf"));
+        for (File file : new File[]{new File(shapefilePath), dbf}) {
+            if (!file.exists()) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        digest.update(idColumn.getBytes(StandardCharsets.UTF_8));
+        return digest.digest();
+    }
+
+    /**
+     * @return The cache file.
+     */
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Reads the cache file if it exists and matches the current shapefile and id column.
+     *
+     * @return True if the topology was read, false if there is no valid cache.
+     */
+    public boolean read() throws IOException {
+        if (!cacheFile.exists()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 + KEY_SIZE + 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return false;
+            }
+            byte[] storedKey = new byte[KEY_SIZE];
+            buffer.get(storedKey);
+            if (!Arrays.equals(key, storedKey)) {
+                return false;
+            }
+            int nbSites = buffer.getInt();
+            int nbTargets = buffer.getInt();
+            String[] ids = new String[nbSites];
+            for (int i = 0; i < nbSites; i++) {
+                byte[] id = new byte[buffer.getInt()];
+                buffer.get(id);
+                ids[i] = new String(id, StandardCharsets.UTF_8);
+            }
+            double[] xs = new double[nbSites];
+            double[] ys = new double[nbSites];
+            buffer.asDoubleBuffer().get(xs).get(ys);
+            buffer.position(buffer.position() + 16 * nbSites);
+            int[] offsets = new int[nbSites + 1];
+            int[] targets = new int[nbTargets];
+            buffer.asIntBuffer().get(offsets).get(targets);
+            int[][] neighs = new int[nbSites][];
+            for (int i = 0; i < nbSites; i++) {
+                neighs[i] = Arrays.copyOfRange(targets, offsets[i], offsets[i + 1]);
+            }
+            this.shapeIds = ids;
+            this.centroidXs = xs;
+            this.centroidYs = ys;
+            this.neighbors = neighs;
+            return true;
+        } catch (RuntimeException e) {
+            // Truncated or corrupted cache file
+            return false;
+        }
+    }
+
+    /**
+     * Writes the topology in the cache file, replacing any existing one. The topology is written in a temporary file
+     * of the same directory, which is then atomically moved to the cache file (where the file system supports it), so
+     * concurrent builds of the same grid never read or write a partially written cache.
+     *
+     * @param shapeIds   The shape ids, in internal id order.
+     * @param centroidXs The x coordinates of the centroids.
+     * @param centroidYs The y coordinates of the centroids.
+     * @param neighbors  The internal ids of the neighbors of each site.
+     * @throws IOException If the cache cannot be written, or if the topology is too large to be cached.
+     */
+    public void write(String[] shapeIds, double[] centroidXs, double[] centroidYs, int[][] neighbors)
+            throws IOException {
+        int nbSites = shapeIds.length;
+        long nbTargets = 0;
+        byte[][] ids = new byte[nbSites][];
+        long size = 8 + KEY_SIZE + 8 + 16L * nbSites + 4L * (nbSites + 1);
+        for (int i = 0; i < nbSites; i++) {
+            ids[i] = shapeIds[i].getBytes(StandardCharsets.UTF_8);
+            nbTargets += neighbors[i].length;
+            size += 4 + ids[i].length;
+        }
+        size += 4L * nbTargets;
+        if (size > MAX_SIZE) {
+            throw new IOException("The topology of " + nbSites + " sites and " + nbTargets + " adjacencies ("
+                    + size + " bytes) is too large to be cached");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).put(key).putInt(nbSites).putInt((int) nbTargets);
+        for (byte[] id : ids) {
+            buffer.putInt(id.length).put(id);
+        }
+        buffer.asDoubleBuffer().put(centroidXs).put(centroidYs);
+        buffer.position(buffer.position() + 16 * nbSites);
+        int offset = 0;
+        for (int i = 0; i < nbSites; i++) {
+            buffer.putInt(offset);
+            offset += neighbors[i].length;
+        }
+        buffer.putInt(offset);
+        for (int[] neighs : neighbors) {
+            buffer.asIntBuffer().put(neighs);
+            buffer.position(buffer.position() + 4 * neighs.length);
+        }
+        buffer.flip();
+        Path target = cacheFile.getAbsoluteFile().toPath();
+        Path tmp = Files.createTempFile(target.getParent(), cacheFile.getName(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return The shape ids read from the cache, in internal id order.
+     */
+    public String[] getShapeIds() {
+        return shapeIds;
+    }
+
+    /**
+     * @return The x coordinates of the centroids read from the cache.
+     */
+    public double[] getCentroidXs() {
+        return centroidXs;
+    }
+
+    /**
+     * @return The y coordinates of the centroids read from the cache.
+     */
+    public double[] getCentroidYs() {
+        return centroidYs;
+    }
+
+    /**
+     * @return The neighbors read from the cache.
+     */
+    public int[][] getNeighbors() {
+        return neighbors;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood;
+
+import chocoreserve.grid.Grid;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A neighborhood compiled for a given grid into a compressed sparse row (CSR) adjacency structure: the neighbors
+ * of cell i are targets[offsets[i]], ..., targets[offsets[i + 1] - 1].
+ *
+ * The structure is built once from another neighborhood definition and is read-only afterwards, it can thus be
+ * shared by every region and propagator working on the same grid (see Grid.getCompiledNeighborhood). Lookups through
+ * getNbNeighbors, getOffsets, getTargets, forEachNeighbor and fillNeighbors do not allocate.
+ */
+public class CompiledNeighborhood<T extends Grid> implements INeighborhood<T> {
+
+    private final T grid;
+    private final INeighborhood<T> neighborhood;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int maxNbNeighbors;
+
+    /**
+     * @param grid         The grid the neighborhood is compiled for.
+     * @param neighborhood The neighborhood definition to compile.
+     */
+    public CompiledNeighborhood(T grid, INeighborhood<T> neighborhood) {
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        int nbCells = grid.getNbCells();
+        this.offsets = new int[nbCells + 1];
+        Builder builder = new Builder(4 * nbCells);
+        int max = 0;
+        for (int i = 0; i < nbCells; i++) {
+            offsets[i] = builder.size;
+            neighborhood.forEachNeighbor(grid, i, builder);
+            max = Math.max(max, builder.size - offsets[i]);
+        }
+        offsets[nbCells] = builder.size;
+        this.targets = builder.size == builder.adj.length ? builder.adj : Arrays.copyOf(builder.adj, builder.size);
+        this.maxNbNeighbors = max;
+    }
+
+    /**
+     * Builds a compiled neighborhood from an adjacency structure computed by the caller, for neighborhood
+     * definitions that can produce it faster than by enumerating each cell independently.
+     *
+     * @param grid         The grid the neighborhood is compiled for.
+     * @param neighborhood The neighborhood definition that was compiled.
+     * @param offsets      The CSR offsets array (size nbCells + 1).
+     * @param targets      The CSR targets array.
+     */
+    public CompiledNeighborhood(T grid, INeighborhood<T> neighborhood, int[] offsets, int[] targets) {
+        assert offsets.length == grid.getNbCells() + 1;
+        assert offsets[offsets.length - 1] == targets.length;
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.offsets = offsets;
+        this.targets = targets;
+        int max = 0;
+        for (int i = 0; i < offsets.length - 1; i++) {
+            max = Math.max(max, offsets[i + 1] - offsets[i]);
+        }
+        this.maxNbNeighbors = max;
+    }
+
+    /**
+     * Growable targets array, filled through forEachNeighbor to avoid building one set per cell.
+     */
+    private static class Builder implements IntConsumer {
+
+        private int[] adj;
+        private int size;
+
+        private Builder(int capacity) {
+            this.adj = new int[Math.max(capacity, 1)];
+        }
+
+        @Override
+        public void accept(int j) {
+            if (size == adj.length) {
+                adj = Arrays.copyOf(adj, 2 * adj.length);
+            }
+            adj[size++] = j;
+        }
+    }
+
+    /**
+     * @return The grid the neighborhood is compiled for.
+     */
+    public T getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return The neighborhood definition that was compiled.
+     */
+    public INeighborhood<T> getNeighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * @return The CSR offsets array (size nbCells + 1). Must not be modified.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * @return The CSR targets array. Must not be modified.
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * @param i The index of a cell.
+     * @return The number of neighbors of i.
+     */
+    public int getNbNeighbors(int i) {
+        return offsets[i + 1] - offsets[i];
+    }
+
+    /**
+     * @param i The index of a cell.
+     * @return A copy of the neighbors of i, as an array.
+     */
+    public int[] getNeighborsArray(int i) {
+        return Arrays.copyOfRange(targets, offsets[i], offsets[i + 1]);
+    }
+
+    @Override
+    public ISet getNeighbors(T grid, int i) {
+        assert grid == this.grid;
+        return SetFactory.makeConstantSet(getNeighborsArray(i));
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
+        assert grid == this.grid;
+        for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+            action.accept(targets[k]);
+        }
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        assert grid == this.grid;
+        int nb = offsets[i + 1] - offsets[i];
+        System.arraycopy(targets, offsets[i], buffer, 0, nb);
+        return nb;
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        assert grid == this.grid;
+        return maxNbNeighbors;
+    }
+}
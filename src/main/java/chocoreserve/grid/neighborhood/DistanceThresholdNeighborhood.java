@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood;
+
+import chocoreserve.grid.CoordinateStore;
+import chocoreserve.grid.Grid;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Euclidean distance-threshold neighborhood: two sites are neighbors if the distance between their coordinates
+ * (see Grid.getCoordinateStore) is at most the threshold. Can be used with any grid, in particular with shapefile
+ * grids, e.g. as the distance threshold of the integral index of connectivity.
+ *
+ * The adjacency is computed once per grid with a uniform bucket grid whose buckets are at least as wide as the
+ * threshold, so that only the sites of the 3x3 buckets around a site have to be checked. It is stored as the
+ * compiled neighborhood of the grid (see Grid.getCompiledNeighborhood) and all the lookups are served from it.
+ */
+public class DistanceThresholdNeighborhood<T extends Grid> implements INeighborhood<T> {
+
+    private final double threshold;
+
+    /**
+     * @param threshold The maximum distance between two neighbors.
+     */
+    public DistanceThresholdNeighborhood(double threshold) {
+        assert threshold >= 0;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return The maximum distance between two neighbors.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public ISet getNeighbors(T grid, int i) {
+        return grid.getCompiledNeighborhood(this).getNeighbors(grid, i);
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
+        grid.getCompiledNeighborhood(this).forEachNeighbor(grid, i, action);
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        return grid.getCompiledNeighborhood(this).fillNeighbors(grid, i, buffer);
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return grid.getCompiledNeighborhood(this).getMaxNbNeighbors(grid);
+    }
+
+    @Override
+    public CompiledNeighborhood<T> compile(T grid) {
+        CoordinateStore coords = grid.getCoordinateStore();
+        int n = coords.getNbSites();
+        int[] offsets = new int[n + 1];
+        if (n == 0) {
+            return new CompiledNeighborhood<>(grid, this, offsets, new int[0]);
+        }
+        double minX = coords.getMinX();
+        double minY = coords.getMinY();
+        double width = coords.getMaxX() - minX;
+        double height = coords.getMaxY() - minY;
+        // Buckets at least as wide as the threshold, enlarged until there are at most 4n buckets
+        double side = Math.max(threshold, Math.max(width, height) / n);
+        if (side == 0) {
+            side = 1;
+        }
+        while (((long) (width / side) + 1) * ((long) (height / side) + 1) > 4L * n) {
+            side *= 2;
+        }
+        int nbBucketCols = (int) (width / side) + 1;
+        int nbBucketRows = (int) (height / side) + 1;
+        // Counting sort of the sites by bucket
+        int[] bucketCol = new int[n];
+        int[] bucketRow = new int[n];
+        int[] bucketStart = new int[nbBucketCols * nbBucketRows + 1];
+        for (int i = 0; i < n; i++) {
+            bucketCol[i] = Math.min((int) ((coords.getX(i) - minX) / side), nbBucketCols - 1);
+            bucketRow[i] = Math.min((int) ((coords.getY(i) - minY) / side), nbBucketRows - 1);
+            bucketStart[bucketRow[i] * nbBucketCols + bucketCol[i] + 1]++;
+        }
+        for (int b = 0; b < nbBucketCols * nbBucketRows; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] sites = new int[n];
+        int[] next = Arrays.copyOf(bucketStart, bucketStart.length - 1);
+        for (int i = 0; i < n; i++) {
+            sites[next[bucketRow[i] * nbBucketCols + bucketCol[i]]++] = i;
+        }
+        // Adjacency, in CSR form
+        int[] targets = new int[Math.max(n, 16)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = size;
+            for (int r = Math.max(0, bucketRow[i] - 1); r <= Math.min(nbBucketRows - 1, bucketRow[i] + 1); r++) {
+                for (int c = Math.max(0, bucketCol[i] - 1); c <= Math.min(nbBucketCols - 1, bucketCol[i] + 1); c++) {
+                    int b = r * nbBucketCols + c;
+                    for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) {
+                        int j = sites[k];
+                        if (j != i && coords.distance(i, j) <= threshold) {
+                            if (size == targets.length) {
+                                targets = Arrays.copyOf(targets, 2 * targets.length);
+                            }
+                            targets[size++] = j;
+                        }
+                    }
+                }
+            }
+            Arrays.sort(targets, offsets[i], size);
+        }
+        offsets[n] = size;
+        return new CompiledNeighborhood<>(grid, this, offsets, Arrays.copyOf(targets, size));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof DistanceThresholdNeighborhood
+                && ((DistanceThresholdNeighborhood) o).threshold == threshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(threshold);
+    }
+}
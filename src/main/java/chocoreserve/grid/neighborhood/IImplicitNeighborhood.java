@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood;
+
+import chocoreserve.grid.Grid;
+import chocoreserve.util.objects.graphs.ImplicitUndirectedGraphFromSubgraph;
+import chocoreserve.util.objects.graphs.UndirectedGraphIncrementalCC;
+import org.chocosolver.solver.Model;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+/**
+ * Neighborhood whose neighbors are computed from the grid geometry without materializing any adjacency structure
+ * (e.g. on regular square grids). The upper bound graph of spatial graph variables is then implicit: it only stores
+ * its nodes and derives edges from the neighborhood.
+ */
+public interface IImplicitNeighborhood<T extends Grid> extends INeighborhood<T> {
+
+    @Override
+    default UndirectedGraph getPartialGraphUBFromLB(T grid, Model model, int[] cells, SetType setType, UndirectedGraphIncrementalCC GLB) {
+        UndirectedGraph partialGraph = new ImplicitUndirectedGraphFromSubgraph<>(model, grid, this, setType, GLB);
+        for (int i : cells) {
+            partialGraph.addNode(i);
+        }
+        return partialGraph;
+    }
+}
@@ -33,6 +33,8 @@ import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetType;
 
+import java.util.function.IntConsumer;
+
 /**
  * Interface specifying a neighborhood definition in a grid.
  */
@@ -45,6 +47,62 @@ public interface INeighborhood<T extends Grid> {
      */
     ISet getNeighbors(T grid, int i);
 
+    /**
+     * Applies an action to each neighbor of a cell. Neighborhoods that can enumerate neighbors directly (e.g.
+     * arithmetically on regular grids) override this method to avoid materializing a set.
+     *
+     * @param grid   A grid.
+     * @param i      The index of a cell.
+     * @param action The action to apply to each neighbor of i.
+     */
+    default void forEachNeighbor(T grid, int i, IntConsumer action) {
+        for (int j : getNeighbors(grid, i)) {
+            action.accept(j);
+        }
+    }
+
+    /**
+     * Writes the neighbors of a cell into a caller-owned buffer.
+     *
+     * @param grid   A grid.
+     * @param i      The index of a cell.
+     * @param buffer The buffer to fill, its size must be at least getMaxNbNeighbors(grid).
+     * @return The number of neighbors written in the buffer.
+     */
+    default int fillNeighbors(T grid, int i, int[] buffer) {
+        int k = 0;
+        for (int j : getNeighbors(grid, i)) {
+            buffer[k++] = j;
+        }
+        return k;
+    }
+
+    /**
+     * By default, scans the neighbors of every cell without compiling nor caching anything. Neighborhoods that know a
+     * bound (e.g. arithmetically on regular grids) should override this method.
+     *
+     * @param grid A grid.
+     * @return The maximum number of neighbors a cell can have in the grid (e.g. for sizing fillNeighbors buffers).
+     */
+    default int getMaxNbNeighbors(T grid) {
+        int max = 0;
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            max = Math.max(max, getNeighbors(grid, i).size());
+        }
+        return max;
+    }
+
+    /**
+     * Compiles the neighborhood for a grid. Should not be called directly, use Grid.getCompiledNeighborhood to get
+     * the shared compiled neighborhood.
+     *
+     * @param grid A grid.
+     * @return A new compiled neighborhood for the grid.
+     */
+    default CompiledNeighborhood<T> compile(T grid) {
+        return new CompiledNeighborhood<>(grid, this);
+    }
+
     /**
      * @param grid    A grid.
      * @param model   The GraphModel to be associated with the graph.
@@ -56,10 +114,8 @@ public interface INeighborhood<T extends Grid> {
         UndirectedGraph g = new UndirectedGraph(model, nbCells, setType, false);
         for (int i = 0; i < nbCells; i++) {
             g.addNode(i);
-            ISet neighbors = getNeighbors(grid, i);
-            for (int ii : neighbors) {
-                g.addEdge(i, ii);
-            }
+            int finalI = i;
+            forEachNeighbor(grid, i, ii -> g.addEdge(finalI, ii));
         }
         return g;
     }
@@ -78,12 +134,11 @@ public interface INeighborhood<T extends Grid> {
             partialGraph.addNode(i);
         }
         for (int i : cells) {
-            ISet neighbors = getNeighbors(grid, i);
-            for (int ii : neighbors) {
+            forEachNeighbor(grid, i, ii -> {
                 if (partialGraph.getNodes().contains(ii)) {
                     partialGraph.addEdge(i, ii);
                 }
-            }
+            });
         }
         return partialGraph;
     }
@@ -102,24 +157,18 @@ public interface INeighborhood<T extends Grid> {
      */
     default UndirectedGraph getPartialGraphUB(T grid, Model model, int[] cells, SetType setType, boolean decr) {
         int nbCells = grid.getNbCells();
-        UndirectedGraph partialGraph;
-        if (decr) {
-            partialGraph = new UndirectedGraphDecrementalCC(model, nbCells, setType, false);
-
-        } else {
-            partialGraph = new UndirectedGraph(model, nbCells, setType, false);
-//            partialGraph = new UndirectedGraph()
-        }
+        UndirectedGraph partialGraph = decr ?
+                new UndirectedGraphDecrementalCC(model, nbCells, setType, false) :
+                new UndirectedGraph(model, nbCells, setType, false);
         for (int i : cells) {
             partialGraph.addNode(i);
         }
         for (int i : cells) {
-            ISet neighbors = getNeighbors(grid, i);
-            for (int ii : neighbors) {
+            forEachNeighbor(grid, i, ii -> {
                 if (partialGraph.getNodes().contains(ii)) {
                     partialGraph.addEdge(i, ii);
                 }
-            }
+            });
         }
         if (decr) {
             ((UndirectedGraphDecrementalCC) partialGraph).init();
@@ -129,18 +178,16 @@ public interface INeighborhood<T extends Grid> {
 
     default UndirectedGraph getPartialGraphUBFromLB(T grid, Model model, int[] cells, SetType setType, UndirectedGraphIncrementalCC GLB) {
         int nbCells = grid.getNbCells();
-        UndirectedGraph partialGraph;
-        partialGraph = new UndirectedGraphDecrementalFromSubgraph(model, nbCells, setType, GLB, false);
+        UndirectedGraph partialGraph = new UndirectedGraphDecrementalFromSubgraph(model, nbCells, setType, GLB, false);
         for (int i : cells) {
             partialGraph.addNode(i);
         }
         for (int i : cells) {
-            ISet neighbors = getNeighbors(grid, i);
-            for (int ii : neighbors) {
+            forEachNeighbor(grid, i, ii -> {
                 if (partialGraph.getNodes().contains(ii)) {
                     partialGraph.addEdge(i, ii);
                 }
-            }
+            });
         }
         return partialGraph;
     }
@@ -25,6 +25,7 @@ package chocoreserve.grid.neighborhood;
 
 
 import chocoreserve.grid.neighborhood.regulare.square.*;
+import chocoreserve.grid.neighborhood.regulare.square.StencilNeighborhood.Metric;
 
 /**
  * Utility class for accessing neighborhoods.
@@ -40,5 +41,9 @@ public class Neighborhoods {
     public final static PartialTwoWideFourConnected PARTIAL_TWO_WIDE_FOUR_CONNECTED = new PartialTwoWideFourConnected();
     public final static PartialTwoWideHeightConnected PARTIAL_TWO_WIDE_HEIGHT_CONNECTED = new PartialTwoWideHeightConnected();
     public final static ShapefileNeighborhood SHAPEFILE_NEIGHBORHOOD = new ShapefileNeighborhood();
+    public final static StencilNeighborhood MANHATTAN_TWO = new StencilNeighborhood(2, Metric.MANHATTAN);
+    public final static StencilNeighborhood CHEBYSHEV_TWO = new StencilNeighborhood(2, Metric.CHEBYSHEV);
+    public final static PartialStencilNeighborhood PARTIAL_MANHATTAN_TWO = new PartialStencilNeighborhood(2, Metric.MANHATTAN);
+    public final static PartialStencilNeighborhood PARTIAL_CHEBYSHEV_TWO = new PartialStencilNeighborhood(2, Metric.CHEBYSHEV);
 
 }
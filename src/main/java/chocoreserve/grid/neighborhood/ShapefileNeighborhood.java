@@ -27,6 +27,7 @@ import chocoreserve.grid.ShapefileGrid;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
+import java.util.function.IntConsumer;
 
 /**
  *
@@ -35,9 +36,21 @@ public class ShapefileNeighborhood<T extends ShapefileGrid> implements INeighbor
 
     @Override
     public ISet getNeighbors(T grid, int i) {
-        return SetFactory.makeConstantSet(grid.getNeighbors().get(grid.getShapeId(i)).stream()
-                .mapToInt(shapeId -> grid.getInternalId(shapeId))
-                .toArray());
+        return SetFactory.makeConstantSet(grid.getNeighborIds(i).clone());
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
+        for (int j : grid.getNeighborIds(i)) {
+            action.accept(j);
+        }
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        int[] neighs = grid.getNeighborIds(i);
+        System.arraycopy(neighs, 0, buffer, 0, neighs.length);
+        return neighs.length;
     }
 
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood.regulare.square;
+
+import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Base class for the 2-wide neighborhoods in a (partial) regular square grid: the neighbors of a cell are the
+ * neighbors of its direct (four or height-connected) neighbors, going only through cells of the grid.
+ *
+ * The 5x5 window around a cell is encoded as a 25-bit mask (bit (dRow + 2) * 5 + dCol + 2), filled by walking the two
+ * hops on the grid, such that neighbors are enumerated without duplicates and without allocating any set.
+ */
+public abstract class AbstractTwoWideNeighborhood<T extends RegularSquareGrid> implements INeighborhood<T> {
+
+    private static final int[][] FOUR = {{0, -1}, {0, 1}, {-1, 0}, {1, 0}};
+    private static final int[][] HEIGHT = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    private final int[][] offsets;
+    private final boolean withDirect;
+    private final boolean withSelf;
+    private final int maxNbNeighbors;
+
+    /**
+     * @param diagonal   True for height-connected hops, false for four-connected hops.
+     * @param withDirect True if the direct neighbors are neighbors.
+     * @param withSelf   True if a cell is its own neighbor when it can be reached back in two hops.
+     */
+    protected AbstractTwoWideNeighborhood(boolean diagonal, boolean withDirect, boolean withSelf) {
+        this.offsets = diagonal ? HEIGHT : FOUR;
+        this.withDirect = withDirect;
+        this.withSelf = withSelf;
+        int full = 0;
+        for (int[] o1 : offsets) {
+            if (withDirect) {
+                full |= bit(o1[0], o1[1]);
+            }
+            for (int[] o2 : offsets) {
+                if (withSelf || o1[0] + o2[0] != 0 || o1[1] + o2[1] != 0) {
+                    full |= bit(o1[0] + o2[0], o1[1] + o2[1]);
+                }
+            }
+        }
+        this.maxNbNeighbors = Integer.bitCount(full);
+    }
+
+    private static int bit(int dRow, int dCol) {
+        return 1 << ((dRow + 2) * 5 + dCol + 2);
+    }
+
+    private static boolean inGrid(RegularSquareGrid grid, int row, int col) {
+        return row >= 0 && row < grid.getNbRows() && col >= 0 && col < grid.getNbCols()
+                && grid.getCellIndex(row * grid.getNbCols() + col) >= 0;
+    }
+
+    /**
+     * @return The mask of the neighbors of the cell at (row, col).
+     */
+    private int neighborsMask(T grid, int row, int col) {
+        int mask = 0;
+        for (int[] o1 : offsets) {
+            int r1 = row + o1[0];
+            int c1 = col + o1[1];
+            if (!inGrid(grid, r1, c1)) {
+                continue;
+            }
+            if (withDirect) {
+                mask |= bit(o1[0], o1[1]);
+            }
+            for (int[] o2 : offsets) {
+                int dRow = o1[0] + o2[0];
+                int dCol = o1[1] + o2[1];
+                if ((withSelf || dRow != 0 || dCol != 0) && inGrid(grid, r1 + o2[0], c1 + o2[1])) {
+                    mask |= bit(dRow, dCol);
+                }
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public ISet getNeighbors(T grid, int i) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, i, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
+        int nbCols = grid.getNbCols();
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        for (int mask = neighborsMask(grid, row, col); mask != 0; mask &= mask - 1) {
+            int b = Integer.numberOfTrailingZeros(mask);
+            action.accept(grid.getCellIndex((row + b / 5 - 2) * nbCols + col + b % 5 - 2));
+        }
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        int nbCols = grid.getNbCols();
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        int nb = 0;
+        for (int mask = neighborsMask(grid, row, col); mask != 0; mask &= mask - 1) {
+            int b = Integer.numberOfTrailingZeros(mask);
+            buffer[nb++] = grid.getCellIndex((row + b / 5 - 2) * nbCols + col + b % 5 - 2);
+        }
+        return nb;
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return maxNbNeighbors;
+    }
+}
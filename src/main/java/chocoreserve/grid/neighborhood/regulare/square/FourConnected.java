@@ -23,33 +23,70 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.IImplicitNeighborhood;
 import chocoreserve.grid.regular.square.RegularSquareGrid;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
+import java.util.function.IntConsumer;
+
 /**
  * The four-connected neighborhood in a regular square grid.
  */
-public class FourConnected<T extends RegularSquareGrid> implements INeighborhood<T> {
+public class FourConnected<T extends RegularSquareGrid> implements IImplicitNeighborhood<T> {
 
     public ISet getNeighbors(T grid, int i) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, i, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
         int nbCols = grid.getNbCols();
         int nbRows = grid.getNbRows();
-        ISet neighbors = SetFactory.makeBitSet(0);
-        if (i % nbCols != 0) {
-            neighbors.add(i - 1);
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        if (col > 0) {
+            action.accept(grid.getCellIndex(k - 1));
         }
-        if ((i + 1) % nbCols != 0) {
-            neighbors.add(i + 1);
+        if (col < nbCols - 1) {
+            action.accept(grid.getCellIndex(k + 1));
         }
-        if (i >= nbCols) {
-            neighbors.add(i - nbCols);
+        if (row > 0) {
+            action.accept(grid.getCellIndex(k - nbCols));
         }
-        if (i < nbCols * (nbRows - 1)) {
-            neighbors.add(i + nbCols);
+        if (row < nbRows - 1) {
+            action.accept(grid.getCellIndex(k + nbCols));
         }
-        return neighbors;
     }
 
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        int nbCols = grid.getNbCols();
+        int nbRows = grid.getNbRows();
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        int nb = 0;
+        if (col > 0) {
+            buffer[nb++] = grid.getCellIndex(k - 1);
+        }
+        if (col < nbCols - 1) {
+            buffer[nb++] = grid.getCellIndex(k + 1);
+        }
+        if (row > 0) {
+            buffer[nb++] = grid.getCellIndex(k - nbCols);
+        }
+        if (row < nbRows - 1) {
+            buffer[nb++] = grid.getCellIndex(k + nbCols);
+        }
+        return nb;
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return 4;
+    }
 }
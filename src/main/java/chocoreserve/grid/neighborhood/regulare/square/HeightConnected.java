@@ -23,45 +23,68 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.IImplicitNeighborhood;
 import chocoreserve.grid.regular.square.RegularSquareGrid;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
+import java.util.function.IntConsumer;
+
 /**
  * The height-connected neighborhood in a regular square grid.
  */
-public class HeightConnected<T extends RegularSquareGrid> implements INeighborhood<T> {
+public class HeightConnected<T extends RegularSquareGrid> implements IImplicitNeighborhood<T> {
 
     public ISet getNeighbors(T grid, int i) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, i, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
         int nbCols = grid.getNbCols();
         int nbRows = grid.getNbRows();
-        ISet neighbors = SetFactory.makeBitSet(0);
-        if (i % nbCols != 0) {
-            neighbors.add(i - 1);
-        }
-        if (i >= nbCols) {
-            neighbors.add(i - nbCols);
-        }
-        if ((i + 1) % nbCols != 0) {
-            neighbors.add(i + 1);
-        }
-        if (i < nbCols * (nbRows - 1)) {
-            neighbors.add(i + nbCols);
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        int rowMin = row > 0 ? -1 : 0;
+        int rowMax = row < nbRows - 1 ? 1 : 0;
+        int colMin = col > 0 ? -1 : 0;
+        int colMax = col < nbCols - 1 ? 1 : 0;
+        for (int dy = rowMin; dy <= rowMax; dy++) {
+            for (int dx = colMin; dx <= colMax; dx++) {
+                if (dy != 0 || dx != 0) {
+                    action.accept(grid.getCellIndex(k + dy * nbCols + dx));
+                }
+            }
         }
-        if ((i < nbCols * (nbRows - 1)) && ((i + 1) % nbCols != 0)) {
-            neighbors.add(i + nbCols + 1);
-        }
-        if ((i < nbCols * (nbRows - 1)) && (i % nbCols != 0)) {
-            neighbors.add(i + nbCols - 1);
-        }
-        if ((i % nbCols != 0) && i >= nbCols) {
-            neighbors.add(i - nbCols - 1);
-        }
-        if (((i + 1) % nbCols != 0) && i >= nbCols) {
-            neighbors.add(i - nbCols + 1);
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        int nbCols = grid.getNbCols();
+        int nbRows = grid.getNbRows();
+        int k = grid.getRowMajorIndex(i);
+        int row = k / nbCols;
+        int col = k % nbCols;
+        int rowMin = row > 0 ? -1 : 0;
+        int rowMax = row < nbRows - 1 ? 1 : 0;
+        int colMin = col > 0 ? -1 : 0;
+        int colMax = col < nbCols - 1 ? 1 : 0;
+        int nb = 0;
+        for (int dy = rowMin; dy <= rowMax; dy++) {
+            for (int dx = colMin; dx <= colMax; dx++) {
+                if (dy != 0 || dx != 0) {
+                    buffer[nb++] = grid.getCellIndex(k + dy * nbCols + dx);
+                }
+            }
         }
-        return neighbors;
+        return nb;
     }
 
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return 8;
+    }
 }
@@ -23,34 +23,70 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.IImplicitNeighborhood;
 import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
+import java.util.function.IntConsumer;
+
 /**
  * The four-connected neighborhood in a partial regular square grid.
  */
-public class PartialFourConnected<T extends PartialRegularSquareGrid> implements INeighborhood<T> {
+public class PartialFourConnected<T extends PartialRegularSquareGrid> implements IImplicitNeighborhood<T> {
 
     public ISet getNeighbors(T grid, int partialIdx) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, partialIdx, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int partialIdx, IntConsumer action) {
         int idx = grid.getCompleteIndex(partialIdx);
         int nbCols = grid.getNbCols();
         int nbRows = grid.getNbRows();
-        ISet neighbors = SetFactory.makeBitSet(0);
-        if (idx % nbCols != 0 && !grid.getDiscardSet().contains(idx - 1)) {
-            neighbors.add(grid.getPartialIndex(idx - 1));
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        if (col > 0 && grid.isValid(idx - 1)) {
+            action.accept(grid.getPartialIndex(idx - 1));
         }
-        if ((idx + 1) % nbCols != 0 && !grid.getDiscardSet().contains(idx + 1)) {
-            neighbors.add(grid.getPartialIndex(idx + 1));
+        if (col < nbCols - 1 && grid.isValid(idx + 1)) {
+            action.accept(grid.getPartialIndex(idx + 1));
         }
-        if (idx >= nbCols && !grid.getDiscardSet().contains(idx - nbCols)) {
-            neighbors.add(grid.getPartialIndex(idx - nbCols));
+        if (row > 0 && grid.isValid(idx - nbCols)) {
+            action.accept(grid.getPartialIndex(idx - nbCols));
         }
-        if (idx < nbCols * (nbRows - 1) && !grid.getDiscardSet().contains(idx + nbCols)) {
-            neighbors.add(grid.getPartialIndex(idx + nbCols));
+        if (row < nbRows - 1 && grid.isValid(idx + nbCols)) {
+            action.accept(grid.getPartialIndex(idx + nbCols));
         }
-        return neighbors;
     }
 
+    @Override
+    public int fillNeighbors(T grid, int partialIdx, int[] buffer) {
+        int idx = grid.getCompleteIndex(partialIdx);
+        int nbCols = grid.getNbCols();
+        int nbRows = grid.getNbRows();
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        int k = 0;
+        if (col > 0 && grid.isValid(idx - 1)) {
+            buffer[k++] = grid.getPartialIndex(idx - 1);
+        }
+        if (col < nbCols - 1 && grid.isValid(idx + 1)) {
+            buffer[k++] = grid.getPartialIndex(idx + 1);
+        }
+        if (row > 0 && grid.isValid(idx - nbCols)) {
+            buffer[k++] = grid.getPartialIndex(idx - nbCols);
+        }
+        if (row < nbRows - 1 && grid.isValid(idx + nbCols)) {
+            buffer[k++] = grid.getPartialIndex(idx + nbCols);
+        }
+        return k;
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return 4;
+    }
 }
@@ -23,46 +23,70 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.IImplicitNeighborhood;
 import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
+import java.util.function.IntConsumer;
+
 /**
  * The height-connected neighborhood in a partial regular square grid.
  */
-public class PartialHeightConnected<T extends PartialRegularSquareGrid> implements INeighborhood<T> {
+public class PartialHeightConnected<T extends PartialRegularSquareGrid> implements IImplicitNeighborhood<T> {
 
     public ISet getNeighbors(T grid, int partialIdx) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, partialIdx, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int partialIdx, IntConsumer action) {
         int idx = grid.getCompleteIndex(partialIdx);
         int nbCols = grid.getNbCols();
         int nbRows = grid.getNbRows();
-        ISet neighbors = SetFactory.makeBitSet(0);
-        if (idx % nbCols != 0 && !grid.getDiscardSet().contains(idx - 1)) {
-            neighbors.add(grid.getPartialIndex(idx - 1));
-        }
-        if (idx >= nbCols && !grid.getDiscardSet().contains(idx - nbCols)) {
-            neighbors.add(grid.getPartialIndex(idx - nbCols));
-        }
-        if ((idx + 1) % nbCols != 0 && !grid.getDiscardSet().contains(idx + 1)) {
-            neighbors.add(grid.getPartialIndex(idx + 1));
-        }
-        if (idx < nbCols * (nbRows - 1) && !grid.getDiscardSet().contains(idx + nbCols)) {
-            neighbors.add(grid.getPartialIndex(idx + nbCols));
-        }
-        if ((idx < nbCols * (nbRows - 1)) && ((idx + 1) % nbCols != 0) && !grid.getDiscardSet().contains(idx + nbCols + 1)) {
-            neighbors.add(grid.getPartialIndex(idx + nbCols + 1));
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        int rowMin = row > 0 ? -1 : 0;
+        int rowMax = row < nbRows - 1 ? 1 : 0;
+        int colMin = col > 0 ? -1 : 0;
+        int colMax = col < nbCols - 1 ? 1 : 0;
+        for (int dy = rowMin; dy <= rowMax; dy++) {
+            for (int dx = colMin; dx <= colMax; dx++) {
+                int j = idx + dy * nbCols + dx;
+                if ((dy != 0 || dx != 0) && grid.isValid(j)) {
+                    action.accept(grid.getPartialIndex(j));
+                }
+            }
         }
-        if ((idx < nbCols * (nbRows - 1)) && (idx % nbCols != 0) && !grid.getDiscardSet().contains(idx + nbCols - 1)) {
-            neighbors.add(grid.getPartialIndex(idx + nbCols - 1));
-        }
-        if ((idx % nbCols != 0) && idx >= nbCols && !grid.getDiscardSet().contains(idx - nbCols - 1)) {
-            neighbors.add(grid.getPartialIndex(idx - nbCols - 1));
-        }
-        if (((idx + 1) % nbCols != 0) && idx >= nbCols && !grid.getDiscardSet().contains(idx - nbCols + 1)) {
-            neighbors.add(grid.getPartialIndex(idx - nbCols + 1));
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int partialIdx, int[] buffer) {
+        int idx = grid.getCompleteIndex(partialIdx);
+        int nbCols = grid.getNbCols();
+        int nbRows = grid.getNbRows();
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        int rowMin = row > 0 ? -1 : 0;
+        int rowMax = row < nbRows - 1 ? 1 : 0;
+        int colMin = col > 0 ? -1 : 0;
+        int colMax = col < nbCols - 1 ? 1 : 0;
+        int k = 0;
+        for (int dy = rowMin; dy <= rowMax; dy++) {
+            for (int dx = colMin; dx <= colMax; dx++) {
+                int j = idx + dy * nbCols + dx;
+                if ((dy != 0 || dx != 0) && grid.isValid(j)) {
+                    buffer[k++] = grid.getPartialIndex(j);
+                }
+            }
         }
-        return neighbors;
+        return k;
     }
 
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return 8;
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood.regulare.square;
+
+import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Neighborhood of all the cells within a given distance (radius, in cells) of a cell in a partial regular square
+ * grid, according to a metric. The stencil is applied on complete grid coordinates, clipped to the grid bounds, and
+ * discarded cells are skipped. Neighbors are given as partial indices.
+ */
+public class PartialStencilNeighborhood<T extends PartialRegularSquareGrid> extends StencilNeighborhood<T> {
+
+    /**
+     * @param radius The radius of the neighborhood (in cells), must be positive.
+     * @param metric The distance metric.
+     */
+    public PartialStencilNeighborhood(int radius, Metric metric) {
+        super(radius, metric);
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int partialIdx, IntConsumer action) {
+        int idx = grid.getCompleteIndex(partialIdx);
+        int nbCols = grid.getNbCols();
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        int rowMin = Math.max(-radius, -row);
+        int rowMax = Math.min(radius, grid.getNbRows() - 1 - row);
+        for (int dRow = rowMin; dRow <= rowMax; dRow++) {
+            int w = halfWidths[radius + dRow];
+            int colMin = Math.max(col - w, 0);
+            int colMax = Math.min(col + w, nbCols - 1);
+            int rowStart = idx + dRow * nbCols - col;
+            for (int c = colMin; c <= colMax; c++) {
+                int neigh = grid.getPartialIndex(rowStart + c);
+                if (neigh >= 0 && neigh != partialIdx) {
+                    action.accept(neigh);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int partialIdx, int[] buffer) {
+        int idx = grid.getCompleteIndex(partialIdx);
+        int nbCols = grid.getNbCols();
+        int row = idx / nbCols;
+        int col = idx % nbCols;
+        int rowMin = Math.max(-radius, -row);
+        int rowMax = Math.min(radius, grid.getNbRows() - 1 - row);
+        int k = 0;
+        for (int dRow = rowMin; dRow <= rowMax; dRow++) {
+            int w = halfWidths[radius + dRow];
+            int colMin = Math.max(col - w, 0);
+            int colMax = Math.min(col + w, nbCols - 1);
+            int rowStart = idx + dRow * nbCols - col;
+            for (int c = colMin; c <= colMax; c++) {
+                int neigh = grid.getPartialIndex(rowStart + c);
+                if (neigh >= 0 && neigh != partialIdx) {
+                    buffer[k++] = neigh;
+                }
+            }
+        }
+        return k;
+    }
+}
@@ -23,30 +23,16 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
-import chocoreserve.grid.neighborhood.Neighborhoods;
 import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
-import org.chocosolver.util.objects.setDataStructures.ISet;
-import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
 /**
- * The 2-wide four-connected neighborhood in a regular square grid.
+ * The 2-wide four-connected neighborhood in a partial regular square grid: the four-connected neighbors of the
+ * four-connected neighbors of a cell, excluding the cell itself, going only through non-discarded cells.
  */
-public class PartialTwoWideFourConnected<T extends PartialRegularSquareGrid> implements INeighborhood<T> {
+public class PartialTwoWideFourConnected<T extends PartialRegularSquareGrid> extends AbstractTwoWideNeighborhood<T> {
 
-    public ISet getNeighbors(T grid, int i) {
-        PartialFourConnected four = Neighborhoods.PARTIAL_FOUR_CONNECTED;
-        ISet neighbors = SetFactory.makeBitSet(0);
-        ISet fourneigh = four.getNeighbors(grid, i);
-        for (int neigh : fourneigh) {
-//            neighbors.add(neigh);
-            for (int nneigh : four.getNeighbors(grid, neigh)) {
-                if (nneigh != i) {
-                    neighbors.add(nneigh);
-                }
-            }
-        }
-        return neighbors;
+    public PartialTwoWideFourConnected() {
+        super(false, false, false);
     }
 
 }
@@ -23,28 +23,16 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
-import chocoreserve.grid.neighborhood.Neighborhoods;
 import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
-import org.chocosolver.util.objects.setDataStructures.ISet;
-import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
 /**
- * The 2-wide height-connected neighborhood in a regular square grid.
+ * The 2-wide height-connected neighborhood in a partial regular square grid: the height-connected neighbors of a
+ * cell and their own height-connected neighbors (including the cell itself), going only through non-discarded cells.
  */
-public class PartialTwoWideHeightConnected<T extends PartialRegularSquareGrid> implements INeighborhood<T> {
+public class PartialTwoWideHeightConnected<T extends PartialRegularSquareGrid> extends AbstractTwoWideNeighborhood<T> {
 
-    public ISet getNeighbors(T grid, int i) {
-        PartialHeightConnected height = Neighborhoods.PARTIAL_HEIGHT_CONNECTED;
-        ISet neighbors = SetFactory.makeBitSet(0);
-        ISet heightneigh = height.getNeighbors(grid, i);
-        for (int neigh : heightneigh) {
-            neighbors.add(neigh);
-            for (int nneigh : height.getNeighbors(grid, neigh)) {
-                neighbors.add(nneigh);
-            }
-        }
-        return neighbors;
+    public PartialTwoWideHeightConnected() {
+        super(true, true, true);
     }
 
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood.regulare.square;
+
+import chocoreserve.grid.neighborhood.IImplicitNeighborhood;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Neighborhood of all the cells within a given distance (radius, in cells) of a cell in a regular square grid,
+ * according to a metric. The stencil of relative offsets is computed once, as the half-width of each row of the
+ * stencil, and is clipped to the grid bounds when applied. The cell itself is not one of its neighbors.
+ */
+public class StencilNeighborhood<T extends RegularSquareGrid> implements IImplicitNeighborhood<T> {
+
+    /**
+     * Distance metrics supported by the stencil.
+     */
+    public enum Metric {
+        CHEBYSHEV,
+        MANHATTAN,
+        EUCLIDEAN;
+
+        /**
+         * @param radius The radius of the stencil.
+         * @param dRow   A row offset, between -radius and radius.
+         * @return The largest column offset dCol such that (dRow, dCol) is within the radius.
+         */
+        public int halfWidth(int radius, int dRow) {
+            int absRow = Math.abs(dRow);
+            switch (this) {
+                case CHEBYSHEV:
+                    return radius;
+                case MANHATTAN:
+                    return radius - absRow;
+                default:
+                    int w = (int) Math.sqrt(radius * radius - absRow * absRow);
+                    while (w * w + absRow * absRow > radius * radius) {
+                        w--;
+                    }
+                    while ((w + 1) * (w + 1) + absRow * absRow <= radius * radius) {
+                        w++;
+                    }
+                    return w;
+            }
+        }
+    }
+
+    protected final int radius;
+    protected final Metric metric;
+
+    /**
+     * Half-width of each row of the stencil: halfWidths[radius + dRow] for dRow in [-radius, radius].
+     */
+    protected final int[] halfWidths;
+
+    protected final int maxNbNeighbors;
+
+    /**
+     * @param radius The radius of the neighborhood (in cells), must be positive.
+     * @param metric The distance metric.
+     */
+    public StencilNeighborhood(int radius, Metric metric) {
+        assert radius > 0;
+        this.radius = radius;
+        this.metric = metric;
+        this.halfWidths = new int[2 * radius + 1];
+        int nb = 0;
+        for (int dRow = -radius; dRow <= radius; dRow++) {
+            halfWidths[radius + dRow] = metric.halfWidth(radius, dRow);
+            nb += 2 * halfWidths[radius + dRow] + 1;
+        }
+        this.maxNbNeighbors = nb - 1;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    @Override
+    public ISet getNeighbors(T grid, int i) {
+        ISet neighbors = SetFactory.makeBitSet(0);
+        forEachNeighbor(grid, i, neighbors::add);
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(T grid, int i, IntConsumer action) {
+        int nbCols = grid.getNbCols();
+        int rowMajorIdx = grid.getRowMajorIndex(i);
+        int row = rowMajorIdx / nbCols;
+        int col = rowMajorIdx % nbCols;
+        int rowMin = Math.max(-radius, -row);
+        int rowMax = Math.min(radius, grid.getNbRows() - 1 - row);
+        for (int dRow = rowMin; dRow <= rowMax; dRow++) {
+            int w = halfWidths[radius + dRow];
+            int colMin = Math.max(col - w, 0);
+            int colMax = Math.min(col + w, nbCols - 1);
+            int rowStart = rowMajorIdx + dRow * nbCols - col;
+            for (int c = colMin; c <= colMax; c++) {
+                if (dRow != 0 || c != col) {
+                    action.accept(grid.getCellIndex(rowStart + c));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int fillNeighbors(T grid, int i, int[] buffer) {
+        int nbCols = grid.getNbCols();
+        int rowMajorIdx = grid.getRowMajorIndex(i);
+        int row = rowMajorIdx / nbCols;
+        int col = rowMajorIdx % nbCols;
+        int rowMin = Math.max(-radius, -row);
+        int rowMax = Math.min(radius, grid.getNbRows() - 1 - row);
+        int k = 0;
+        for (int dRow = rowMin; dRow <= rowMax; dRow++) {
+            int w = halfWidths[radius + dRow];
+            int colMin = Math.max(col - w, 0);
+            int colMax = Math.min(col + w, nbCols - 1);
+            int rowStart = rowMajorIdx + dRow * nbCols - col;
+            for (int c = colMin; c <= colMax; c++) {
+                if (dRow != 0 || c != col) {
+                    buffer[k++] = grid.getCellIndex(rowStart + c);
+                }
+            }
+        }
+        return k;
+    }
+
+    @Override
+    public int getMaxNbNeighbors(T grid) {
+        return maxNbNeighbors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        StencilNeighborhood other = (StencilNeighborhood) o;
+        return radius == other.radius && metric == other.metric;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * getClass().hashCode() + radius) + metric.hashCode();
+    }
+}
@@ -23,28 +23,16 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
-import chocoreserve.grid.neighborhood.Neighborhoods;
 import chocoreserve.grid.regular.square.RegularSquareGrid;
-import org.chocosolver.util.objects.setDataStructures.ISet;
-import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
 /**
- * The 2-wide four-connected neighborhood in a regular square grid.
+ * The 2-wide four-connected neighborhood in a regular square grid: the four-connected neighbors of a cell and
+ * their own four-connected neighbors (including the cell itself).
  */
-public class TwoWideFourConnected<T extends RegularSquareGrid> implements INeighborhood<T> {
+public class TwoWideFourConnected<T extends RegularSquareGrid> extends AbstractTwoWideNeighborhood<T> {
 
-    public ISet getNeighbors(T grid, int i) {
-        FourConnected four = Neighborhoods.FOUR_CONNECTED;
-        ISet neighbors = SetFactory.makeBitSet(0);
-        ISet heightneigh = four.getNeighbors(grid, i);
-        for (int neigh : heightneigh) {
-            neighbors.add(neigh);
-            for (int nneigh : four.getNeighbors(grid, neigh)) {
-                neighbors.add(nneigh);
-            }
-        }
-        return neighbors;
+    public TwoWideFourConnected() {
+        super(false, true, true);
     }
 
 }
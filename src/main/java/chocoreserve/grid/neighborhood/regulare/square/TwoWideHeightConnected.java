@@ -23,28 +23,16 @@
 
 package chocoreserve.grid.neighborhood.regulare.square;
 
-import chocoreserve.grid.neighborhood.INeighborhood;
-import chocoreserve.grid.neighborhood.Neighborhoods;
 import chocoreserve.grid.regular.square.RegularSquareGrid;
-import org.chocosolver.util.objects.setDataStructures.ISet;
-import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
 /**
- * The 2-wide height-connected neighborhood in a regular square grid.
+ * The 2-wide height-connected neighborhood in a regular square grid: the height-connected neighbors of a cell and
+ * their own height-connected neighbors (including the cell itself).
  */
-public class TwoWideHeightConnected<T extends RegularSquareGrid> implements INeighborhood<T> {
+public class TwoWideHeightConnected<T extends RegularSquareGrid> extends AbstractTwoWideNeighborhood<T> {
 
-    public ISet getNeighbors(T grid, int i) {
-        HeightConnected height = Neighborhoods.HEIGHT_CONNECTED;
-        ISet neighbors = SetFactory.makeBitSet(0);
-        ISet heightneigh = height.getNeighbors(grid, i);
-        for (int neigh : heightneigh) {
-            neighbors.add(neigh);
-            for (int nneigh : height.getNeighbors(grid, neigh)) {
-                neighbors.add(nneigh);
-            }
-        }
-        return neighbors;
+    public TwoWideHeightConnected() {
+        super(true, true, true);
     }
 
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import java.util.Arrays;
+
+/**
+ * Order in which the cells of a regular square grid are indexed. Space-filling curves (Morton / Z-order and
+ * Hilbert) keep cells that are close in the grid close in the index space, which improves the cache locality of
+ * index-based data structures (bitsets, stored vectors) when exploring neighborhoods.
+ *
+ * Curve orders are made dense by ranking the cells of the grid according to their position on the curve that
+ * covers the smallest enclosing power-of-two square.
+ */
+public enum CellOrdering {
+
+    ROW_MAJOR,
+    MORTON,
+    HILBERT;
+
+    /**
+     * @param side The side of the enclosing square, must be a power of two lower or equal to 2^16.
+     * @param row  The row.
+     * @param col  The column.
+     * @return The position of (row, col) on the curve.
+     */
+    public long code(int side, int row, int col) {
+        switch (this) {
+            case ROW_MAJOR:
+                return (long) side * row + col;
+            case MORTON:
+                return spread(row) << 1 | spread(col);
+            default:
+                long d = 0;
+                int x = col;
+                int y = row;
+                for (int s = side / 2; s > 0; s /= 2) {
+                    int rx = (x & s) > 0 ? 1 : 0;
+                    int ry = (y & s) > 0 ? 1 : 0;
+                    d += (long) s * s * ((3 * rx) ^ ry);
+                    if (ry == 0) {
+                        if (rx == 1) {
+                            x = side - 1 - x;
+                            y = side - 1 - y;
+                        }
+                        int t = x;
+                        x = y;
+                        y = t;
+                    }
+                }
+                return d;
+        }
+    }
+
+    /**
+     * @param nbRows The number of rows.
+     * @param nbCols The number of columns.
+     * @return The row-major indices of the cells of a nbRows x nbCols grid, sorted according to this ordering.
+     */
+    public int[] order(int nbRows, int nbCols) {
+        int n = nbRows * nbCols;
+        int[] order = new int[n];
+        if (this == ROW_MAJOR) {
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+        int side = Integer.highestOneBit(Math.max(Math.max(nbRows, nbCols) - 1, 1)) << 1;
+        assert side <= 1 << 16;
+        // Curve codes are lower than 2^32 and row-major indices lower than 2^31: sort both packed in a long.
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = code(side, i / nbCols, i % nbCols) << 31 | i;
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return order;
+    }
+
+    private static long spread(int v) {
+        long x = v & 0xFFFFL;
+        x = (x | (x << 8)) & 0x00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0FL;
+        x = (x | (x << 2)) & 0x33333333L;
+        x = (x | (x << 1)) & 0x55555555L;
+        return x;
+    }
+}
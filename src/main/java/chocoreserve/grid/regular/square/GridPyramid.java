@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import java.util.Arrays;
+
+/**
+ * Multi-resolution pyramid over a regular square grid: level 0 is the base grid, and each cell of level k + 1
+ * aggregates a block of 2x2 cells of level k (i.e. a block of 2^k x 2^k base cells). Coarse grids have the same
+ * cell ordering as the base grid, their last row and column blocks are truncated when the base dimensions are not
+ * multiple of the block size.
+ *
+ * If the base grid is a partial grid, coarse cells covering only discarded cells have no children.
+ */
+public class GridPyramid {
+
+    /**
+     * Aggregation functions for cell data.
+     */
+    public enum Aggregation {
+        SUM,
+        MAX,
+        ANY
+    }
+
+    private final RegularSquareGrid[] levels;
+
+    /**
+     * @param base     The base grid.
+     * @param nbLevels The number of levels, including the base grid.
+     */
+    public GridPyramid(RegularSquareGrid base, int nbLevels) {
+        assert nbLevels > 0;
+        this.levels = new RegularSquareGrid[nbLevels];
+        levels[0] = base;
+        for (int k = 1; k < nbLevels; k++) {
+            levels[k] = new RegularSquareGrid(
+                    (levels[k - 1].getNbRows() + 1) / 2,
+                    (levels[k - 1].getNbCols() + 1) / 2,
+                    base.getOrdering()
+            );
+        }
+    }
+
+    /**
+     * @return The number of levels, including the base grid.
+     */
+    public int getNbLevels() {
+        return levels.length;
+    }
+
+    /**
+     * @param level A level, 0 being the base grid.
+     * @return The grid of the level.
+     */
+    public RegularSquareGrid getGrid(int level) {
+        return levels[level];
+    }
+
+    /**
+     * @param level A level.
+     * @return The side of the block of base cells aggregated by a cell of the level.
+     */
+    public int getBlockSize(int level) {
+        return 1 << level;
+    }
+
+    /**
+     * @param level    A level.
+     * @param baseCell A cell of the base grid.
+     * @return The cell of the level containing baseCell.
+     */
+    public int getCoarseCell(int level, int baseCell) {
+        RegularSquareGrid base = levels[0];
+        int rowMajorIdx = base.getRowMajorIndex(baseCell);
+        int row = (rowMajorIdx / base.getNbCols()) >> level;
+        int col = (rowMajorIdx % base.getNbCols()) >> level;
+        return levels[level].getCellIndex(row * levels[level].getNbCols() + col);
+    }
+
+    /**
+     * @param level A level, lower than getNbLevels() - 1.
+     * @param cell  A cell of the level.
+     * @return The cell of level + 1 containing cell.
+     */
+    public int getParent(int level, int cell) {
+        int[] coords = levels[level].getCoordinatesFromIndex(cell);
+        return levels[level + 1].getIndexFromCoordinates(coords[0] / 2, coords[1] / 2);
+    }
+
+    /**
+     * @param level A level, greater than 0.
+     * @param cell  A cell of the level.
+     * @return The cells of level - 1 contained in cell.
+     */
+    public int[] getChildren(int level, int cell) {
+        RegularSquareGrid fine = levels[level - 1];
+        int[] coords = levels[level].getCoordinatesFromIndex(cell);
+        int[] children = new int[4];
+        int nb = 0;
+        for (int row = 2 * coords[0]; row < Math.min(2 * coords[0] + 2, fine.getNbRows()); row++) {
+            for (int col = 2 * coords[1]; col < Math.min(2 * coords[1] + 2, fine.getNbCols()); col++) {
+                int child = fine.getIndexFromCoordinates(row, col);
+                if (child >= 0) {
+                    children[nb++] = child;
+                }
+            }
+        }
+        return nb == 4 ? children : Arrays.copyOf(children, nb);
+    }
+
+    /**
+     * @param data        Data of the base grid cells.
+     * @param level       A level.
+     * @param aggregation The aggregation function. ANY is 1 if at least one aggregated value is different from 0.
+     * @return The data aggregated for the cells of the level. Cells covering no base cell get 0.
+     */
+    public double[] aggregate(double[] data, int level, Aggregation aggregation) {
+        double[] aggregated = new double[levels[level].getNbCells()];
+        if (aggregation == Aggregation.MAX) {
+            Arrays.fill(aggregated, Double.NEGATIVE_INFINITY);
+        }
+        for (int i = 0; i < data.length; i++) {
+            int c = getCoarseCell(level, i);
+            switch (aggregation) {
+                case SUM:
+                    aggregated[c] += data[i];
+                    break;
+                case MAX:
+                    aggregated[c] = Math.max(aggregated[c], data[i]);
+                    break;
+                default:
+                    if (data[i] != 0) {
+                        aggregated[c] = 1;
+                    }
+            }
+        }
+        if (aggregation == Aggregation.MAX) {
+            for (int c = 0; c < aggregated.length; c++) {
+                if (aggregated[c] == Double.NEGATIVE_INFINITY) {
+                    aggregated[c] = 0;
+                }
+            }
+        }
+        return aggregated;
+    }
+
+    /**
+     * @param data        Data of the base grid cells.
+     * @param level       A level.
+     * @param aggregation The aggregation function. ANY is 1 if at least one aggregated value is different from 0.
+     * @return The data aggregated for the cells of the level. Cells covering no base cell get 0.
+     */
+    public int[] aggregate(int[] data, int level, Aggregation aggregation) {
+        int[] aggregated = new int[levels[level].getNbCells()];
+        if (aggregation == Aggregation.MAX) {
+            Arrays.fill(aggregated, Integer.MIN_VALUE);
+        }
+        for (int i = 0; i < data.length; i++) {
+            int c = getCoarseCell(level, i);
+            switch (aggregation) {
+                case SUM:
+                    aggregated[c] += data[i];
+                    break;
+                case MAX:
+                    aggregated[c] = Math.max(aggregated[c], data[i]);
+                    break;
+                default:
+                    if (data[i] != 0) {
+                        aggregated[c] = 1;
+                    }
+            }
+        }
+        if (aggregation == Aggregation.MAX) {
+            for (int c = 0; c < aggregated.length; c++) {
+                if (aggregated[c] == Integer.MIN_VALUE) {
+                    aggregated[c] = 0;
+                }
+            }
+        }
+        return aggregated;
+    }
+}
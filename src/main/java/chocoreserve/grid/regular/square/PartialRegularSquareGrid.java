@@ -23,40 +23,145 @@
 
 package chocoreserve.grid.regular.square;
 
+import chocoreserve.raster.RasterReader;
+import chocoreserve.raster.RasterWindow;
+
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.IntStream;
 
 /**
  * Partial Regular square grid : subset of a nbRows x nbCols grid.
+ * Valid cells are stored in a bitset over complete grid indices, with the mapping between complete and partial
+ * indices stored in primitive arrays (-1 in completeToPartial for discarded cells).
  */
 public class PartialRegularSquareGrid extends RegularSquareGrid {
 
-    protected Set<Integer> discardSet;
+    protected long[] validity;
+    protected int nbCells;
     protected int[] partialToComplete;
     protected int[] completeToPartial;
 
+    /**
+     * @param nbRows    The number of rows of the complete grid.
+     * @param nbCols    The number of columns of the complete grid.
+     * @param toDiscard The complete indices of the cells to discard.
+     */
     public PartialRegularSquareGrid(int nbRows, int nbCols, int[] toDiscard) {
+        this(nbRows, nbCols, discardMask(nbRows * nbCols, toDiscard));
+    }
+
+    /**
+     * @param nbRows    The number of rows of the complete grid.
+     * @param nbCols    The number of columns of the complete grid.
+     * @param toDiscard The complete indices of the cells to discard.
+     * @param ordering  The order of the partial indices.
+     */
+    public PartialRegularSquareGrid(int nbRows, int nbCols, int[] toDiscard, CellOrdering ordering) {
+        this(nbRows, nbCols, discardMask(nbRows * nbCols, toDiscard), ordering);
+    }
+
+    /**
+     * @param nbRows     The number of rows of the complete grid.
+     * @param nbCols     The number of columns of the complete grid.
+     * @param noDataMask For each cell of the complete grid (row-major order), true if the cell must be discarded.
+     */
+    public PartialRegularSquareGrid(int nbRows, int nbCols, boolean[] noDataMask) {
+        this(nbRows, nbCols, noDataMask, CellOrdering.ROW_MAJOR);
+    }
+
+    /**
+     * Complete indices are always row-major, partial indices are assigned to the valid cells following the
+     * given ordering.
+     *
+     * @param nbRows     The number of rows of the complete grid.
+     * @param nbCols     The number of columns of the complete grid.
+     * @param noDataMask For each cell of the complete grid (row-major order), true if the cell must be discarded.
+     * @param ordering   The order of the partial indices.
+     */
+    public PartialRegularSquareGrid(int nbRows, int nbCols, boolean[] noDataMask, CellOrdering ordering) {
         super(nbRows, nbCols);
-        this.discardSet = new HashSet<>();
-        IntStream.of(toDiscard).forEach(i -> discardSet.add(i));
-        this.partialToComplete = new int[getNbCells()];
-        this.completeToPartial = new int[nbRows * nbCols];
+        assert noDataMask.length == nbRows * nbCols;
+        this.ordering = ordering;
+        int n = nbRows * nbCols;
+        this.validity = new long[(n + 63) >>> 6];
+        this.completeToPartial = new int[n];
+        int[] order = ordering.order(nbRows, nbCols);
         int j = 0;
-        for (int i = 0; i < nbRows * nbCols; i++) {
-            if (!discardSet.contains(i)) {
-                partialToComplete[j] = i;
+        for (int i : order) {
+            if (!noDataMask[i]) {
+                validity[i >>> 6] |= 1L << i;
                 completeToPartial[i] = j;
                 j++;
             } else {
                 completeToPartial[i] = -1;
             }
         }
+        this.nbCells = j;
+        this.partialToComplete = new int[nbCells];
+        for (int i = 0; i < n; i++) {
+            if (completeToPartial[i] >= 0) {
+                partialToComplete[completeToPartial[i]] = i;
+            }
+        }
+    }
+
+    /**
+     * Builds a partial grid from a raster, discarding the cells whose value is the raster nodata value.
+     *
+     * @param raster      The raster.
+     * @param noDataValue The nodata value of the raster (can be NaN).
+     */
+    public PartialRegularSquareGrid(RasterReader raster, double noDataValue) throws IOException {
+        this(raster.getHeight(), raster.getWidth(), noDataMask(raster.readAsDoubleArray(), noDataValue));
+    }
+
+    private static boolean[] discardMask(int n, int[] toDiscard) {
+        boolean[] mask = new boolean[n];
+        for (int i : toDiscard) {
+            mask[i] = true;
+        }
+        return mask;
+    }
+
+    private static boolean[] noDataMask(double[] data, double noDataValue) {
+        boolean[] mask = new boolean[data.length];
+        boolean nan = Double.isNaN(noDataValue);
+        for (int i = 0; i < data.length; i++) {
+            mask[i] = nan ? Double.isNaN(data[i]) : data[i] == noDataValue;
+        }
+        return mask;
+    }
+
+    /**
+     * @return The window of a raster covered by the complete grid, only storing the pixels of valid cells, at their
+     * partial index.
+     */
+    @Override
+    public RasterWindow getRasterWindow(int x, int y) {
+        return new RasterWindow(x, y, nbCols, nbRows, completeToPartial, nbCells);
     }
 
     @Override
     public int getNbCells() {
-        return nbRows * nbCols - discardSet.size();
+        return nbCells;
+    }
+
+    /**
+     * @param row The row.
+     * @param col The column.
+     * @return True if the cell at (row, col) is not discarded.
+     */
+    public boolean isValid(int row, int col) {
+        return isValid(nbCols * row + col);
+    }
+
+    /**
+     * @param completeIdx The complete grid index.
+     * @return True if the cell is not discarded.
+     */
+    public boolean isValid(int completeIdx) {
+        return (validity[completeIdx >>> 6] & (1L << completeIdx)) != 0;
     }
 
     /**
@@ -99,7 +204,29 @@ public class PartialRegularSquareGrid extends RegularSquareGrid {
         return completeToPartial[completeIdx];
     }
 
+    /**
+     * @return The partial index of the cell, -1 if it is discarded.
+     */
+    @Override
+    public int getCellIndex(int rowMajorIdx) {
+        return completeToPartial[rowMajorIdx];
+    }
+
+    @Override
+    public int getRowMajorIndex(int index) {
+        return partialToComplete[index];
+    }
+
+    /**
+     * @return The complete indices of the discarded cells, as a newly built set. Prefer isValid for lookups.
+     */
     public Set<Integer> getDiscardSet() {
+        Set<Integer> discardSet = new HashSet<>();
+        for (int i = 0; i < nbRows * nbCols; i++) {
+            if (!isValid(i)) {
+                discardSet.add(i);
+            }
+        }
         return discardSet;
     }
 
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.CoordinateStore;
+
+/**
+ * Coordinate store of a regular square grid: the coordinates of a cell are its column (x) and row (y), computed on
+ * the fly from its row-major index. Works for partial grids and for any cell ordering.
+ */
+public class RegularSquareCoordinateStore extends CoordinateStore {
+
+    private final RegularSquareGrid grid;
+    private final int nbCols;
+
+    public RegularSquareCoordinateStore(RegularSquareGrid grid) {
+        this.grid = grid;
+        this.nbCols = grid.getNbCols();
+    }
+
+    @Override
+    public int getNbSites() {
+        return grid.getNbCells();
+    }
+
+    @Override
+    public double getX(int site) {
+        return grid.getRowMajorIndex(site) % nbCols;
+    }
+
+    @Override
+    public double getY(int site) {
+        return grid.getRowMajorIndex(site) / nbCols;
+    }
+}
@@ -23,20 +23,42 @@
 
 package chocoreserve.grid.regular.square;
 
+import chocoreserve.grid.CoordinateStore;
 import chocoreserve.grid.Grid;
+import chocoreserve.raster.RasterWindow;
 
 /**
- * Regular square grid.
+ * Regular square grid. Cells are indexed in row-major order by default, a space-filling curve order can be used
+ * instead (see CellOrdering). In any case, getCellIndex and getRowMajorIndex translate between cell indices and
+ * row-major indices (e.g. raster data indices).
  */
 public class RegularSquareGrid extends Grid {
 
     protected int nbRows, nbCols;
+    protected CellOrdering ordering;
+
+    /**
+     * Permutations between cell indices and row-major indices, null if the ordering is row-major.
+     */
+    protected int[] cellToRowMajor, rowMajorToCell;
 
     public RegularSquareGrid(int nbRows, int nbCols) {
+        this(nbRows, nbCols, CellOrdering.ROW_MAJOR);
+    }
+
+    public RegularSquareGrid(int nbRows, int nbCols, CellOrdering ordering) {
         assert nbCols > 0;
         assert nbRows > 0;
         this.nbRows = nbRows;
         this.nbCols = nbCols;
+        this.ordering = ordering;
+        if (ordering != CellOrdering.ROW_MAJOR) {
+            this.cellToRowMajor = ordering.order(nbRows, nbCols);
+            this.rowMajorToCell = new int[cellToRowMajor.length];
+            for (int i = 0; i < cellToRowMajor.length; i++) {
+                rowMajorToCell[cellToRowMajor[i]] = i;
+            }
+        }
     }
 
     @Override
@@ -54,7 +76,7 @@ public class RegularSquareGrid extends Grid {
         assert row < nbRows;
         assert col >= 0;
         assert col < nbCols;
-        return getNbCols() * row + col;
+        return getCellIndex(getNbCols() * row + col);
     }
 
     /**
@@ -62,11 +84,59 @@ public class RegularSquareGrid extends Grid {
      * @return The grid coordinates [row, col] from its flattened index.
      */
     public int[] getCoordinatesFromIndex(int index) {
-        int row = Math.floorDiv(index, getNbCols());
-        int col = index % getNbCols();
+        int rowMajorIdx = getRowMajorIndex(index);
+        int row = Math.floorDiv(rowMajorIdx, getNbCols());
+        int col = rowMajorIdx % getNbCols();
         return new int[]{row, col};
     }
 
+    /**
+     * @param rowMajorIdx The row-major index of a cell.
+     * @return The index of the cell in the grid.
+     */
+    public int getCellIndex(int rowMajorIdx) {
+        return rowMajorToCell == null ? rowMajorIdx : rowMajorToCell[rowMajorIdx];
+    }
+
+    /**
+     * @param index The index of a cell in the grid.
+     * @return The row-major index of the cell.
+     */
+    public int getRowMajorIndex(int index) {
+        return cellToRowMajor == null ? index : cellToRowMajor[index];
+    }
+
+    /**
+     * @param rowMajorData Data given for each cell of the grid in row-major order (e.g. read from a raster).
+     * @return The data reordered according to the cell indices of the grid.
+     */
+    public double[] toCellOrder(double[] rowMajorData) {
+        double[] data = new double[getNbCells()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = rowMajorData[getRowMajorIndex(i)];
+        }
+        return data;
+    }
+
+    /**
+     * @param rowMajorData Data given for each cell of the grid in row-major order (e.g. read from a raster).
+     * @return The data reordered according to the cell indices of the grid.
+     */
+    public int[] toCellOrder(int[] rowMajorData) {
+        int[] data = new int[getNbCells()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = rowMajorData[getRowMajorIndex(i)];
+        }
+        return data;
+    }
+
+    /**
+     * @return The cell ordering of the grid.
+     */
+    public CellOrdering getOrdering() {
+        return ordering;
+    }
+
     /**
      * @return The number of rows.
      */
@@ -81,6 +151,27 @@ public class RegularSquareGrid extends Grid {
         return nbCols;
     }
 
+    /**
+     * @param x The column of the raster pixel corresponding to the first column of the grid.
+     * @param y The row of the raster pixel corresponding to the first row of the grid.
+     * @return The window of a raster covered by the grid, storing each pixel at the index of its cell.
+     */
+    public RasterWindow getRasterWindow(int x, int y) {
+        return new RasterWindow(x, y, nbCols, nbRows, rowMajorToCell, getNbCells());
+    }
+
+    /**
+     * @return The window of a raster aligned with the grid, storing each pixel at the index of its cell.
+     */
+    public RasterWindow getRasterWindow() {
+        return getRasterWindow(0, 0);
+    }
+
+    @Override
+    protected CoordinateStore createCoordinateStore() {
+        return new RegularSquareCoordinateStore(this);
+    }
+
     /**
      * @return The cartesian coordinates of the pixels of the grid.
      */
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Per-cell attribute of a tiled grid, stored in a memory-mapped file. Values are laid out tile by tile (each tile
+ * being stored in row-major order), the file is mapped in segments made of whole tiles. Tiles on the borders of the
+ * grid are padded to the full tile size.
+ *
+ * The file starts with a header describing the layout (grid dimensions, tile size and type). It is kept on close,
+ * opening a layer on an existing file retrieves its values if its header matches the grid and type of the layer, and
+ * fails otherwise.
+ */
+public class TiledLayer implements Closeable {
+
+    /**
+     * Maximum size in bytes of a mapped segment.
+     */
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * Header: magic number, version, nbRows, nbCols, tileSize, type ordinal (as ints), padded to HEADER_SIZE bytes.
+     */
+    private static final int MAGIC = 0x544C4159;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Type of the values of a layer.
+     */
+    public enum Type {
+        BYTE(1),
+        INT(4),
+        DOUBLE(8);
+
+        private final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+
+        /**
+         * @return The size of a value, in bytes.
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    private final TiledRegularSquareGrid grid;
+    private final String name;
+    private final Type type;
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer[] segments;
+    private final int tileArea;
+    private final int tilesPerSegment;
+
+    /**
+     * @param grid The grid.
+     * @param name The name of the layer.
+     * @param type The type of the values.
+     * @param file The file backing the layer.
+     */
+    TiledLayer(TiledRegularSquareGrid grid, String name, Type type, File file) throws IOException {
+        this.grid = grid;
+        this.name = name;
+        this.type = type;
+        this.file = file;
+        this.tileArea = grid.getTileSize() * grid.getTileSize();
+        long tileBytes = (long) tileArea * type.getSize();
+        assert tileBytes <= MAX_SEGMENT_SIZE;
+        this.tilesPerSegment = (int) (MAX_SEGMENT_SIZE / tileBytes);
+        int nbTiles = grid.getNbTiles();
+        this.segments = new MappedByteBuffer[(nbTiles + tilesPerSegment - 1) / tilesPerSegment];
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            checkOrWriteHeader(HEADER_SIZE + nbTiles * tileBytes);
+            FileChannel channel = raf.getChannel();
+            for (int s = 0; s < segments.length; s++) {
+                int nb = Math.min(tilesPerSegment, nbTiles - s * tilesPerSegment);
+                long offset = HEADER_SIZE + (long) s * tilesPerSegment * tileBytes;
+                segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, offset, nb * tileBytes);
+            }
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private int[] header() {
+        return new int[]{MAGIC, VERSION, grid.getNbRows(), grid.getNbCols(), grid.getTileSize(), type.ordinal()};
+    }
+
+    /**
+     * Writes the header of a new (empty) file, or checks the header and the length of an existing one.
+     *
+     * @param length The expected length of the file, in bytes.
+     */
+    private void checkOrWriteHeader(long length) throws IOException {
+        int[] expected = header();
+        if (raf.length() == 0) {
+            raf.seek(0);
+            for (int v : expected) {
+                raf.writeInt(v);
+            }
+            raf.setLength(length);
+            return;
+        }
+        if (raf.length() < HEADER_SIZE) {
+            throw new IOException("The layer file " + file + " is not a valid layer file");
+        }
+        raf.seek(0);
+        int[] actual = new int[expected.length];
+        for (int k = 0; k < actual.length; k++) {
+            actual[k] = raf.readInt();
+        }
+        if (actual[0] != MAGIC || actual[1] != VERSION) {
+            throw new IOException("The layer file " + file + " is not a valid layer file");
+        }
+        if (actual[2] != expected[2] || actual[3] != expected[3] || actual[4] != expected[4]) {
+            throw new IOException("The layer file " + file + " was created for a " + actual[2] + "x" + actual[3]
+                    + " grid with tiles of size " + actual[4] + ", not for a " + expected[2] + "x" + expected[3]
+                    + " grid with tiles of size " + expected[4]);
+        }
+        if (actual[5] != expected[5]) {
+            String actualType = actual[5] >= 0 && actual[5] < Type.values().length ?
+                    Type.values()[actual[5]].toString() : String.valueOf(actual[5]);
+            throw new IOException("The layer file " + file + " stores " + actualType + " values, not " + type);
+        }
+        if (raf.length() != length) {
+            throw new IOException("The layer file " + file + " is truncated or corrupted (" + raf.length()
+                    + " bytes instead of " + length + ")");
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private ByteBuffer segment(int tile) {
+        return segments[tile / tilesPerSegment];
+    }
+
+    private int position(int tile, int indexInTile) {
+        return ((tile % tilesPerSegment) * tileArea + indexInTile) * type.getSize();
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The value of the cell.
+     */
+    public double getDouble(int cell) {
+        assert type == Type.DOUBLE;
+        int tile = grid.getTile(cell);
+        return segment(tile).getDouble(position(tile, grid.getIndexInTile(cell)));
+    }
+
+    /**
+     * @param cell  The index of a cell.
+     * @param value The value of the cell.
+     */
+    public void setDouble(int cell, double value) {
+        assert type == Type.DOUBLE;
+        int tile = grid.getTile(cell);
+        segment(tile).putDouble(position(tile, grid.getIndexInTile(cell)), value);
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The value of the cell.
+     */
+    public int getInt(int cell) {
+        assert type == Type.INT;
+        int tile = grid.getTile(cell);
+        return segment(tile).getInt(position(tile, grid.getIndexInTile(cell)));
+    }
+
+    /**
+     * @param cell  The index of a cell.
+     * @param value The value of the cell.
+     */
+    public void setInt(int cell, int value) {
+        assert type == Type.INT;
+        int tile = grid.getTile(cell);
+        segment(tile).putInt(position(tile, grid.getIndexInTile(cell)), value);
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The value of the cell.
+     */
+    public byte getByte(int cell) {
+        assert type == Type.BYTE;
+        int tile = grid.getTile(cell);
+        return segment(tile).get(position(tile, grid.getIndexInTile(cell)));
+    }
+
+    /**
+     * @param cell  The index of a cell.
+     * @param value The value of the cell.
+     */
+    public void setByte(int cell, byte value) {
+        assert type == Type.BYTE;
+        int tile = grid.getTile(cell);
+        segment(tile).put(position(tile, grid.getIndexInTile(cell)), value);
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The value of the cell, as a double whatever the type of the layer.
+     */
+    public double getValue(int cell) {
+        switch (type) {
+            case BYTE:
+                return getByte(cell);
+            case INT:
+                return getInt(cell);
+            default:
+                return getDouble(cell);
+        }
+    }
+
+    /**
+     * Reads the values of a tile of a DOUBLE layer.
+     *
+     * @param tile   The index of the tile.
+     * @param buffer The buffer to fill, of size at least tileSize^2. Values are in row-major order within the tile,
+     *               padding values of border tiles are included.
+     */
+    public void readTile(int tile, double[] buffer) {
+        assert type == Type.DOUBLE;
+        ByteBuffer b = segment(tile).duplicate();
+        b.position(position(tile, 0));
+        b.asDoubleBuffer().get(buffer, 0, tileArea);
+    }
+
+    /**
+     * Reads the values of a tile of an INT layer.
+     *
+     * @param tile   The index of the tile.
+     * @param buffer The buffer to fill, of size at least tileSize^2. Values are in row-major order within the tile,
+     *               padding values of border tiles are included.
+     */
+    public void readTile(int tile, int[] buffer) {
+        assert type == Type.INT;
+        ByteBuffer b = segment(tile).duplicate();
+        b.position(position(tile, 0));
+        b.asIntBuffer().get(buffer, 0, tileArea);
+    }
+
+    /**
+     * @param data The value of every cell of the grid, indexed by cell.
+     */
+    public void write(double[] data) {
+        assert data.length == grid.getNbCells();
+        for (int i = 0; i < data.length; i++) {
+            switch (type) {
+                case BYTE:
+                    setByte(i, (byte) data[i]);
+                    break;
+                case INT:
+                    setInt(i, (int) data[i]);
+                    break;
+                default:
+                    setDouble(i, data[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The values of every cell of the grid, loaded in memory.
+     */
+    public double[] toDoubleArray() {
+        double[] data = new double[grid.getNbCells()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = getValue(i);
+        }
+        return data;
+    }
+
+    /**
+     * @return The values of every cell of the grid, loaded in memory.
+     */
+    public int[] toIntArray() {
+        int[] data = new int[grid.getNbCells()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (int) getValue(i);
+        }
+        return data;
+    }
+
+    /**
+     * Forces the values to be written to the file.
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Flushes the values and closes the file. The mapped segments are released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        raf.close();
+    }
+}
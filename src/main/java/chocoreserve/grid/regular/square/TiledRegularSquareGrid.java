@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Regular square grid whose per-cell attributes (validity, feature values) are stored in memory-mapped files
+ * (see TiledLayer) under a working directory, organized in square tiles. Cells are indexed in row-major order so
+ * that the regular square grid neighborhoods apply unchanged, cell coordinates are computed from the indices.
+ *
+ * Discarded cells remain in the grid (their index is unchanged), they must be excluded from regions by the model,
+ * e.g. using getValidCells.
+ */
+public class TiledRegularSquareGrid extends RegularSquareGrid implements Closeable {
+
+    private static final String LAYER_EXTENSION = ".layer";
+
+    protected final int tileSize;
+    protected final int nbTileRows, nbTileCols;
+    protected final File directory;
+    protected final Map<String, TiledLayer> layers;
+    protected final TiledLayer discarded;
+
+    /**
+     * @param nbRows    The number of rows.
+     * @param nbCols    The number of columns.
+     * @param tileSize  The side of a tile, in cells.
+     * @param directory The working directory where layer files are stored (created if needed).
+     */
+    public TiledRegularSquareGrid(int nbRows, int nbCols, int tileSize, File directory) throws IOException {
+        super(nbRows, nbCols);
+        assert tileSize > 0;
+        this.tileSize = tileSize;
+        this.nbTileRows = (nbRows + tileSize - 1) / tileSize;
+        this.nbTileCols = (nbCols + tileSize - 1) / tileSize;
+        this.directory = directory;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create the working directory " + directory);
+        }
+        this.layers = new HashMap<>();
+        this.discarded = new TiledLayer(this, "discarded", TiledLayer.Type.BYTE, new File(directory, "discarded" + LAYER_EXTENSION));
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getNbTileRows() {
+        return nbTileRows;
+    }
+
+    public int getNbTileCols() {
+        return nbTileCols;
+    }
+
+    public int getNbTiles() {
+        return nbTileRows * nbTileCols;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The index of the tile containing the cell.
+     */
+    public int getTile(int cell) {
+        return (cell / nbCols / tileSize) * nbTileCols + (cell % nbCols) / tileSize;
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The position of the cell within its tile (row-major order within the tile).
+     */
+    public int getIndexInTile(int cell) {
+        return ((cell / nbCols) % tileSize) * tileSize + (cell % nbCols) % tileSize;
+    }
+
+    /**
+     * @param tile The index of a tile.
+     * @return The indices of the cells of the tile.
+     */
+    public int[] getTileCells(int tile) {
+        int rowStart = (tile / nbTileCols) * tileSize;
+        int colStart = (tile % nbTileCols) * tileSize;
+        int rowEnd = Math.min(rowStart + tileSize, nbRows);
+        int colEnd = Math.min(colStart + tileSize, nbCols);
+        int[] cells = new int[(rowEnd - rowStart) * (colEnd - colStart)];
+        int k = 0;
+        for (int row = rowStart; row < rowEnd; row++) {
+            for (int col = colStart; col < colEnd; col++) {
+                cells[k++] = row * nbCols + col;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Opens a layer, creating its file if needed. If the layer file exists, its values are retrieved.
+     *
+     * @param name The name of the layer.
+     * @param type The type of the values.
+     * @return The layer.
+     */
+    public TiledLayer openLayer(String name, TiledLayer.Type type) throws IOException {
+        TiledLayer layer = layers.get(name);
+        if (layer == null) {
+            layer = new TiledLayer(this, name, type, new File(directory, name + LAYER_EXTENSION));
+            layers.put(name, layer);
+        }
+        assert layer.getType() == type;
+        return layer;
+    }
+
+    /**
+     * @param name The name of a layer.
+     * @return The layer, null if it has not been opened.
+     */
+    public TiledLayer getLayer(String name) {
+        return layers.get(name);
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return True if the cell is not discarded.
+     */
+    public boolean isValid(int cell) {
+        return discarded.getByte(cell) == 0;
+    }
+
+    /**
+     * @param row The row.
+     * @param col The column.
+     * @return True if the cell at (row, col) is not discarded.
+     */
+    public boolean isValid(int row, int col) {
+        return isValid(getIndexFromCoordinates(row, col));
+    }
+
+    /**
+     * @param cell  The index of a cell.
+     * @param valid False to discard the cell.
+     */
+    public void setValid(int cell, boolean valid) {
+        discarded.setByte(cell, (byte) (valid ? 0 : 1));
+    }
+
+    /**
+     * @return The indices of the cells that are not discarded.
+     */
+    public int[] getValidCells() {
+        int nb = 0;
+        for (int i = 0; i < getNbCells(); i++) {
+            if (isValid(i)) {
+                nb++;
+            }
+        }
+        int[] cells = new int[nb];
+        int k = 0;
+        for (int i = 0; i < getNbCells(); i++) {
+            if (isValid(i)) {
+                cells[k++] = i;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Closes every layer, their files are kept in the working directory.
+     */
+    @Override
+    public void close() throws IOException {
+        for (TiledLayer layer : layers.values()) {
+            layer.close();
+        }
+        discarded.close();
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.raster;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Process-wide cache of decoded raster bands, keyed by (path, modification time, band, type, window).
+ *
+ * Entries are evicted in least recently used order when the total size of the cached arrays exceeds the byte
+ * budget. They are also held through soft references, so the garbage collector can reclaim them under memory
+ * pressure. A raster file modified on disk gets new keys, its outdated entries are dropped on the next lookup.
+ *
+ * The arrays returned by the cache are shared and must not be modified.
+ */
+public class RasterCache {
+
+    /**
+     * Default byte budget: a quarter of the maximum heap size.
+     */
+    public static final long DEFAULT_MAX_BYTES = Runtime.getRuntime().maxMemory() / 4;
+
+    private static final RasterCache INSTANCE = new RasterCache(DEFAULT_MAX_BYTES);
+
+    /**
+     * Type of the decoded values.
+     */
+    public enum Type {
+        DOUBLE, INT
+    }
+
+    /**
+     * Decodes the values of an entry on a cache miss.
+     */
+    @FunctionalInterface
+    interface Loader {
+        Object load() throws IOException;
+    }
+
+    private static class Key {
+
+        private final String path;
+        private final long lastModified;
+        private final int band;
+        private final Type type;
+        private final RasterWindow window;
+
+        private Key(String path, long lastModified, int band, Type type, RasterWindow window) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.band = band;
+            this.type = type;
+            this.window = window;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return lastModified == key.lastModified && band == key.band && type == key.type && path.equals(key.path)
+                    && Objects.equals(window, key.window);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, lastModified, band, type, window);
+        }
+    }
+
+    private static class Entry extends SoftReference<Object> {
+
+        private final Key key;
+        private final long bytes;
+
+        private Entry(Key key, Object values, long bytes, ReferenceQueue<Object> queue) {
+            super(values, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private long maxBytes;
+    private long bytes;
+
+    /**
+     * @param maxBytes The byte budget of the cache.
+     */
+    public RasterCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The process-wide cache.
+     */
+    public static RasterCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param path The path to the raster file.
+     * @param band The index of the band.
+     * @return The values of the band as a flattened double array, decoded on the first call. Must not be modified.
+     * @throws IOException
+     */
+    public double[] getDoubleArray(String path, int band) throws IOException {
+        File file = new File(path);
+        return (double[]) get(file.getAbsolutePath(), file.lastModified(), band, Type.DOUBLE,
+                () -> {
+                    try (RasterReader reader = new RasterReader(path)) {
+                        return reader.readAsDoubleArray(band);
+                    }
+                });
+    }
+
+    /**
+     * @param path The path to the raster file.
+     * @param band The index of the band.
+     * @return The values of the band as a flattened int array, decoded on the first call. Must not be modified.
+     * @throws IOException
+     */
+    public int[] getIntArray(String path, int band) throws IOException {
+        File file = new File(path);
+        return (int[]) get(file.getAbsolutePath(), file.lastModified(), band, Type.INT,
+                () -> {
+                    try (RasterReader reader = new RasterReader(path)) {
+                        return reader.readAsIntArray(band);
+                    }
+                });
+    }
+
+    /**
+     * @param path   The path to the raster file.
+     * @param band   The index of the band.
+     * @param window The window of the raster to read, and where to store its pixels (see RasterWindow).
+     * @return The values of the window, decoded on the first call. Must not be modified.
+     * @throws IOException
+     */
+    public double[] getDoubleArray(String path, int band, RasterWindow window) throws IOException {
+        File file = new File(path);
+        return (double[]) get(file.getAbsolutePath(), file.lastModified(), band, Type.DOUBLE, window,
+                () -> {
+                    try (RasterReader reader = new RasterReader(path)) {
+                        return reader.readAsDoubleArray(band, window);
+                    }
+                });
+    }
+
+    /**
+     * @param path   The path to the raster file.
+     * @param band   The index of the band.
+     * @param window The window of the raster to read, and where to store its pixels (see RasterWindow).
+     * @return The values of the window, decoded on the first call. Must not be modified.
+     * @throws IOException
+     */
+    public int[] getIntArray(String path, int band, RasterWindow window) throws IOException {
+        File file = new File(path);
+        return (int[]) get(file.getAbsolutePath(), file.lastModified(), band, Type.INT, window,
+                () -> {
+                    try (RasterReader reader = new RasterReader(path)) {
+                        return reader.readAsIntArray(band, window);
+                    }
+                });
+    }
+
+    /**
+     * Returns the cached values of an entry, loading them on a miss. The loading is done outside the lock, two
+     * threads missing the same entry at the same time can thus both decode it.
+     */
+    Object get(String path, long lastModified, int band, Type type, Loader loader) throws IOException {
+        return get(path, lastModified, band, type, null, loader);
+    }
+
+    Object get(String path, long lastModified, int band, Type type, RasterWindow window, Loader loader)
+            throws IOException {
+        Key key = new Key(path, lastModified, band, type, window);
+        synchronized (this) {
+            purge();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                Object values = entry.get();
+                if (values != null) {
+                    return values;
+                }
+                remove(entry);
+            }
+        }
+        Object values = loader.load();
+        synchronized (this) {
+            purge();
+            Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.key.path.equals(path) && entry.key.lastModified != lastModified) {
+                    it.remove();
+                    bytes -= entry.bytes;
+                }
+            }
+            Entry old = entries.get(key);
+            if (old != null) {
+                remove(old);
+            }
+            long size = sizeOf(values);
+            if (size <= maxBytes) {
+                entries.put(key, new Entry(key, values, size, queue));
+                bytes += size;
+                evict();
+            }
+        }
+        return values;
+    }
+
+    private static long sizeOf(Object values) {
+        if (values instanceof double[]) {
+            return 8L * ((double[]) values).length;
+        }
+        if (values instanceof int[]) {
+            return 4L * ((int[]) values).length;
+        }
+        throw new IllegalArgumentException("Unsupported cached values: " + values.getClass());
+    }
+
+    private void remove(Entry entry) {
+        if (entries.get(entry.key) == entry) {
+            entries.remove(entry.key);
+            bytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * Drops the entries whose values were reclaimed by the garbage collector.
+     */
+    private void purge() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            remove((Entry) ref);
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache fits in its byte budget.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Entry entry = it.next().getValue();
+            it.remove();
+            bytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * @return The byte budget of the cache.
+     */
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @param maxBytes The byte budget of the cache. Entries are evicted if the cache does not fit anymore.
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        purge();
+        evict();
+    }
+
+    /**
+     * @return The total size (in bytes) of the cached arrays.
+     */
+    public synchronized long getSize() {
+        purge();
+        return bytes;
+    }
+
+    /**
+     * @return The number of cached arrays.
+     */
+    public synchronized int getNbEntries() {
+        purge();
+        return entries.size();
+    }
+
+    /**
+     * Removes every entry of the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+        purge();
+    }
+}
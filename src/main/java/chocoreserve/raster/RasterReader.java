@@ -26,19 +26,59 @@ package chocoreserve.raster;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.gce.geotiff.GeoTiffReader;
 
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Raster file reader. For now, only GeoTIFF files are accepted.
+ *
+ * The file is decoded once, when the reader is created. Reads then iterate over the tiles of the decoded image and
+ * copy the samples of each tile straight into primitive arrays. Rasters larger than the heap can be streamed row by
+ * row with streamRows, which only keeps one row of tiles in memory.
+ *
+ * The reader holds the decoded image and the underlying GeoTIFF reader until it is closed, it should thus be closed
+ * (e.g. with try-with-resources) as soon as the values have been read.
  */
-public class RasterReader {
+public class RasterReader implements Closeable {
+
+    /**
+     * Largest size of a Java array that can be safely allocated.
+     */
+    public static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Row-streaming callback.
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+
+        /**
+         * @param row    The index of the row.
+         * @param values The values of the row (width values). The buffer is reused for the next row.
+         */
+        void accept(int row, double[] values);
+    }
 
     /**
      * Raster file path
      */
     private String filePath;
 
+    /**
+     * GeoTIFF reader and coverage, disposed on close (null for an already decoded image)
+     */
+    private GeoTiffReader reader;
+    private GridCoverage2D coverage;
+
+    /**
+     * Decoded image
+     */
+    private RenderedImage image;
+
     /**
      * Metadata of the raster
      */
@@ -55,14 +95,65 @@ public class RasterReader {
     }
 
     /**
-     * Loads the metadata of the raster.
+     * Constructor for an already decoded image.
+     *
+     * @param image The image.
+     */
+    public RasterReader(RenderedImage image) {
+        this.image = image;
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+    }
+
+    /**
+     * Decodes the raster and loads its metadata.
      */
     private void loadMetaData() throws IOException {
         File file = new File(filePath);
-        GeoTiffReader reader = new GeoTiffReader(file);
-        GridCoverage2D grid = reader.read(null);
-        width = grid.getRenderedImage().getWidth();
-        height = grid.getRenderedImage().getHeight();
+        reader = new GeoTiffReader(file);
+        try {
+            coverage = reader.read(null);
+        } catch (IOException e) {
+            reader.dispose();
+            throw e;
+        }
+        image = coverage.getRenderedImage();
+        width = image.getWidth();
+        height = image.getHeight();
+    }
+
+    /**
+     * Releases the decoded image and disposes the GeoTIFF reader. The values can no longer be read afterwards.
+     */
+    @Override
+    public void close() {
+        if (coverage != null) {
+            coverage.dispose(true);
+            coverage = null;
+        }
+        if (reader != null) {
+            reader.dispose();
+            reader = null;
+        }
+        image = null;
+    }
+
+    /**
+     * @return The number of bands of the raster.
+     */
+    public int getNbBands() {
+        return image.getSampleModel().getNumBands();
+    }
+
+    /**
+     * @return The indices of all the bands of the raster.
+     */
+    public int[] getBands() {
+        int[] bands = new int[getNbBands()];
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] = i;
+        }
+        return bands;
     }
 
     /**
@@ -84,16 +175,10 @@ public class RasterReader {
      * @throws IOException
      */
     public double[][] readAsDoubleMatrix() throws IOException {
-        File file = new File(filePath);
-        GeoTiffReader reader = new GeoTiffReader(file);
-        GridCoverage2D grid = reader.read(null);
-        int height = grid.getRenderedImage().getHeight();
-        int width = grid.getRenderedImage().getWidth();
-        double[][] values = new double[height][width];
+        double[] data = readAsDoubleArray();
+        double[][] values = new double[height][];
         for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                values[i][j] = grid.getRenderedImage().getData().getSampleDouble(j, i, 0);
-            }
+            values[i] = Arrays.copyOfRange(data, i * width, (i + 1) * width);
         }
         return values;
     }
@@ -103,13 +188,27 @@ public class RasterReader {
      * @throws IOException
      */
     public double[] readAsDoubleArray() throws IOException {
-        File file = new File(filePath);
-        GeoTiffReader reader = new GeoTiffReader(file);
-        GridCoverage2D grid = reader.read(null);
-        int height = grid.getRenderedImage().getHeight();
-        int width = grid.getRenderedImage().getWidth();
+        return readAsDoubleArray(0);
+    }
+
+    /**
+     * @param band The index of the band to read.
+     * @return The values of a band of the raster as a flattened double array.
+     * @throws IOException
+     */
+    public double[] readAsDoubleArray(int band) throws IOException {
         double[] values = new double[height * width];
-        return grid.getRenderedImage().getData().getSamples(0, 0, width, height, 0, values);
+        double[][] buffer = new double[1][];
+        forEachTile((tile, x, y, w, h) -> {
+            if (buffer[0] == null || buffer[0].length < w * h) {
+                buffer[0] = new double[w * h];
+            }
+            tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, band, buffer[0]);
+            for (int r = 0; r < h; r++) {
+                System.arraycopy(buffer[0], r * w, values, (y + r) * width + x, w);
+            }
+        });
+        return values;
     }
 
     /**
@@ -117,16 +216,10 @@ public class RasterReader {
      * @throws IOException
      */
     public int[][] readAsIntMatrix() throws IOException {
-        File file = new File(filePath);
-        GeoTiffReader reader = new GeoTiffReader(file);
-        GridCoverage2D grid = reader.read(null);
-        int height = grid.getRenderedImage().getHeight();
-        int width = grid.getRenderedImage().getWidth();
-        int[][] values = new int[height][width];
+        int[] data = readAsIntArray();
+        int[][] values = new int[height][];
         for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                values[i][j] = grid.getRenderedImage().getData().getSample(j, i, 0);
-            }
+            values[i] = Arrays.copyOfRange(data, i * width, (i + 1) * width);
         }
         return values;
     }
@@ -136,13 +229,319 @@ public class RasterReader {
      * @throws IOException
      */
     public int[] readAsIntArray() throws IOException {
-        File file = new File(filePath);
-        GeoTiffReader reader = new GeoTiffReader(file);
-        GridCoverage2D grid = reader.read(null);
-        int height = grid.getRenderedImage().getHeight();
-        int width = grid.getRenderedImage().getWidth();
+        return readAsIntArray(0);
+    }
+
+    /**
+     * @param band The index of the band to read.
+     * @return The values of a band of the raster as a flattened int array.
+     * @throws IOException
+     */
+    public int[] readAsIntArray(int band) throws IOException {
         int[] values = new int[height * width];
-        return grid.getRenderedImage().getData().getSamples(0, 0, width, height, 0, values);
+        int[][] buffer = new int[1][];
+        forEachTile((tile, x, y, w, h) -> {
+            if (buffer[0] == null || buffer[0].length < w * h) {
+                buffer[0] = new int[w * h];
+            }
+            tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, band, buffer[0]);
+            for (int r = 0; r < h; r++) {
+                System.arraycopy(buffer[0], r * w, values, (y + r) * width + x, w);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Reads a window of a band, only fetching the tiles containing stored pixels. Each stored pixel is written at its
+     * cell index, the other cells of the output are left to 0.
+     *
+     * @param band   The index of the band to read.
+     * @param window The window to read, and where to store its pixels.
+     * @return The stored values of the window, as a double array of size window.getNbCells().
+     * @throws IOException
+     */
+    public double[] readAsDoubleArray(int band, RasterWindow window) throws IOException {
+        checkWindow(window);
+        double[] values = new double[window.getNbCells()];
+        double[][] buffer = new double[1][];
+        int wx = window.getX();
+        int wy = window.getY();
+        forEachTile(wx, wy, window.getWidth(), window.getHeight(),
+                (x, y, w, h) -> window.isStored(x - wx, y - wy, w, h),
+                (tile, x, y, w, h) -> {
+                    if (buffer[0] == null || buffer[0].length < w * h) {
+                        buffer[0] = new double[w * h];
+                    }
+                    tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, band, buffer[0]);
+                    for (int r = 0; r < h; r++) {
+                        for (int c = 0; c < w; c++) {
+                            int cell = window.getCellIndex(x - wx + c, y - wy + r);
+                            if (cell >= 0) {
+                                values[cell] = buffer[0][r * w + c];
+                            }
+                        }
+                    }
+                });
+        return values;
     }
 
+    /**
+     * Reads a window of a band, only fetching the tiles containing stored pixels. Each stored pixel is written at its
+     * cell index, the other cells of the output are left to 0.
+     *
+     * @param band   The index of the band to read.
+     * @param window The window to read, and where to store its pixels.
+     * @return The stored values of the window, as a int array of size window.getNbCells().
+     * @throws IOException
+     */
+    public int[] readAsIntArray(int band, RasterWindow window) throws IOException {
+        checkWindow(window);
+        int[] values = new int[window.getNbCells()];
+        int[][] buffer = new int[1][];
+        int wx = window.getX();
+        int wy = window.getY();
+        forEachTile(wx, wy, window.getWidth(), window.getHeight(),
+                (x, y, w, h) -> window.isStored(x - wx, y - wy, w, h),
+                (tile, x, y, w, h) -> {
+                    if (buffer[0] == null || buffer[0].length < w * h) {
+                        buffer[0] = new int[w * h];
+                    }
+                    tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, band, buffer[0]);
+                    for (int r = 0; r < h; r++) {
+                        for (int c = 0; c < w; c++) {
+                            int cell = window.getCellIndex(x - wx + c, y - wy + r);
+                            if (cell >= 0) {
+                                values[cell] = buffer[0][r * w + c];
+                            }
+                        }
+                    }
+                });
+        return values;
+    }
+
+    private void checkWindow(RasterWindow window) {
+        if (window.getX() < 0 || window.getY() < 0 || window.getX() + window.getWidth() > width
+                || window.getY() + window.getHeight() > height) {
+            throw new IllegalArgumentException("The window (" + window.getX() + ", " + window.getY() + ", "
+                    + window.getWidth() + ", " + window.getHeight() + ") does not fit in the raster ("
+                    + width + "x" + height + ")");
+        }
+    }
+
+    /**
+     * @param nbCells The number of stored pixels.
+     * @param nbBands A number of bands.
+     * @return The size of a band-interleaved array storing nbBands bands of nbCells pixels.
+     * @throws IOException If the values cannot be stored in a single Java array.
+     */
+    private static int bandInterleavedSize(int nbCells, int nbBands) throws IOException {
+        long size = (long) nbCells * nbBands;
+        if (size > MAX_ARRAY_SIZE) {
+            throw new IOException(nbBands + " bands of " + nbCells + " pixels (" + size
+                    + " values) cannot be stored in a single array, read the bands in smaller chunks");
+        }
+        return (int) size;
+    }
+
+    /**
+     * Reads several bands in a single pass over the tiles of the raster. The values are band-interleaved: the value of
+     * bands[k] for the pixel p (row-major index) is at index p * bands.length + k.
+     *
+     * @param bands The indices of the bands to read.
+     * @return The values of the bands as a band-interleaved double array.
+     * @throws IOException
+     */
+    public double[] readAsBandInterleavedDoubleArray(int[] bands) throws IOException {
+        return readAsBandInterleavedDoubleArray(bands, new RasterWindow(0, 0, width, height));
+    }
+
+    /**
+     * Reads several bands of a window in a single pass over the tiles containing stored pixels. The values are
+     * band-interleaved: the value of bands[k] for the pixel stored at the cell index i is at index
+     * i * bands.length + k, the other cells of the output are left to 0.
+     *
+     * @param bands  The indices of the bands to read.
+     * @param window The window to read, and where to store its pixels.
+     * @return The values of the bands as a band-interleaved double array.
+     * @throws IOException
+     */
+    public double[] readAsBandInterleavedDoubleArray(int[] bands, RasterWindow window) throws IOException {
+        checkWindow(window);
+        int nbBands = bands.length;
+        double[] values = new double[bandInterleavedSize(window.getNbCells(), nbBands)];
+        double[][] buffer = new double[1][];
+        int wx = window.getX();
+        int wy = window.getY();
+        forEachTile(wx, wy, window.getWidth(), window.getHeight(),
+                (x, y, w, h) -> window.isStored(x - wx, y - wy, w, h),
+                (tile, x, y, w, h) -> {
+                    if (buffer[0] == null || buffer[0].length < w * h) {
+                        buffer[0] = new double[w * h];
+                    }
+                    for (int k = 0; k < nbBands; k++) {
+                        tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, bands[k], buffer[0]);
+                        for (int r = 0; r < h; r++) {
+                            for (int c = 0; c < w; c++) {
+                                int cell = window.getCellIndex(x - wx + c, y - wy + r);
+                                if (cell >= 0) {
+                                    values[cell * nbBands + k] = buffer[0][r * w + c];
+                                }
+                            }
+                        }
+                    }
+                });
+        return values;
+    }
+
+    /**
+     * Reads several bands in a single pass over the tiles of the raster. The values are band-interleaved: the value of
+     * bands[k] for the pixel p (row-major index) is at index p * bands.length + k.
+     *
+     * @param bands The indices of the bands to read.
+     * @return The values of the bands as a band-interleaved int array.
+     * @throws IOException
+     */
+    public int[] readAsBandInterleavedIntArray(int[] bands) throws IOException {
+        return readAsBandInterleavedIntArray(bands, new RasterWindow(0, 0, width, height));
+    }
+
+    /**
+     * Reads several bands of a window in a single pass over the tiles containing stored pixels. The values are
+     * band-interleaved: the value of bands[k] for the pixel stored at the cell index i is at index
+     * i * bands.length + k, the other cells of the output are left to 0.
+     *
+     * @param bands  The indices of the bands to read.
+     * @param window The window to read, and where to store its pixels.
+     * @return The values of the bands as a band-interleaved int array.
+     * @throws IOException
+     */
+    public int[] readAsBandInterleavedIntArray(int[] bands, RasterWindow window) throws IOException {
+        checkWindow(window);
+        int nbBands = bands.length;
+        int[] values = new int[bandInterleavedSize(window.getNbCells(), nbBands)];
+        int[][] buffer = new int[1][];
+        int wx = window.getX();
+        int wy = window.getY();
+        forEachTile(wx, wy, window.getWidth(), window.getHeight(),
+                (x, y, w, h) -> window.isStored(x - wx, y - wy, w, h),
+                (tile, x, y, w, h) -> {
+                    if (buffer[0] == null || buffer[0].length < w * h) {
+                        buffer[0] = new int[w * h];
+                    }
+                    for (int k = 0; k < nbBands; k++) {
+                        tile.getSamples(tile.getMinX(), tile.getMinY(), w, h, bands[k], buffer[0]);
+                        for (int r = 0; r < h; r++) {
+                            for (int c = 0; c < w; c++) {
+                                int cell = window.getCellIndex(x - wx + c, y - wy + r);
+                                if (cell >= 0) {
+                                    values[cell * nbBands + k] = buffer[0][r * w + c];
+                                }
+                            }
+                        }
+                    }
+                });
+        return values;
+    }
+
+    /**
+     * Streams the values of the raster row by row, from the top row to the bottom one. Only one row of tiles is
+     * decoded and kept in memory at a time.
+     *
+     * @param consumer The callback receiving each row.
+     */
+    public void streamRows(RowConsumer consumer) {
+        int minTileY = image.getMinTileY();
+        int minTileX = image.getMinTileX();
+        double[] row = new double[width];
+        double[] buffer = new double[width];
+        for (int ty = minTileY; ty < minTileY + image.getNumYTiles(); ty++) {
+            Raster[] tiles = new Raster[image.getNumXTiles()];
+            for (int tx = 0; tx < tiles.length; tx++) {
+                tiles[tx] = image.getTile(minTileX + tx, ty);
+            }
+            int y0 = Math.max(tiles[0].getMinY(), image.getMinY());
+            int y1 = Math.min(tiles[0].getMinY() + tiles[0].getHeight(), image.getMinY() + height);
+            for (int y = y0; y < y1; y++) {
+                for (Raster tile : tiles) {
+                    int x0 = Math.max(tile.getMinX(), image.getMinX());
+                    int w = Math.min(tile.getMinX() + tile.getWidth(), image.getMinX() + width) - x0;
+                    tile.getSamples(x0, y, w, 1, 0, buffer);
+                    System.arraycopy(buffer, 0, row, x0 - image.getMinX(), w);
+                }
+                consumer.accept(y - image.getMinY(), row);
+            }
+        }
+    }
+
+    /**
+     * Tile visitor, receiving the part of each tile lying within the visited region.
+     */
+    @FunctionalInterface
+    private interface TileVisitor {
+        /**
+         * @param tile The tile, restricted to the visited part (its min x and y are the ones of the visited part).
+         * @param x    The column (relative to the image) of the first pixel of the visited part.
+         * @param y    The row (relative to the image) of the first pixel of the visited part.
+         * @param w    The width of the visited part.
+         * @param h    The height of the visited part.
+         */
+        void visit(Raster tile, int x, int y, int w, int h);
+    }
+
+    /**
+     * Decides whether a part of a tile must be visited, before the tile is fetched (and decoded).
+     */
+    @FunctionalInterface
+    private interface TileFilter {
+        boolean accept(int x, int y, int w, int h);
+    }
+
+    private void forEachTile(TileVisitor visitor) {
+        forEachTile(0, 0, width, height, (x, y, w, h) -> true, visitor);
+    }
+
+    /**
+     * Visits the tiles intersecting a region of the image, only fetching the accepted ones.
+     *
+     * @param rx      The column (relative to the image) of the first pixel of the region.
+     * @param ry      The row (relative to the image) of the first pixel of the region.
+     * @param rw      The width of the region.
+     * @param rh      The height of the region.
+     * @param filter  The tile filter.
+     * @param visitor The tile visitor.
+     */
+    private void forEachTile(int rx, int ry, int rw, int rh, TileFilter filter, TileVisitor visitor) {
+        if (rw <= 0 || rh <= 0) {
+            return;
+        }
+        int tileWidth = image.getTileWidth();
+        int tileHeight = image.getTileHeight();
+        int offsetX = image.getTileGridXOffset();
+        int offsetY = image.getTileGridYOffset();
+        int minX = image.getMinX() + rx;
+        int minY = image.getMinY() + ry;
+        int maxX = minX + rw;
+        int maxY = minY + rh;
+        int firstTx = Math.max(image.getMinTileX(), Math.floorDiv(minX - offsetX, tileWidth));
+        int lastTx = Math.min(image.getMinTileX() + image.getNumXTiles() - 1,
+                Math.floorDiv(maxX - 1 - offsetX, tileWidth));
+        int firstTy = Math.max(image.getMinTileY(), Math.floorDiv(minY - offsetY, tileHeight));
+        int lastTy = Math.min(image.getMinTileY() + image.getNumYTiles() - 1,
+                Math.floorDiv(maxY - 1 - offsetY, tileHeight));
+        for (int ty = firstTy; ty <= lastTy; ty++) {
+            for (int tx = firstTx; tx <= lastTx; tx++) {
+                int tileMinX = offsetX + tx * tileWidth;
+                int tileMinY = offsetY + ty * tileHeight;
+                int x0 = Math.max(tileMinX, minX);
+                int y0 = Math.max(tileMinY, minY);
+                int w = Math.min(tileMinX + tileWidth, maxX) - x0;
+                int h = Math.min(tileMinY + tileHeight, maxY) - y0;
+                if (w > 0 && h > 0 && filter.accept(x0 - image.getMinX(), y0 - image.getMinY(), w, h)) {
+                    Raster part = image.getTile(tx, ty).createChild(x0, y0, w, h, x0, y0, null);
+                    visitor.visit(part, x0 - image.getMinX(), y0 - image.getMinY(), w, h);
+                }
+            }
+        }
+    }
 }
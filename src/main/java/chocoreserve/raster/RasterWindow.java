@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.raster;
+
+import java.util.Objects;
+
+/**
+ * Window of a raster read into a grid: the pixels of the rectangle (x, y, width, height) are stored at the index
+ * given by cellIndices (row-major order within the window), pixels mapped to -1 are not stored. When cellIndices is
+ * null, pixels are stored in row-major order within the window.
+ *
+ * Windows are compared by their rectangle, their number of cells and the identity of their index mapping, which is
+ * meant to be an array owned by a grid.
+ */
+public class RasterWindow {
+
+    private final int x, y, width, height;
+    private final int[] cellIndices;
+    private final int nbCells;
+
+    /**
+     * @param x           The column of the first pixel of the window.
+     * @param y           The row of the first pixel of the window.
+     * @param width       The width of the window.
+     * @param height      The height of the window.
+     * @param cellIndices For each pixel of the window (row-major order), its index in the output, -1 if it must not be
+     *                    stored. Null for the row-major order.
+     * @param nbCells     The size of the output.
+     */
+    public RasterWindow(int x, int y, int width, int height, int[] cellIndices, int nbCells) {
+        assert cellIndices == null || cellIndices.length == width * height;
+        assert cellIndices != null || nbCells == width * height;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        this.cellIndices = cellIndices;
+        this.nbCells = nbCells;
+    }
+
+    /**
+     * Window of the given rectangle, stored in row-major order.
+     */
+    public RasterWindow(int x, int y, int width, int height) {
+        this(x, y, width, height, null, width * height);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNbCells() {
+        return nbCells;
+    }
+
+    /**
+     * @param col The column of a pixel, relative to the window.
+     * @param row The row of a pixel, relative to the window.
+     * @return The index where the pixel is stored, -1 if it is not stored.
+     */
+    public int getCellIndex(int col, int row) {
+        int i = row * width + col;
+        return cellIndices == null ? i : cellIndices[i];
+    }
+
+    /**
+     * @return True if at least one pixel of the rectangle (relative to the window) is stored.
+     */
+    public boolean isStored(int col, int row, int w, int h) {
+        if (cellIndices == null) {
+            return w > 0 && h > 0;
+        }
+        for (int r = row; r < row + h; r++) {
+            for (int c = col; c < col + w; c++) {
+                if (cellIndices[r * width + c] >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RasterWindow)) {
+            return false;
+        }
+        RasterWindow w = (RasterWindow) o;
+        return x == w.x && y == w.y && width == w.width && height == w.height && nbCells == w.nbCells
+                && cellIndices == w.cellIndices;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(x, y, width, height, nbCells, System.identityHashCode(cellIndices));
+    }
+}
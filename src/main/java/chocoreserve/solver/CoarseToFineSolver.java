@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver;
+
+import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.GridPyramid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.solver.variables.IntVar;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Coarse-to-fine resolution of a reserve model over a grid pyramid. The model is first solved on the coarsest
+ * level of the pyramid, then each solution restricts the regions of the next finer level:
+ *
+ *  - a fine cell can only be in a region (UB) if its parent cell, or a neighbor of its parent according to the
+ *    margin neighborhood, is in this region in the coarse solution;
+ *  - a fine cell is forced in a region (LB) if its parent cell and all its neighbors are in this region.
+ *
+ * This is a heuristic: restricting the bounds can make a finer level infeasible (or exclude the optimal solution),
+ * the resolution then stops and returns null.
+ */
+public class CoarseToFineSolver {
+
+    /**
+     * Builds the reserve model of a level of the pyramid.
+     */
+    @FunctionalInterface
+    public interface LevelModelBuilder {
+
+        /**
+         * @param pyramid The grid pyramid.
+         * @param level   The level to build the model for. The model must be defined on pyramid.getGrid(level)
+         *                and its regions must be given in the same order at every level.
+         * @param LBNodes For each region, the cells that must be in it (null for the coarsest level).
+         * @param UBNodes For each region, the cells that can be in it (null for the coarsest level).
+         * @return The reserve model of the level.
+         */
+        ReserveModel build(GridPyramid pyramid, int level, int[][] LBNodes, int[][] UBNodes);
+    }
+
+    private GridPyramid pyramid;
+    private LevelModelBuilder builder;
+    private INeighborhood margin;
+    private ReserveModel[] models;
+    private Solution[] solutions;
+
+    /**
+     * @param pyramid The grid pyramid.
+     * @param builder The model builder.
+     * @param margin  The neighborhood (on coarse grids) within which coarse solutions are relaxed, null for no
+     *                relaxation (the finer levels are then fixed by the coarsest solution).
+     */
+    public CoarseToFineSolver(GridPyramid pyramid, LevelModelBuilder builder, INeighborhood margin) {
+        this.pyramid = pyramid;
+        this.builder = builder;
+        this.margin = margin;
+        this.models = new ReserveModel[pyramid.getNbLevels()];
+        this.solutions = new Solution[pyramid.getNbLevels()];
+    }
+
+    /**
+     * Coarse-to-fine solver relaxing coarse solutions within the height-connected neighborhood.
+     */
+    public CoarseToFineSolver(GridPyramid pyramid, LevelModelBuilder builder) {
+        this(pyramid, builder, Neighborhoods.HEIGHT_CONNECTED);
+    }
+
+    /**
+     * Solves every level with findSolution.
+     *
+     * @return The solution of the base level, null if a level has no solution.
+     */
+    public Solution solve() {
+        return solve(model -> model.getChocoSolver().findSolution());
+    }
+
+    /**
+     * @param levelSolver Solves the model of a level and returns a solution, or null if there is none.
+     * @return The solution of the base level, null if a level has no solution.
+     */
+    public Solution solve(Function<ReserveModel, Solution> levelSolver) {
+        int[][] LBNodes = null;
+        int[][] UBNodes = null;
+        for (int level = pyramid.getNbLevels() - 1; level >= 0; level--) {
+            models[level] = builder.build(pyramid, level, LBNodes, UBNodes);
+            assert models[level].getGrid() == pyramid.getGrid(level);
+            solutions[level] = levelSolver.apply(models[level]);
+            if (solutions[level] == null) {
+                return null;
+            }
+            if (level > 0) {
+                int[][][] bounds = refine(level, models[level], solutions[level]);
+                LBNodes = bounds[0];
+                UBNodes = bounds[1];
+            }
+        }
+        return solutions[0];
+    }
+
+    /**
+     * @return The bounds {LBNodes, UBNodes} of each region at level - 1 from a solution at level.
+     */
+    private int[][][] refine(int level, ReserveModel model, Solution solution) {
+        RegularSquareGrid coarse = pyramid.getGrid(level);
+        int nbRegions = model.getRegions().length;
+        IntVar[] sites = model.getSites();
+        int[] assignment = new int[coarse.getNbCells()];
+        for (int c = 0; c < assignment.length; c++) {
+            assignment[c] = solution.getIntVal(sites[c]);
+        }
+        int[][] lb = new int[nbRegions][pyramid.getGrid(level - 1).getNbCells()];
+        int[][] ub = new int[nbRegions][pyramid.getGrid(level - 1).getNbCells()];
+        int[] nbLB = new int[nbRegions];
+        int[] nbUB = new int[nbRegions];
+        boolean[] candidates = new boolean[nbRegions];
+        for (int c = 0; c < assignment.length; c++) {
+            Arrays.fill(candidates, false);
+            candidates[assignment[c]] = true;
+            if (margin != null) {
+                margin.forEachNeighbor(coarse, c, n -> candidates[assignment[n]] = true);
+            }
+            int nbCandidates = 0;
+            for (boolean b : candidates) {
+                nbCandidates += b ? 1 : 0;
+            }
+            for (int child : pyramid.getChildren(level, c)) {
+                for (int r = 0; r < nbRegions; r++) {
+                    if (candidates[r]) {
+                        ub[r][nbUB[r]++] = child;
+                        if (nbCandidates == 1) {
+                            lb[r][nbLB[r]++] = child;
+                        }
+                    }
+                }
+            }
+        }
+        for (int r = 0; r < nbRegions; r++) {
+            lb[r] = Arrays.copyOf(lb[r], nbLB[r]);
+            ub[r] = Arrays.copyOf(ub[r], nbUB[r]);
+        }
+        return new int[][][]{lb, ub};
+    }
+
+    /**
+     * @param level A level.
+     * @return The model built for the level, null if the level has not been reached.
+     */
+    public ReserveModel getModel(int level) {
+        return models[level];
+    }
+
+    /**
+     * @param level A level.
+     * @return The solution found for the level, null if the level has not been reached or has no solution.
+     */
+    public Solution getSolution(int level) {
+        return solutions[level];
+    }
+}
@@ -28,7 +28,10 @@ import chocoreserve.grid.Grid;
 import chocoreserve.grid.regular.square.RegularSquareGrid;
 import chocoreserve.solver.constraints.IReserveConstraintFactory;
 import chocoreserve.solver.feature.Feature;
+import chocoreserve.solver.feature.FeatureMatrix;
 import chocoreserve.solver.feature.IFeatureFactory;
+import chocoreserve.solver.feature.sparse.SparseFeature;
+import chocoreserve.solver.region.AbstractRegion;
 import chocoreserve.solver.region.ComposedRegion;
 import chocoreserve.solver.region.Region;
 import org.chocosolver.graphsolver.GraphModel;
@@ -39,7 +42,10 @@ import org.chocosolver.solver.search.strategy.Search;
 import org.chocosolver.solver.variables.IntVar;
 import org.chocosolver.solver.variables.SetVar;
 import org.chocosolver.util.criteria.Criterion;
+import org.chocosolver.util.objects.setDataStructures.ISet;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.util.*;
 
 /**
@@ -59,6 +65,11 @@ public class ReserveModel<T extends Grid> implements IReserveModel<T>, IReserveC
      */
     private Map<String, Feature> features;
 
+    /**
+     * The features of the model as a site-by-feature matrix, built on demand and released under memory pressure
+     */
+    private SoftReference<FeatureMatrix> featureMatrix;
+
     /**
      * The choco model
      */
@@ -98,7 +109,7 @@ public class ReserveModel<T extends Grid> implements IReserveModel<T>, IReserveC
                 regionAlreadyLinkedToModelError.printStackTrace();
             }
         });
-        this.features = new HashMap<>();
+        this.features = new LinkedHashMap<>();
         // Init decision variables sites[i] \in [0, region.length - 1]
         this.sites = this.model.intVarArray(
                 "sites",
@@ -131,10 +142,75 @@ public class ReserveModel<T extends Grid> implements IReserveModel<T>, IReserveC
 
     public void addFeature(Feature feature) {
         this.features.put(feature.getName(), feature);
+        this.featureMatrix = null;
     }
 
+    /**
+     * @return An unmodifiable view of the features of the model, in insertion order. Use addFeature to add one.
+     */
     public Map<String, Feature> getFeatures() {
-        return features;
+        return Collections.unmodifiableMap(features);
+    }
+
+    /**
+     * @return The features of the model as a site-by-feature matrix, in insertion order. The matrix is built on demand
+     * and shared until a feature is added or the memory runs low. Must not be modified, use copy() before applying
+     * kernels.
+     */
+    public FeatureMatrix getFeatureMatrix() throws IOException {
+        FeatureMatrix matrix = getCachedFeatureMatrix();
+        if (matrix == null) {
+            matrix = FeatureMatrix.of(this);
+            featureMatrix = new SoftReference<>(matrix);
+        }
+        return matrix;
+    }
+
+    /**
+     * @return The feature matrix of the model if it is already built (see getFeatureMatrix), null otherwise.
+     */
+    public FeatureMatrix getCachedFeatureMatrix() {
+        return featureMatrix == null ? null : featureMatrix.get();
+    }
+
+    /**
+     * @param region A region of the model.
+     * @return For each feature, the sum of its values over the mandatory sites of the region. The feature matrix is
+     * reused if it is already built, otherwise the features are read one at a time and the matrix is not built.
+     */
+    public Map<String, Double> getFeatureRepresentation(AbstractRegion region) throws IOException {
+        ISet sites = region.getSetVar().getLB();
+        FeatureMatrix matrix = getCachedFeatureMatrix();
+        if (matrix != null) {
+            return getFeatureRepresentation(matrix, sites);
+        }
+        Map<String, Double> representation = new LinkedHashMap<>();
+        for (Feature feature : features.values()) {
+            double total = 0;
+            if (feature instanceof SparseFeature) {
+                SparseFeature sparse = (SparseFeature) feature;
+                for (int i : sites) {
+                    total += sparse.getValue(i);
+                }
+            } else {
+                double[] data = feature.getData();
+                for (int i : sites) {
+                    total += data[i];
+                }
+            }
+            representation.put(feature.getName(), total);
+        }
+        return representation;
+    }
+
+    private static Map<String, Double> getFeatureRepresentation(FeatureMatrix matrix, ISet sites) {
+        double[] totals = matrix.featureTotals(sites);
+        String[] names = matrix.getNames();
+        Map<String, Double> representation = new LinkedHashMap<>();
+        for (int f = 0; f < names.length; f++) {
+            representation.put(names[f], totals[f]);
+        }
+        return representation;
     }
 
     @Override
@@ -269,6 +345,28 @@ public class ReserveModel<T extends Grid> implements IReserveModel<T>, IReserveC
         System.out.printf("\n");
     }
 
+    /**
+     * Prints, for each region and composed region, the sum of the values of each feature over its mandatory sites.
+     * The feature matrix is built once (see getFeatureMatrix) and shared by every region.
+     */
+    public void printFeatureRepresentation() {
+        if (features.isEmpty()) {
+            return;
+        }
+        try {
+            FeatureMatrix matrix = getFeatureMatrix();
+            List<AbstractRegion> allRegions = new ArrayList<>(Arrays.asList(regions));
+            allRegions.addAll(Arrays.asList(composedRegions));
+            for (AbstractRegion region : allRegions) {
+                System.out.println("Features of '" + region.getName() + "':");
+                getFeatureRepresentation(matrix, region.getSetVar().getLB())
+                        .forEach((name, v) -> System.out.println("  - " + name + " = " + v));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     // For constraint factory
 
     @Override
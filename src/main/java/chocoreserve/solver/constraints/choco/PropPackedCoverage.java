@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.constraints.choco;
+
+import chocoreserve.util.PackedBits;
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.SetVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.ESat;
+
+import java.util.stream.Stream;
+
+/**
+ * Counts the elements of a set variable belonging to each of several binary features given as packed bitsets:
+ * counts[f] = |set inter features[f]|. This is sumElements with 0/1 coefficients for every feature at once. The
+ * bounds of the set are packed once per propagation, the count of each feature is then computed 64 cells at a time.
+ */
+public class PropPackedCoverage extends Propagator<Variable> {
+
+    private SetVar set;
+    private long[][] features;
+    private IntVar[] counts;
+    private long[] lb, ub;
+
+    /**
+     * @param set      The set variable.
+     * @param features The features, as packed bitsets aligned with the elements of the set.
+     * @param counts   The number of elements of the set in each feature.
+     */
+    public PropPackedCoverage(SetVar set, long[][] features, IntVar[] counts) {
+        super(
+                Stream.concat(Stream.of(set), Stream.of(counts)).toArray(Variable[]::new),
+                PropagatorPriority.LINEAR,
+                false
+        );
+        assert features.length == counts.length;
+        this.set = set;
+        this.features = features;
+        this.counts = counts;
+        int nbWords = 0;
+        for (long[] feature : features) {
+            nbWords = Math.max(nbWords, feature.length);
+        }
+        this.lb = new long[nbWords];
+        this.ub = new long[nbWords];
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            PackedBits.pack(set.getLB(), lb);
+            PackedBits.pack(set.getUB(), ub);
+            for (int f = 0; f < features.length; f++) {
+                long[] feature = features[f];
+                int min = PackedBits.andCount(feature, lb);
+                int max = PackedBits.andCount(feature, ub);
+                counts[f].updateBounds(min, max, this);
+                if (min < max) {
+                    if (max == counts[f].getLB()) {
+                        // Every potential element of the feature is needed
+                        fixUndecided(feature, true);
+                        changed = true;
+                    } else if (min == counts[f].getUB()) {
+                        // No more element of the feature can be taken
+                        fixUndecided(feature, false);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Forces (or removes) the elements of a feature which are in the upper bound of the set but not in its lower
+     * bound.
+     */
+    private void fixUndecided(long[] feature, boolean force) throws ContradictionException {
+        for (int w = 0; w < feature.length; w++) {
+            long bits = feature[w] & ub[w] & ~lb[w];
+            while (bits != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (force) {
+                    set.force(i, this);
+                } else {
+                    set.remove(i, this);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        long[] lb = PackedBits.pack(set.getLB(), new long[this.lb.length]);
+        long[] ub = PackedBits.pack(set.getUB(), new long[this.ub.length]);
+        boolean entailed = true;
+        for (int f = 0; f < features.length; f++) {
+            int min = PackedBits.andCount(features[f], lb);
+            int max = PackedBits.andCount(features[f], ub);
+            if (min > counts[f].getUB() || max < counts[f].getLB()) {
+                return ESat.FALSE;
+            }
+            entailed &= min == max && counts[f].isInstantiated();
+        }
+        return entailed ? ESat.TRUE : ESat.UNDEFINED;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.constraints.choco;
+
+import org.chocosolver.solver.constraints.Propagator;
+import org.chocosolver.solver.constraints.PropagatorPriority;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.SetVar;
+import org.chocosolver.solver.variables.Variable;
+import org.chocosolver.util.ESat;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+
+/**
+ * Sparse sumElements: sum = sum(values[k] | sites[k] in set). Only the given sites are visited, the cost of the
+ * propagation thus depends on the number of sites with a non-zero value instead of the size of the set universe.
+ */
+public class PropSparseSumElements extends Propagator<Variable> {
+
+    private SetVar set;
+    private int[] sites;
+    private int[] values;
+    private IntVar sum;
+
+    /**
+     * @param set    The set variable.
+     * @param sites  The elements with a non-zero value.
+     * @param values The values of the elements.
+     * @param sum    The sum of the values of the elements in the set.
+     */
+    public PropSparseSumElements(SetVar set, int[] sites, int[] values, IntVar sum) {
+        super(new Variable[]{set, sum}, PropagatorPriority.LINEAR, false);
+        assert sites.length == values.length;
+        this.set = set;
+        this.sites = sites;
+        this.values = values;
+        this.sum = sum;
+    }
+
+    /**
+     * @return The minimum and maximum sums reachable from the current set bounds.
+     */
+    private int[] bounds(ISet lb, ISet ub) {
+        int min = 0;
+        int max = 0;
+        for (int k = 0; k < sites.length; k++) {
+            if (lb.contains(sites[k])) {
+                min += values[k];
+                max += values[k];
+            } else if (ub.contains(sites[k])) {
+                if (values[k] < 0) {
+                    min += values[k];
+                } else {
+                    max += values[k];
+                }
+            }
+        }
+        return new int[]{min, max};
+    }
+
+    @Override
+    public void propagate(int evtmask) throws ContradictionException {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            ISet lb = set.getLB();
+            ISet ub = set.getUB();
+            int[] bounds = bounds(lb, ub);
+            int min = bounds[0];
+            int max = bounds[1];
+            sum.updateBounds(min, max, this);
+            for (int k = 0; k < sites.length; k++) {
+                int v = values[k];
+                if (!lb.contains(sites[k]) && ub.contains(sites[k])) {
+                    // Including the site moves the bound of its sign, excluding it moves the other one
+                    int minIn = v > 0 ? min + v : min;
+                    int maxIn = v < 0 ? max + v : max;
+                    int minOut = v < 0 ? min - v : min;
+                    int maxOut = v > 0 ? max - v : max;
+                    if (minIn > sum.getUB() || maxIn < sum.getLB()) {
+                        set.remove(sites[k], this);
+                        changed = true;
+                    } else if (minOut > sum.getUB() || maxOut < sum.getLB()) {
+                        set.force(sites[k], this);
+                        changed = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public ESat isEntailed() {
+        ISet lb = set.getLB();
+        ISet ub = set.getUB();
+        int[] bounds = bounds(lb, ub);
+        int min = bounds[0];
+        int max = bounds[1];
+        if (min > sum.getUB() || max < sum.getLB()) {
+            return ESat.FALSE;
+        }
+        if (min == max && sum.isInstantiated()) {
+            return ESat.TRUE;
+        }
+        return ESat.UNDEFINED;
+    }
+}
@@ -23,8 +23,8 @@
 
 package chocoreserve.solver.constraints.choco.connectivity;
 
+import chocoreserve.grid.Grid;
 import chocoreserve.grid.neighborhood.INeighborhood;
-import chocoreserve.grid.regular.square.RegularSquareGrid;
 import chocoreserve.solver.variable.SpatialGraphVar;
 import chocoreserve.util.objects.graphs.UndirectedGraphDecrementalFromSubgraph;
 import chocoreserve.util.objects.graphs.UndirectedGraphIncrementalCC;
@@ -48,9 +48,9 @@ public class PropIIC extends Propagator<Variable> {
     protected IntVar iic;
     protected int landscapeArea;
     protected int precision;
-    protected RegularSquareGrid grid;
+    protected Grid grid;
     protected INeighborhood threshold;
-    public int[][] threshNeigh;
+    private int[] neighBuffer;
     private boolean maximize;
 
     /**
@@ -62,12 +62,12 @@ public class PropIIC extends Propagator<Variable> {
     public PropIIC(SpatialGraphVar g, IntVar iic, int landscapeArea, INeighborhood distanceThreshold, int precison, boolean maximize) {
         super(new Variable[] {g, iic}, PropagatorPriority.QUADRATIC, false);
         this.g = g;
-        this.grid = (RegularSquareGrid) g.getGrid();
+        this.grid = g.getGrid();
         this.iic = iic;
         this.landscapeArea = landscapeArea;
         this.precision = precison;
         this.threshold = distanceThreshold;
-        this.threshNeigh = new int[grid.getNbCells()][];
+        this.neighBuffer = new int[distanceThreshold.getMaxNbNeighbors(grid)];
         this.maximize = maximize;
     }
 
@@ -142,10 +142,9 @@ public class PropIIC extends Propagator<Variable> {
             int nAdj = 0;
             int[] cc = ccs[i];
             for (int node : cc) {
-                if (threshNeigh[node] == null) {
-                    threshNeigh[node] = threshold.getNeighbors(grid, node).toArray();
-                }
-                for (int j : threshNeigh[node]) {
+                int nbNeighbors = threshold.fillNeighbors(grid, node, neighBuffer);
+                for (int n = 0; n < nbNeighbors; n++) {
+                    int j = neighBuffer[n];
                     if (nodeCC[j] != i && g.getPotentialNodes().contains(j)) {
                         if (!conn[nodeCC[j]]) {
                             conn[nodeCC[j]] = true;
@@ -173,10 +172,9 @@ public class PropIIC extends Propagator<Variable> {
             int nAdj = 0;
             int[] cc = ccs[i];
             for (int node : cc) {
-                if (threshNeigh[node] == null) {
-                    threshNeigh[node] = threshold.getNeighbors(grid, node).toArray();
-                }
-                for (int j : threshNeigh[node]) {
+                int nbNeighbors = threshold.fillNeighbors(grid, node, neighBuffer);
+                for (int n = 0; n < nbNeighbors; n++) {
+                    int j = neighBuffer[n];
                     if (nodeCC[j] != i && g.getMandatoryNodes().contains(j)) {
                         if (!conn[nodeCC[j]]) {
                             conn[nodeCC[j]] = true;
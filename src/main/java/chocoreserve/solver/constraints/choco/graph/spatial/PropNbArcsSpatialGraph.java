@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.constraints.choco.graph.spatial;
 
+import chocoreserve.grid.neighborhood.CompiledNeighborhood;
 import chocoreserve.solver.variable.SpatialGraphVar;
 import org.chocosolver.memory.IStateInt;
 import org.chocosolver.solver.constraints.Propagator;
@@ -52,6 +53,7 @@ public class PropNbArcsSpatialGraph extends Propagator<Variable> {
 
     protected SpatialGraphVar g;
     protected IntVar k;
+    private CompiledNeighborhood neighborhood;
     private ISetDeltaMonitor sdm;
     private IntProcedure elementForced, elementRemoved;
     private IStateInt nbK, nbE;
@@ -66,6 +68,7 @@ public class PropNbArcsSpatialGraph extends Propagator<Variable> {
         super(new Variable[]{graph, k}, PropagatorPriority.LINEAR, false);
         this.g = graph;
         this.k = k;
+        this.neighborhood = g.getGrid().getCompiledNeighborhood(g.getNeighborhood());
         this.sdm = g.monitorDelta(this);
         this.nbK = getModel().getEnvironment().makeInt(0);
         this.nbE = getModel().getEnvironment().makeInt(0);
@@ -107,10 +110,12 @@ public class PropNbArcsSpatialGraph extends Propagator<Variable> {
 
         int removedEdges = 0;
         int edgesBetweenRemoved = 0;
+        int[] offsets = neighborhood.getOffsets();
+        int[] targets = neighborhood.getTargets();
         for (int i : removed) {
-            ISet nei = g.getNeighborhood().getNeighbors(g.getGrid(), i);
-            removedEdges += nei.size();
-            for (int j : nei) {
+            removedEdges += offsets[i + 1] - offsets[i];
+            for (int n = offsets[i]; n < offsets[i + 1]; n++) {
+                int j = targets[n];
                 if (!g.getPotentialNodes().contains(j)) {
                     removedEdges -= 1;
                 }
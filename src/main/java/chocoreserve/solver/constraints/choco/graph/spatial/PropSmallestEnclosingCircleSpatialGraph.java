@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.constraints.choco.graph.spatial;
 
+import chocoreserve.grid.CoordinateStore;
 import chocoreserve.solver.variable.SpatialGraphVar;
 import org.chocosolver.solver.constraints.Propagator;
 import org.chocosolver.solver.constraints.PropagatorPriority;
@@ -33,10 +34,8 @@ import org.chocosolver.util.ESat;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Arrays;
+import java.util.Random;
 
 /**
  *
@@ -46,8 +45,9 @@ public class PropSmallestEnclosingCircleSpatialGraph extends Propagator<Variable
     public final static double EPSILON = 1e-5;
 
     private SpatialGraphVar g;
-    private double[][] coordinates;
+    private CoordinateStore coordinates;
     private RealVar radius, centerX, centerY;
+    private Random random = new Random();
 
     public PropSmallestEnclosingCircleSpatialGraph(SpatialGraphVar g, RealVar radius, RealVar centerX, RealVar centerY) {
         super(new Variable[]{g, radius, centerX, centerY},
@@ -55,7 +55,7 @@ public class PropSmallestEnclosingCircleSpatialGraph extends Propagator<Variable
                 false
         );
         this.g = g;
-        this.coordinates = g.getGrid().getCartesianCoordinates();
+        this.coordinates = g.getGrid().getCoordinateStore();
         this.radius = radius;
         this.centerX = centerX;
         this.centerY = centerY;
@@ -103,20 +103,17 @@ public class PropSmallestEnclosingCircleSpatialGraph extends Propagator<Variable
             return;
         }
         if (ker.size() > 0) {
-            double[] minidisk = minidisk(ker);
-            double[] cker = new double[]{minidisk[0], minidisk[1]};
+            int[] kerPoints = ker.toArray();
+            double[] minidisk = minidisk(kerPoints);
             double rker = minidisk[2];
             if (rker > (radius.getUB() + radius.getPrecision())) {
                 fails();
             }
             for (int i : getEnvelopeMinusKernelPoints()) {
-                if (distance(cker, coordinates[i]) > rker) {
-                    ISet s = SetFactory.makeBitSet(0);
-                    for (int e : ker) {
-                        s.add(e);
-                    }
-                    s.add(i);
-                    double[] b_disk = minidisk(s);
+                if (coordinates.distance(i, minidisk[0], minidisk[1]) > rker) {
+                    int[] points = Arrays.copyOf(kerPoints, kerPoints.length + 1);
+                    points[kerPoints.length] = i;
+                    double[] b_disk = minidisk(points);
                     if (b_disk[2] > (radius.getUB() + radius.getPrecision())) {
                         g.removeNode(i, this);
                     }
@@ -177,118 +174,90 @@ public class PropSmallestEnclosingCircleSpatialGraph extends Propagator<Variable
     // See: Emo Welzl, "Smallest enclosing disks (balls and ellispsoids)", 1991. //
     // ------------------------------------------------------------------------- //
 
+    private double[] minidisk(ISet points) {
+        return minidisk(points.toArray());
+    }
+
     /**
      * @param points Indexes of the points.
      * @return The smallest enclosing circle as new double[] {cx, cy, radius}.
      */
-    private double[] minidisk(ISet points) {
-        int nbPoints = points.size();
+    private double[] minidisk(int[] points) {
+        int nbPoints = points.length;
         if (nbPoints == 0) {
             return new double[]{};
         }
         if (nbPoints == 1) {
-            double[] center = coordinates[points.iterator().next()];
-            return new double[]{center[0], center[1], EPSILON};
+            return new double[]{coordinates.getX(points[0]), coordinates.getY(points[0]), EPSILON};
         }
         if (nbPoints == 2) {
-            double[] p1 = coordinates[points.iterator().next()];
-            double[] p2 = coordinates[points.iterator().next()];
-            double[] center = midpoint(p1, p2);
-            return new double[]{center[0], center[1], (distance(p1, p2) / 2) + EPSILON};
+            return diametralCircle(points[0], points[1]);
         }
         // Shuffle the points
-        List<Integer> shuffled = IntStream.of(points.toArray()).boxed().collect(Collectors.toList());
-        Collections.shuffle(shuffled);
+        int[] shuffled = points.clone();
+        for (int i = nbPoints - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
         // First circle (with the two first points)
-        double[] p1 = coordinates[shuffled.get(0)];
-        double[] p2 = coordinates[shuffled.get(1)];
-        double[] center = midpoint(p1, p2);
-        double r = (distance(p1, p2) / 2) + EPSILON;
+        double[] circle = diametralCircle(shuffled[0], shuffled[1]);
         // Check other points
-        for (int i = 2; i < shuffled.size(); i++) {
-            double[] pi = coordinates[shuffled.get(i)];
-            if (distance(center, pi) > r) {
+        for (int i = 2; i < nbPoints; i++) {
+            if (coordinates.distance(shuffled[i], circle[0], circle[1]) > circle[2]) {
                 // Find circle with pi in the border
-                double[] circle = b_minidisk_one(shuffled, i);
-                center[0] = circle[0];
-                center[1] = circle[1];
-                r = circle[2];
+                circle = b_minidisk_one(shuffled, i);
             }
         }
-        return new double[]{center[0], center[1], r};
+        return circle;
     }
 
-    private double[] b_minidisk_one(List<Integer> shuffled, int i) {
-        double[] p1 = coordinates[shuffled.get(0)];
-        double[] pi = coordinates[shuffled.get(i)];
-        double[] center = midpoint(p1, pi);
-        double r = (distance(p1, pi) / 2) + EPSILON;
+    private double[] b_minidisk_one(int[] shuffled, int i) {
+        double[] circle = diametralCircle(shuffled[0], shuffled[i]);
         // Check whether previous points are included in this new circle
         for (int j = 1; j < i; j++) {
-            double[] pj = coordinates[shuffled.get(j)];
-            if (distance(center, pj) > r) {
-                double[] circle = b_minidisk_two(shuffled, i, j);
-                center[0] = circle[0];
-                center[1] = circle[1];
-                r = circle[2];
+            if (coordinates.distance(shuffled[j], circle[0], circle[1]) > circle[2]) {
+                circle = b_minidisk_two(shuffled, i, j);
             }
         }
-        return new double[]{center[0], center[1], r};
+        return circle;
     }
 
-    private double[] b_minidisk_two(List<Integer> shuffled, int i, int j) {
-        double[] pi = coordinates[shuffled.get(i)];
-        double[] pj = coordinates[shuffled.get(j)];
-        double[] center = midpoint(pi, pj);
-        double r = (distance(pi, pj) / 2) + EPSILON;
+    private double[] b_minidisk_two(int[] shuffled, int i, int j) {
+        double[] circle = diametralCircle(shuffled[i], shuffled[j]);
         // Check whether previous points are included in this new circle
         for (int k = 0; k < j; k++) {
-            double[] pk = coordinates[shuffled.get(k)];
-            if (distance(center, pk) > r) {
-                double[] circle = circumcircle(pi, pj, pk);
-                center[0] = circle[0];
-                center[1] = circle[1];
-                r = circle[2];
+            if (coordinates.distance(shuffled[k], circle[0], circle[1]) > circle[2]) {
+                circle = circumcircle(shuffled[i], shuffled[j], shuffled[k]);
             }
         }
-        return new double[]{center[0], center[1], r};
-    }
-
-    /**
-     * @return The coordinates of the vector (p1, p2)
-     */
-    private static double[] vector(double[] p1, double[] p2) {
-        return new double[]{p1[0] + p2[0], p1[1] + p2[1]};
-    }
-
-    /**
-     * @return The midpoint of the segment (p1, p2)
-     */
-    private static double[] midpoint(double[] p1, double[] p2) {
-        double[] v = vector(p1, p2);
-        return new double[]{v[0] / 2, v[1] / 2};
+        return circle;
     }
 
     /**
-     * @return The distance between p1 and p2
+     * @return The circle whose diameter is the segment (a, b).
      */
-    private static double distance(double[] p1, double[] p2) {
-        return Math.sqrt(Math.pow(p1[0] - p2[0], 2) + Math.pow(p1[1] - p2[1], 2));
+    private double[] diametralCircle(int a, int b) {
+        double cx = (coordinates.getX(a) + coordinates.getX(b)) / 2;
+        double cy = (coordinates.getY(a) + coordinates.getY(b)) / 2;
+        return new double[]{cx, cy, (coordinates.distance(a, b) / 2) + EPSILON};
     }
 
     /**
      * @return The circumcircle of the triangle (a, b, c).
      */
-    private static double[] circumcircle(double[] a, double[] b, double[] c) {
-        double d = 2 * (a[0] * (b[1] - c[1]) + b[0] * (c[1] - a[1]) + c[0] * (a[1] - b[1]));
-        double cx = ((Math.pow(a[0], 2) + Math.pow(a[1], 2)) * (b[1] - c[1])
-                + (Math.pow(b[0], 2) + Math.pow(b[1], 2)) * (c[1] - a[1])
-                + (Math.pow(c[0], 2) + Math.pow(c[1], 2)) * (a[1] - b[1])) / d;
-        double cy = ((Math.pow(a[0], 2) + Math.pow(a[1], 2)) * (c[0] - b[0])
-                + (Math.pow(b[0], 2) + Math.pow(b[1], 2)) * (a[0] - c[0])
-                + (Math.pow(c[0], 2) + Math.pow(c[1], 2)) * (b[0] - a[0])) / d;
-        double cr = distance(new double[]{cx, cy}, a) + EPSILON;
-        return new double[]{cx, cy, cr};
+    private double[] circumcircle(int a, int b, int c) {
+        double ax = coordinates.getX(a), ay = coordinates.getY(a);
+        double bx = coordinates.getX(b), by = coordinates.getY(b);
+        double cx = coordinates.getX(c), cy = coordinates.getY(c);
+        double d = 2 * (ax * (by - cy) + bx * (cy - ay) + cx * (ay - by));
+        double a2 = ax * ax + ay * ay;
+        double b2 = bx * bx + by * by;
+        double c2 = cx * cx + cy * cy;
+        double x = (a2 * (by - cy) + b2 * (cy - ay) + c2 * (ay - by)) / d;
+        double y = (a2 * (cx - bx) + b2 * (ax - cx) + c2 * (bx - ax)) / d;
+        return new double[]{x, y, coordinates.distance(a, x, y) + EPSILON};
     }
 
 }
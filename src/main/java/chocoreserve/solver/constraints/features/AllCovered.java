@@ -27,10 +27,9 @@ import chocoreserve.solver.ReserveModel;
 import chocoreserve.solver.feature.BinaryFeature;
 import chocoreserve.solver.feature.Feature;
 import chocoreserve.solver.region.AbstractRegion;
+import chocoreserve.util.PackedBits;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * All known occurrences of each feature must be covered.
@@ -46,22 +45,20 @@ public class AllCovered extends FeaturesConstraint {
 
     @Override
     public void post() {
-        Set<Integer> mandatorySites = new HashSet<>();
+        long[] mandatorySites = new long[PackedBits.nbWords(reserveModel.getGrid().getNbCells())];
         for (Feature f : features) {
-            BinaryFeature bf = (BinaryFeature) f;
             try {
-                for (int i = 0; i < bf.getBinaryData().length; i++) {
-                    if (bf.getBinaryData()[i] >= 1) {
-                        mandatorySites.add(i);
-                    }
+                long[] packed = ((BinaryFeature) f).getPackedBinaryData();
+                for (int w = 0; w < packed.length; w++) {
+                    mandatorySites[w] |= packed[w];
                 }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-        for (int i : mandatorySites) {
+        for (int i = PackedBits.nextSetBit(mandatorySites, 0); i >= 0; i = PackedBits.nextSetBit(mandatorySites, i + 1)) {
             reserveModel.getChocoModel().member(i, region.getSetVar()).post();
         }
-        System.out.println("Mandatory: " + mandatorySites.size());
+        System.out.println("Mandatory: " + PackedBits.count(mandatorySites));
     }
 }
@@ -24,8 +24,11 @@
 package chocoreserve.solver.constraints.features;
 
 import chocoreserve.solver.ReserveModel;
+import chocoreserve.solver.constraints.choco.PropSparseSumElements;
 import chocoreserve.solver.feature.QuantitativeFeature;
+import chocoreserve.solver.feature.sparse.SparseQuantitativeFeature;
 import chocoreserve.solver.region.AbstractRegion;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.IntVar;
 
 import java.io.IOException;
@@ -45,10 +48,12 @@ public class QuantityCoverage extends FeaturesConstraint {
         this.region = region;
         this.feature = feature;
         try {
+            int[] quantities = feature instanceof SparseQuantitativeFeature ?
+                    ((SparseQuantitativeFeature) feature).getValues() : feature.getQuantitativeData();
             this.N = chocoModel.intVar(
                     "qty_" + feature.getName(),
                     0,
-                    Arrays.stream(feature.getQuantitativeData()).sum()
+                    Arrays.stream(quantities).sum()
             );
         } catch (IOException e) {
             e.printStackTrace();
@@ -57,6 +62,12 @@ public class QuantityCoverage extends FeaturesConstraint {
 
     @Override
     public void post() {
+        if (feature instanceof SparseQuantitativeFeature) {
+            SparseQuantitativeFeature f = (SparseQuantitativeFeature) feature;
+            chocoModel.post(new Constraint("sparseSumElements_" + f.getName(),
+                    new PropSparseSumElements(region.getSetVar(), f.getSites(), f.getValues(), N)));
+            return;
+        }
         try {
             chocoModel.sumElements(region.getSetVar(), feature.getQuantitativeData(), N).post();
         } catch (IOException e) {
@@ -24,12 +24,19 @@
 package chocoreserve.solver.constraints.features;
 
 import chocoreserve.solver.ReserveModel;
+import chocoreserve.solver.constraints.choco.PropPackedCoverage;
+import chocoreserve.solver.constraints.choco.PropSparseSumElements;
 import chocoreserve.solver.feature.BinaryFeature;
 import chocoreserve.solver.feature.Feature;
+import chocoreserve.solver.feature.sparse.SparseBinaryFeature;
 import chocoreserve.solver.region.AbstractRegion;
+import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.IntVar;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  *
@@ -48,15 +55,35 @@ public class RedundantFeatures extends FeaturesConstraint {
     }
 
 
+    /**
+     * Sparse features get their own propagator, visiting their occurrence sites only. The other ones are packed
+     * into bitsets and share a single propagator counting their covered sites 64 cells at a time.
+     */
     @Override
     public void post() {
+        List<long[]> packed = new ArrayList<>();
+        List<IntVar> counts = new ArrayList<>();
         for (int i = 0; i < features.length; i++) {
             try {
-                int[] coeffs = ((BinaryFeature) features[i]).getBinaryData();
-                chocoModel.sumElements(region.getSetVar(), coeffs, N[i]).post();
+                if (features[i] instanceof SparseBinaryFeature) {
+                    SparseBinaryFeature f = (SparseBinaryFeature) features[i];
+                    int[] coeffs = Arrays.stream(f.getValues()).map(v -> v >= 1 ? 1 : 0).toArray();
+                    chocoModel.post(new Constraint("sparseSumElements_" + f.getName(),
+                            new PropSparseSumElements(region.getSetVar(), f.getSites(), coeffs, N[i])));
+                } else {
+                    packed.add(((BinaryFeature) features[i]).getPackedBinaryData());
+                    counts.add(N[i]);
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+        if (packed.size() > 0) {
+            chocoModel.post(new Constraint("packedCoverage_" + region.getName(), new PropPackedCoverage(
+                    region.getSetVar(),
+                    packed.toArray(new long[0][]),
+                    counts.toArray(new IntVar[0])
+            )));
+        }
     }
 }
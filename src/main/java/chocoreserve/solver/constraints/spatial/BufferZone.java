@@ -24,6 +24,7 @@
 package chocoreserve.solver.constraints.spatial;
 
 import chocoreserve.grid.Grid;
+import chocoreserve.grid.neighborhood.CompiledNeighborhood;
 import chocoreserve.grid.neighborhood.INeighborhood;
 import chocoreserve.grid.neighborhood.Neighborhoods;
 import chocoreserve.solver.ReserveModel;
@@ -65,10 +66,9 @@ public class BufferZone extends SpatialConstraint {
     public void post() {
         Grid grid = reserveModel.getGrid();
         int nbCells = grid.getNbCells();
+        CompiledNeighborhood compiled = grid.getCompiledNeighborhood(neighborhood);
         int[][] adjLists = new int[nbCells][];
-        int[][] adjLists2 = new int[nbCells][];
-        IntStream.range(0, nbCells).forEach(i -> adjLists[i] = neighborhood.getNeighbors(grid, i).toArray());
-        IntStream.range(0, nbCells).forEach(i -> adjLists2[i] = neighborhood.getNeighbors(grid, i).toArray());
+        IntStream.range(0, nbCells).forEach(i -> adjLists[i] = compiled.getNeighborsArray(i));
         Constraint consNeighSet1 = new Constraint(
                 "consNeighSet1",
                 new PropNeighbors(region1.getSetVar(), neighSet1, adjLists)
@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.constraints.spatial;
 
+import chocoreserve.grid.CoordinateStore;
 import chocoreserve.solver.ReserveModel;
 import chocoreserve.solver.constraints.choco.PropSmallestEnclosingCircle;
 import chocoreserve.solver.region.AbstractRegion;
@@ -30,8 +31,6 @@ import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.BoolVar;
 import org.chocosolver.solver.variables.RealVar;
 
-import java.util.Arrays;
-
 /**
  *
  */
@@ -41,10 +40,15 @@ public class Radius extends SpatialConstraint {
     public RealVar radius;
     public RealVar centerX;
     public RealVar centerY;
-    public double[][] coordinates;
+    public CoordinateStore coordinates;
 
     public Radius(ReserveModel reserveModel, AbstractRegion region, double[][] coordinates, RealVar radius,
                   RealVar centerX, RealVar centerY) {
+        this(reserveModel, region, CoordinateStore.of(coordinates), radius, centerX, centerY);
+    }
+
+    public Radius(ReserveModel reserveModel, AbstractRegion region, CoordinateStore coordinates, RealVar radius,
+                  RealVar centerX, RealVar centerY) {
         super(reserveModel);
         this.region = region;
         this.radius = radius;
@@ -57,20 +61,16 @@ public class Radius extends SpatialConstraint {
         this(
                 reserveModel,
                 region,
-                reserveModel.getGrid().getCartesianCoordinates(),
+                reserveModel.getGrid().getCoordinateStore(),
                 radius,
                 reserveModel.getChocoModel().realVar(
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[0]).min().getAsDouble(),
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[0]).max().getAsDouble(),
+                        reserveModel.getGrid().getCoordinateStore().getMinX(),
+                        reserveModel.getGrid().getCoordinateStore().getMaxX(),
                         1e-5
                 ),
                 reserveModel.getChocoModel().realVar(
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[1]).min().getAsDouble(),
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[1]).max().getAsDouble(),
+                        reserveModel.getGrid().getCoordinateStore().getMinY(),
+                        reserveModel.getGrid().getCoordinateStore().getMaxY(),
                         1e-5
                 )
         );
@@ -29,8 +29,6 @@ import chocoreserve.solver.region.AbstractRegion;
 import org.chocosolver.solver.constraints.Constraint;
 import org.chocosolver.solver.variables.RealVar;
 
-import java.util.Arrays;
-
 /**
  *
  */
@@ -56,17 +54,13 @@ public class RadiusSpatialGraph extends SpatialConstraint {
                 region,
                 radius,
                 reserveModel.getChocoModel().realVar(
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[0]).min().getAsDouble(),
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[0]).max().getAsDouble(),
+                        reserveModel.getGrid().getCoordinateStore().getMinX(),
+                        reserveModel.getGrid().getCoordinateStore().getMaxX(),
                         1e-5
                 ),
                 reserveModel.getChocoModel().realVar(
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[1]).min().getAsDouble(),
-                        Arrays.stream(reserveModel.getGrid().getCartesianCoordinates())
-                                .mapToDouble(c -> c[1]).max().getAsDouble(),
+                        reserveModel.getGrid().getCoordinateStore().getMinY(),
+                        reserveModel.getGrid().getCoordinateStore().getMaxY(),
                         1e-5
                 )
         );
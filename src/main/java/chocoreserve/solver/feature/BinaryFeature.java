@@ -23,6 +23,8 @@
 
 package chocoreserve.solver.feature;
 
+import chocoreserve.util.PackedBits;
+
 import java.io.IOException;
 
 /**
@@ -34,4 +36,12 @@ public interface BinaryFeature extends Feature {
      * @return The data associated with the feature as binary data.
      */
     int[] getBinaryData() throws IOException;
+
+    /**
+     * @return The binary data as a bitset packed in a long array, aligned with the cell indices: the bit i is the bit
+     * (i % 64) of the word (i / 64).
+     */
+    default long[] getPackedBinaryData() throws IOException {
+        return PackedBits.pack(getBinaryData());
+    }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature;
+
+import chocoreserve.solver.ReserveModel;
+import chocoreserve.solver.feature.sparse.SparseFeature;
+import chocoreserve.util.Parallel;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Dense site-by-feature matrix, stored in a single site-major array: the value of the feature f in the site i is
+ * values[i * nbFeatures + f]. The features of a site are thus contiguous, and every kernel is a tight loop over
+ * primitive values. Kernels work row block by row block, in parallel if the parallelism is greater than one.
+ *
+ * The kernels threshold, weight and normalizeByRarity modify the matrix in place, use copy() to keep the original.
+ */
+public class FeatureMatrix {
+
+    /**
+     * The number of sites in a block of rows processed by a single task.
+     */
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * The maximum number of values of a matrix (the largest Java array that can be safely allocated). Once the size
+     * is checked, every index (site * nbFeatures + feature) fits in an int.
+     */
+    public static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private final String[] names;
+    private final int nbSites;
+    private final int nbFeatures;
+    private final double[] values;
+    private int parallelism;
+
+    /**
+     * @param nbSites  The number of sites.
+     * @param features The features, in column order.
+     */
+    public FeatureMatrix(int nbSites, Feature... features) throws IOException {
+        this.nbSites = nbSites;
+        this.nbFeatures = features.length;
+        this.names = new String[nbFeatures];
+        this.values = new double[checkSize(nbSites, nbFeatures)];
+        this.parallelism = 1;
+        for (int f = 0; f < nbFeatures; f++) {
+            names[f] = features[f].getName();
+            if (features[f] instanceof SparseFeature) {
+                SparseFeature sparse = (SparseFeature) features[f];
+                int[] sites = sparse.getSites();
+                int[] data = sparse.getValues();
+                for (int k = 0; k < sites.length && sites[k] < nbSites; k++) {
+                    values[sites[k] * nbFeatures + f] = data[k];
+                }
+            } else {
+                double[] data = features[f].getData();
+                for (int i = 0; i < nbSites; i++) {
+                    values[i * nbFeatures + f] = data[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @param nbSites    The number of sites.
+     * @param nbFeatures The number of features.
+     * @return The number of values of the matrix.
+     * @throws IllegalArgumentException If the matrix is too large to be stored in a single array.
+     */
+    private static int checkSize(int nbSites, int nbFeatures) {
+        long size = (long) nbSites * nbFeatures;
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("A matrix of " + nbSites + " sites and " + nbFeatures + " features ("
+                    + size + " values) cannot be stored in a single array, use fewer features at a time");
+        }
+        return (int) size;
+    }
+
+    /**
+     * @param nbSites  The number of sites.
+     * @param features The features, in column order.
+     */
+    public FeatureMatrix(int nbSites, Collection<? extends Feature> features) throws IOException {
+        this(nbSites, features.toArray(new Feature[0]));
+    }
+
+    /**
+     * @param reserveModel A reserve model.
+     * @return The matrix of the features of the model, over the sites of its grid.
+     */
+    public static FeatureMatrix of(ReserveModel<?> reserveModel) throws IOException {
+        return new FeatureMatrix(reserveModel.getGrid().getNbCells(), reserveModel.getFeatures().values());
+    }
+
+    private FeatureMatrix(FeatureMatrix other) {
+        this.nbSites = other.nbSites;
+        this.nbFeatures = other.nbFeatures;
+        this.names = other.names;
+        this.values = other.values.clone();
+        this.parallelism = other.parallelism;
+    }
+
+    /**
+     * @return A copy of the matrix.
+     */
+    public FeatureMatrix copy() {
+        return new FeatureMatrix(this);
+    }
+
+    /**
+     * @param parallelism The number of threads used by the kernels (1 for a sequential computation).
+     * @return this.
+     */
+    public FeatureMatrix setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getNbSites() {
+        return nbSites;
+    }
+
+    public int getNbFeatures() {
+        return nbFeatures;
+    }
+
+    /**
+     * @return The names of the features, in column order.
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * @param name The name of a feature.
+     * @return The column of the feature, -1 if it is not in the matrix.
+     */
+    public int getFeatureIndex(String name) {
+        for (int f = 0; f < nbFeatures; f++) {
+            if (names[f].equals(name)) {
+                return f;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The site-major values of the matrix. Must not be modified.
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    public double getValue(int site, int feature) {
+        return values[site * nbFeatures + feature];
+    }
+
+    private interface BlockKernel {
+        void apply(int block, int from, int to);
+    }
+
+    private int nbBlocks() {
+        return (nbSites + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    private void forEachBlock(BlockKernel kernel) {
+        Parallel.parallelFor(nbBlocks(), parallelism, b -> {
+            int from = b * BLOCK_SIZE;
+            kernel.apply(b, from * nbFeatures, Math.min(nbSites, from + BLOCK_SIZE) * nbFeatures);
+        });
+    }
+
+    /**
+     * Sets to 0 every value lower than the threshold.
+     *
+     * @param threshold The threshold.
+     * @return this.
+     */
+    public FeatureMatrix threshold(double threshold) {
+        forEachBlock((b, from, to) -> {
+            for (int k = from; k < to; k++) {
+                values[k] = values[k] >= threshold ? values[k] : 0;
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Multiplies each feature by a weight.
+     *
+     * @param weights The weights, in column order.
+     * @return this.
+     */
+    public FeatureMatrix weight(double[] weights) {
+        assert weights.length == nbFeatures;
+        forEachBlock((b, from, to) -> {
+            for (int k = from; k < to; k += nbFeatures) {
+                for (int f = 0; f < nbFeatures; f++) {
+                    values[k + f] *= weights[f];
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Divides each feature by its total over all sites, such that rare features weigh more than widespread ones.
+     * Features whose total is 0 are left unchanged.
+     *
+     * @return this.
+     */
+    public FeatureMatrix normalizeByRarity() {
+        double[] totals = featureTotals();
+        double[] inverses = new double[nbFeatures];
+        for (int f = 0; f < nbFeatures; f++) {
+            inverses[f] = totals[f] == 0 ? 1 : 1 / totals[f];
+        }
+        return weight(inverses);
+    }
+
+    /**
+     * @return For each site, the sum of the values of its features.
+     */
+    public double[] siteScores() {
+        double[] scores = new double[nbSites];
+        forEachBlock((b, from, to) -> {
+            for (int k = from, i = b * BLOCK_SIZE; k < to; k += nbFeatures, i++) {
+                double s = 0;
+                for (int f = 0; f < nbFeatures; f++) {
+                    s += values[k + f];
+                }
+                scores[i] = s;
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * Same as threshold(threshold).siteScores(), without modifying the matrix.
+     *
+     * @param threshold The threshold.
+     * @return For each site, the sum of the values of its features that are not lower than the threshold.
+     */
+    public double[] siteScores(double threshold) {
+        double[] scores = new double[nbSites];
+        forEachBlock((b, from, to) -> {
+            for (int k = from, i = b * BLOCK_SIZE; k < to; k += nbFeatures, i++) {
+                double s = 0;
+                for (int f = 0; f < nbFeatures; f++) {
+                    s += values[k + f] >= threshold ? values[k + f] : 0;
+                }
+                scores[i] = s;
+            }
+        });
+        return scores;
+    }
+
+    /**
+     * @return For each feature, the sum of its values over all sites.
+     */
+    public double[] featureTotals() {
+        double[][] partial = new double[nbBlocks()][nbFeatures];
+        forEachBlock((b, from, to) -> {
+            double[] totals = partial[b];
+            for (int k = from; k < to; k += nbFeatures) {
+                for (int f = 0; f < nbFeatures; f++) {
+                    totals[f] += values[k + f];
+                }
+            }
+        });
+        double[] totals = new double[nbFeatures];
+        for (double[] p : partial) {
+            for (int f = 0; f < nbFeatures; f++) {
+                totals[f] += p[f];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * @param sites A set of sites, e.g. the sites of a region in a solution.
+     * @return For each feature, the sum of its values over the given sites.
+     */
+    public double[] featureTotals(ISet sites) {
+        double[] totals = new double[nbFeatures];
+        for (int i : sites) {
+            int k = i * nbFeatures;
+            for (int f = 0; f < nbFeatures; f++) {
+                totals[f] += values[k + f];
+            }
+        }
+        return totals;
+    }
+
+    @Override
+    public String toString() {
+        return "FeatureMatrix" + Arrays.toString(names) + " (" + nbSites + " sites)";
+    }
+}
@@ -23,15 +23,28 @@
 
 package chocoreserve.solver.feature;
 
+import chocoreserve.grid.regular.square.TiledLayer;
+import chocoreserve.raster.RasterWindow;
 import chocoreserve.solver.IReserveModel;
 import chocoreserve.solver.feature.array.BinaryArrayFeature;
 import chocoreserve.solver.feature.array.ProbabilisticArrayFeature;
 import chocoreserve.solver.feature.array.QuantitativeArrayFeature;
+import chocoreserve.solver.feature.band.BandBuffer;
+import chocoreserve.solver.feature.band.BinaryBandFeature;
+import chocoreserve.solver.feature.band.ProbabilisticBandFeature;
+import chocoreserve.solver.feature.band.QuantitativeBandFeature;
 import chocoreserve.solver.feature.raster.BinaryRasterFeature;
 import chocoreserve.solver.feature.raster.ProbabilisticRasterFeature;
 import chocoreserve.solver.feature.raster.QuantitativeRasterFeature;
+import chocoreserve.solver.feature.raster.RasterFeatureLoader;
+import chocoreserve.solver.feature.sparse.SparseBinaryFeature;
+import chocoreserve.solver.feature.sparse.SparseQuantitativeFeature;
+import chocoreserve.solver.feature.tiled.BinaryTiledFeature;
+import chocoreserve.solver.feature.tiled.ProbabilisticTiledFeature;
+import chocoreserve.solver.feature.tiled.QuantitativeTiledFeature;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Factory for easy feature instantiation.
@@ -56,13 +69,26 @@ public interface IFeatureFactory {
         return f;
     }
 
+    /**
+     * @param name  The name of the feature.
+     * @param sites The indices of the sites where the feature occurs.
+     * @return A sparse binary feature, only storing its occurrence sites.
+     */
+    default BinaryFeature sparseBinaryFeature(String name, int[] sites) {
+        BinaryFeature f = new SparseBinaryFeature(name, self().getGrid().getNbCells(), sites);
+        self().addFeature(f);
+        return f;
+    }
+
     /**
      * @param rasterFilePath The path to the raster file representing the feature.
-     * @return A binary feature from a raster file. The name of the feature will be the name of the file.
+     * @return A binary feature from a raster file. The name of the feature will be the name of the file. On regular
+     * square grids, the data is aligned with the cells of the grid (see RasterFeatureLoader.gridWindow).
      * @throws IOException
      */
     default BinaryFeature binaryFeature(String rasterFilePath) throws IOException {
-        BinaryFeature f = new BinaryRasterFeature(rasterFilePath);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        BinaryFeature f = new BinaryRasterFeature(rasterFilePath, window);
         self().addFeature(f);
         return f;
     }
@@ -74,11 +100,96 @@ public interface IFeatureFactory {
      * @throws IOException
      */
     default BinaryFeature binaryFeature(String name, String rasterFilePath) throws IOException {
-        BinaryFeature f = new BinaryRasterFeature(rasterFilePath, name);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        BinaryFeature f = new BinaryRasterFeature(rasterFilePath, name, window);
         self().addFeature(f);
         return f;
     }
 
+    /**
+     * @param layer The tiled grid layer storing the feature.
+     * @return A binary feature from a tiled grid layer. The name of the feature will be the name of the layer.
+     */
+    default BinaryFeature binaryFeature(TiledLayer layer) {
+        BinaryFeature f = new BinaryTiledFeature(layer);
+        self().addFeature(f);
+        return f;
+    }
+
+    /**
+     * @param buffer The band-interleaved buffer storing the features.
+     * @return One binary feature per band of the buffer.
+     * @throws IllegalArgumentException If the buffer does not store one value per cell of the grid.
+     */
+    default BinaryFeature[] binaryFeatures(BandBuffer buffer) {
+        buffer.checkNbSites(self().getGrid());
+        BinaryFeature[] features = new BinaryFeature[buffer.getNbBands()];
+        for (int k = 0; k < features.length; k++) {
+            features[k] = new BinaryBandFeature(buffer, k);
+            self().addFeature(features[k]);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @param bands          The indices of the bands to load (null for every band).
+     * @return One binary feature per selected band, all read in a single decode pass and aligned with the
+     * cells of the grid (see RasterFeatureLoader.gridWindow). The name of each feature is the name of the file followed
+     * by the band index.
+     * @throws IOException
+     */
+    default BinaryFeature[] binaryFeatures(String rasterFilePath, int[] bands) throws IOException {
+        return binaryFeatures(BandBuffer.readInts(rasterFilePath, bands, self().getGrid()));
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @return One binary feature per band of the raster, all read in a single decode pass.
+     * @throws IOException
+     */
+    default BinaryFeature[] binaryFeatures(String rasterFilePath) throws IOException {
+        return binaryFeatures(rasterFilePath, null);
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @param parallelism     The number of rasters decoded concurrently.
+     * @return One binary feature per raster file, in the order of the paths. The rasters are decoded
+     * concurrently and must match the dimensions of the grid.
+     * @throws IOException
+     */
+    default BinaryFeature[] binaryFeatures(List<String> rasterFilePaths, int parallelism) throws IOException {
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        List<BinaryRasterFeature> loaded = RasterFeatureLoader.load(
+                rasterFilePaths, self().getGrid(), parallelism, path -> new BinaryRasterFeature(path, window)
+        );
+        BinaryFeature[] features = loaded.toArray(new BinaryFeature[0]);
+        for (BinaryFeature f : features) {
+            self().addFeature(f);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @return One binary feature per raster file, decoded with one thread per available processor.
+     * @throws IOException
+     */
+    default BinaryFeature[] binaryFeatures(List<String> rasterFilePaths) throws IOException {
+        return binaryFeatures(rasterFilePaths, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param directory The directory containing the raster files.
+     * @param glob      A glob pattern on file names (e.g. "*.tif").
+     * @return One binary feature per matching raster file, in the alphabetical order of the paths.
+     * @throws IOException
+     */
+    default BinaryFeature[] binaryFeaturesFromDirectory(String directory, String glob) throws IOException {
+        return binaryFeatures(RasterFeatureLoader.glob(directory, glob));
+    }
+
     // --------------------------- //
     // Quantitative feature makers //
     // --------------------------- //
@@ -94,13 +205,27 @@ public interface IFeatureFactory {
         return f;
     }
 
+    /**
+     * @param name   The name of the feature.
+     * @param sites  The indices of the sites where the feature occurs.
+     * @param values The quantities of the feature in these sites.
+     * @return A sparse quantitative feature, only storing its occurrence sites and quantities.
+     */
+    default QuantitativeFeature sparseQuantitativeFeature(String name, int[] sites, int[] values) {
+        QuantitativeFeature f = new SparseQuantitativeFeature(name, self().getGrid().getNbCells(), sites, values);
+        self().addFeature(f);
+        return f;
+    }
+
     /**
      * @param rasterFilePath The path to the raster file representing the feature.
-     * @return A quantitative feature from a raster file. The name of the feature will be the name of the file.
+     * @return A quantitative feature from a raster file. The name of the feature will be the name of the file. On
+     * regular square grids, the data is aligned with the cells of the grid (see RasterFeatureLoader.gridWindow).
      * @throws IOException
      */
     default QuantitativeFeature quantitativeFeature(String rasterFilePath) throws IOException {
-        QuantitativeFeature f = new QuantitativeRasterFeature(rasterFilePath);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        QuantitativeFeature f = new QuantitativeRasterFeature(rasterFilePath, window);
         self().addFeature(f);
         return f;
     }
@@ -112,11 +237,97 @@ public interface IFeatureFactory {
      * @throws IOException
      */
     default QuantitativeFeature quantitativeFeature(String name, String rasterFilePath) throws IOException {
-        QuantitativeFeature f = new QuantitativeRasterFeature(rasterFilePath, name);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        QuantitativeFeature f = new QuantitativeRasterFeature(rasterFilePath, name, window);
+        self().addFeature(f);
+        return f;
+    }
+
+    /**
+     * @param layer The tiled grid layer storing the feature.
+     * @return A quantitative feature from a tiled grid layer. The name of the feature will be the name of the layer.
+     */
+    default QuantitativeFeature quantitativeFeature(TiledLayer layer) {
+        QuantitativeFeature f = new QuantitativeTiledFeature(layer);
         self().addFeature(f);
         return f;
     }
 
+    /**
+     * @param buffer The band-interleaved buffer storing the features.
+     * @return One quantitative feature per band of the buffer.
+     * @throws IllegalArgumentException If the buffer does not store one value per cell of the grid.
+     */
+    default QuantitativeFeature[] quantitativeFeatures(BandBuffer buffer) {
+        buffer.checkNbSites(self().getGrid());
+        QuantitativeFeature[] features = new QuantitativeFeature[buffer.getNbBands()];
+        for (int k = 0; k < features.length; k++) {
+            features[k] = new QuantitativeBandFeature(buffer, k);
+            self().addFeature(features[k]);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @param bands          The indices of the bands to load (null for every band).
+     * @return One quantitative feature per selected band, all read in a single decode pass and aligned with the
+     * cells of the grid (see RasterFeatureLoader.gridWindow). The name of each feature is the name of the file followed
+     * by the band index.
+     * @throws IOException
+     */
+    default QuantitativeFeature[] quantitativeFeatures(String rasterFilePath, int[] bands) throws IOException {
+        return quantitativeFeatures(BandBuffer.readInts(rasterFilePath, bands, self().getGrid()));
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @return One quantitative feature per band of the raster, all read in a single decode pass.
+     * @throws IOException
+     */
+    default QuantitativeFeature[] quantitativeFeatures(String rasterFilePath) throws IOException {
+        return quantitativeFeatures(rasterFilePath, null);
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @param parallelism     The number of rasters decoded concurrently.
+     * @return One quantitative feature per raster file, in the order of the paths. The rasters are decoded
+     * concurrently and must match the dimensions of the grid.
+     * @throws IOException
+     */
+    default QuantitativeFeature[] quantitativeFeatures(List<String> rasterFilePaths, int parallelism)
+            throws IOException {
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        List<QuantitativeRasterFeature> loaded = RasterFeatureLoader.load(
+                rasterFilePaths, self().getGrid(), parallelism, path -> new QuantitativeRasterFeature(path, window)
+        );
+        QuantitativeFeature[] features = loaded.toArray(new QuantitativeFeature[0]);
+        for (QuantitativeFeature f : features) {
+            self().addFeature(f);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @return One quantitative feature per raster file, decoded with one thread per available processor.
+     * @throws IOException
+     */
+    default QuantitativeFeature[] quantitativeFeatures(List<String> rasterFilePaths) throws IOException {
+        return quantitativeFeatures(rasterFilePaths, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param directory The directory containing the raster files.
+     * @param glob      A glob pattern on file names (e.g. "*.tif").
+     * @return One quantitative feature per matching raster file, in the alphabetical order of the paths.
+     * @throws IOException
+     */
+    default QuantitativeFeature[] quantitativeFeaturesFromDirectory(String directory, String glob) throws IOException {
+        return quantitativeFeatures(RasterFeatureLoader.glob(directory, glob));
+    }
+
     // ---------------------------- //
     // Probabilistic feature makers //
     // ---------------------------- //
@@ -134,11 +345,13 @@ public interface IFeatureFactory {
 
     /**
      * @param rasterFilePath The path to the raster file representing the feature.
-     * @return A probabilistic feature from a raster file. The name of the feature will be the name of the file.
+     * @return A probabilistic feature from a raster file. The name of the feature will be the name of the file. On
+     * regular square grids, the data is aligned with the cells of the grid (see RasterFeatureLoader.gridWindow).
      * @throws IOException
      */
     default ProbabilisticFeature probabilisticFeature(String rasterFilePath) throws IOException {
-        ProbabilisticFeature f = new ProbabilisticRasterFeature(rasterFilePath);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        ProbabilisticFeature f = new ProbabilisticRasterFeature(rasterFilePath, window);
         self().addFeature(f);
         return f;
     }
@@ -150,8 +363,95 @@ public interface IFeatureFactory {
      * @throws IOException
      */
     default ProbabilisticFeature probabilisticFeature(String name, String rasterFilePath) throws IOException {
-        ProbabilisticFeature f = new ProbabilisticRasterFeature(rasterFilePath, name);
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        ProbabilisticFeature f = new ProbabilisticRasterFeature(rasterFilePath, name, window);
+        self().addFeature(f);
+        return f;
+    }
+
+    /**
+     * @param layer The tiled grid layer storing the feature.
+     * @return A probabilistic feature from a tiled grid layer. The name of the feature will be the name of the layer.
+     */
+    default ProbabilisticFeature probabilisticFeature(TiledLayer layer) {
+        ProbabilisticFeature f = new ProbabilisticTiledFeature(layer);
         self().addFeature(f);
         return f;
     }
+
+    /**
+     * @param buffer The band-interleaved buffer storing the features.
+     * @return One probabilistic feature per band of the buffer.
+     * @throws IllegalArgumentException If the buffer does not store one value per cell of the grid.
+     */
+    default ProbabilisticFeature[] probabilisticFeatures(BandBuffer buffer) {
+        buffer.checkNbSites(self().getGrid());
+        ProbabilisticFeature[] features = new ProbabilisticFeature[buffer.getNbBands()];
+        for (int k = 0; k < features.length; k++) {
+            features[k] = new ProbabilisticBandFeature(buffer, k);
+            self().addFeature(features[k]);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @param bands          The indices of the bands to load (null for every band).
+     * @return One probabilistic feature per selected band, all read in a single decode pass and aligned with the
+     * cells of the grid (see RasterFeatureLoader.gridWindow). The name of each feature is the name of the file followed
+     * by the band index.
+     * @throws IOException
+     */
+    default ProbabilisticFeature[] probabilisticFeatures(String rasterFilePath, int[] bands) throws IOException {
+        return probabilisticFeatures(BandBuffer.readDoubles(rasterFilePath, bands, self().getGrid()));
+    }
+
+    /**
+     * @param rasterFilePath The path to a multi-band raster file.
+     * @return One probabilistic feature per band of the raster, all read in a single decode pass.
+     * @throws IOException
+     */
+    default ProbabilisticFeature[] probabilisticFeatures(String rasterFilePath) throws IOException {
+        return probabilisticFeatures(rasterFilePath, null);
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @param parallelism     The number of rasters decoded concurrently.
+     * @return One probabilistic feature per raster file, in the order of the paths. The rasters are decoded
+     * concurrently and must match the dimensions of the grid.
+     * @throws IOException
+     */
+    default ProbabilisticFeature[] probabilisticFeatures(List<String> rasterFilePaths, int parallelism)
+            throws IOException {
+        RasterWindow window = RasterFeatureLoader.gridWindow(self().getGrid());
+        List<ProbabilisticRasterFeature> loaded = RasterFeatureLoader.load(
+                rasterFilePaths, self().getGrid(), parallelism, path -> new ProbabilisticRasterFeature(path, window)
+        );
+        ProbabilisticFeature[] features = loaded.toArray(new ProbabilisticFeature[0]);
+        for (ProbabilisticFeature f : features) {
+            self().addFeature(f);
+        }
+        return features;
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files representing the features.
+     * @return One probabilistic feature per raster file, decoded with one thread per available processor.
+     * @throws IOException
+     */
+    default ProbabilisticFeature[] probabilisticFeatures(List<String> rasterFilePaths) throws IOException {
+        return probabilisticFeatures(rasterFilePaths, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param directory The directory containing the raster files.
+     * @param glob      A glob pattern on file names (e.g. "*.tif").
+     * @return One probabilistic feature per matching raster file, in the alphabetical order of the paths.
+     * @throws IOException
+     */
+    default ProbabilisticFeature[] probabilisticFeaturesFromDirectory(String directory, String glob)
+            throws IOException {
+        return probabilisticFeatures(RasterFeatureLoader.glob(directory, glob));
+    }
 }
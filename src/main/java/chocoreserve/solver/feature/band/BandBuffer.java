@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.band;
+
+import chocoreserve.grid.Grid;
+import chocoreserve.raster.RasterReader;
+import chocoreserve.raster.RasterWindow;
+import chocoreserve.solver.feature.raster.RasterFeatureLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+
+/**
+ * Band-interleaved buffer storing the values of several features (one per band) over the same sites: the value of
+ * the band k for the site i is at index i * nbBands + k. The values are either stored as ints or as doubles.
+ *
+ * The buffer is filled once, e.g. from a multi-band raster decoded in a single pass, and is shared by the band
+ * features built on it. The columns of the bands (see getDoubleBand and getIntBand) are extracted on demand and kept
+ * through soft references, such that repeated getData calls do not copy the band again, while the garbage
+ * collector can still reclaim them under memory pressure.
+ */
+public class BandBuffer {
+
+    private final String[] names;
+    private final int nbSites;
+    private final int[] ints;
+    private final double[] doubles;
+    private final SoftReference<double[]>[] doubleBands;
+    private final SoftReference<int[]>[] intBands;
+
+    @SuppressWarnings("unchecked")
+    private BandBuffer(String[] names, int nbSites, int[] ints, double[] doubles) {
+        this.names = names;
+        this.nbSites = nbSites;
+        this.ints = ints;
+        this.doubles = doubles;
+        this.doubleBands = new SoftReference[names.length];
+        this.intBands = new SoftReference[names.length];
+    }
+
+    /**
+     * @param names  The names of the bands.
+     * @param values The band-interleaved values.
+     * @return A buffer storing int values.
+     */
+    public static BandBuffer ofInts(String[] names, int[] values) {
+        assert values.length % names.length == 0;
+        return new BandBuffer(names, values.length / names.length, values, null);
+    }
+
+    /**
+     * @param names  The names of the bands.
+     * @param values The band-interleaved values.
+     * @return A buffer storing double values.
+     */
+    public static BandBuffer ofDoubles(String[] names, double[] values) {
+        assert values.length % names.length == 0;
+        return new BandBuffer(names, values.length / names.length, null, values);
+    }
+
+    /**
+     * @param rasterFilePath The path to the raster file.
+     * @param bands          The indices of the bands to read, null for every band.
+     * @return A buffer storing the bands of the raster as int values, read in a single decode pass.
+     * @throws IOException
+     */
+    public static BandBuffer readInts(String rasterFilePath, int[] bands) throws IOException {
+        try (RasterReader reader = new RasterReader(rasterFilePath)) {
+            bands = bands == null ? reader.getBands() : bands;
+            return ofInts(bandNames(rasterFilePath, bands), reader.readAsBandInterleavedIntArray(bands));
+        }
+    }
+
+    /**
+     * @param rasterFilePath The path to the raster file.
+     * @param bands          The indices of the bands to read, null for every band.
+     * @return A buffer storing the bands of the raster as double values, read in a single decode pass.
+     * @throws IOException
+     */
+    public static BandBuffer readDoubles(String rasterFilePath, int[] bands) throws IOException {
+        try (RasterReader reader = new RasterReader(rasterFilePath)) {
+            bands = bands == null ? reader.getBands() : bands;
+            return ofDoubles(bandNames(rasterFilePath, bands), reader.readAsBandInterleavedDoubleArray(bands));
+        }
+    }
+
+    /**
+     * @param rasterFilePath The path to the raster file.
+     * @param bands          The indices of the bands to read, null for every band.
+     * @param grid           The grid the raster must match.
+     * @return A buffer storing the bands of the raster as int values, read in a single decode pass and aligned with
+     * the cells of the grid (see RasterFeatureLoader.gridWindow).
+     * @throws IOException
+     * @throws IllegalArgumentException If the dimensions of the raster do not match the grid.
+     */
+    public static BandBuffer readInts(String rasterFilePath, int[] bands, Grid grid) throws IOException {
+        try (RasterReader reader = new RasterReader(rasterFilePath)) {
+            bands = bands == null ? reader.getBands() : bands;
+            RasterWindow window = gridWindow(rasterFilePath, reader, grid);
+            return ofInts(bandNames(rasterFilePath, bands), reader.readAsBandInterleavedIntArray(bands, window));
+        }
+    }
+
+    /**
+     * @param rasterFilePath The path to the raster file.
+     * @param bands          The indices of the bands to read, null for every band.
+     * @param grid           The grid the raster must match.
+     * @return A buffer storing the bands of the raster as double values, read in a single decode pass and aligned
+     * with the cells of the grid (see RasterFeatureLoader.gridWindow).
+     * @throws IOException
+     * @throws IllegalArgumentException If the dimensions of the raster do not match the grid.
+     */
+    public static BandBuffer readDoubles(String rasterFilePath, int[] bands, Grid grid) throws IOException {
+        try (RasterReader reader = new RasterReader(rasterFilePath)) {
+            bands = bands == null ? reader.getBands() : bands;
+            RasterWindow window = gridWindow(rasterFilePath, reader, grid);
+            return ofDoubles(bandNames(rasterFilePath, bands), reader.readAsBandInterleavedDoubleArray(bands, window));
+        }
+    }
+
+    /**
+     * @return The window aligning the raster with the grid (the whole raster for grids without one), once the
+     * dimensions of the raster are checked against the grid.
+     */
+    private static RasterWindow gridWindow(String rasterFilePath, RasterReader reader, Grid grid) {
+        RasterWindow window = RasterFeatureLoader.gridWindow(grid);
+        RasterFeatureLoader.checkDimensions(rasterFilePath, reader.getWidth(), reader.getHeight(), window, grid);
+        return window != null ? window : new RasterWindow(0, 0, reader.getWidth(), reader.getHeight());
+    }
+
+    /**
+     * @return The names of the bands of a raster file: the name of the file followed by the band index.
+     */
+    private static String[] bandNames(String rasterFilePath, int[] bands) {
+        String fileName = new File(rasterFilePath).getName();
+        String[] names = new String[bands.length];
+        for (int k = 0; k < bands.length; k++) {
+            names[k] = fileName + "_band" + bands[k];
+        }
+        return names;
+    }
+
+    /**
+     * @return The number of bands.
+     */
+    public int getNbBands() {
+        return names.length;
+    }
+
+    /**
+     * @return The number of sites.
+     */
+    public int getNbSites() {
+        return nbSites;
+    }
+
+    /**
+     * @param grid A grid.
+     * @throws IllegalArgumentException If the buffer does not store one value per cell of the grid.
+     */
+    public void checkNbSites(Grid grid) {
+        if (nbSites != grid.getNbCells()) {
+            throw new IllegalArgumentException("The band buffer stores " + nbSites + " sites, the grid has "
+                    + grid.getNbCells() + " cells");
+        }
+    }
+
+    /**
+     * @param band The index of a band in the buffer.
+     * @return The name of the band.
+     */
+    public String getName(int band) {
+        return names[band];
+    }
+
+    /**
+     * @param site The index of a site.
+     * @param band The index of a band in the buffer.
+     * @return The value of the band for the site.
+     */
+    public double getValue(int site, int band) {
+        int i = site * names.length + band;
+        return ints != null ? ints[i] : doubles[i];
+    }
+
+    /**
+     * @param band The index of a band in the buffer.
+     * @return The values of the band, as a double array. The array is shared and must not be modified.
+     */
+    public double[] getDoubleBand(int band) {
+        double[] data = doubleBands[band] == null ? null : doubleBands[band].get();
+        if (data != null) {
+            return data;
+        }
+        int nbBands = names.length;
+        data = new double[nbSites];
+        if (ints != null) {
+            for (int i = 0, j = band; i < nbSites; i++, j += nbBands) {
+                data[i] = ints[j];
+            }
+        } else {
+            for (int i = 0, j = band; i < nbSites; i++, j += nbBands) {
+                data[i] = doubles[j];
+            }
+        }
+        doubleBands[band] = new SoftReference<>(data);
+        return data;
+    }
+
+    /**
+     * @param band The index of a band in the buffer.
+     * @return The values of the band, as an int array (double values are truncated). The array is shared and must
+     * not be modified.
+     */
+    public int[] getIntBand(int band) {
+        int[] data = intBands[band] == null ? null : intBands[band].get();
+        if (data != null) {
+            return data;
+        }
+        int nbBands = names.length;
+        data = new int[nbSites];
+        if (ints != null) {
+            for (int i = 0, j = band; i < nbSites; i++, j += nbBands) {
+                data[i] = ints[j];
+            }
+        } else {
+            for (int i = 0, j = band; i < nbSites; i++, j += nbBands) {
+                data[i] = (int) doubles[j];
+            }
+        }
+        intBands[band] = new SoftReference<>(data);
+        return data;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.band;
+
+import chocoreserve.solver.feature.Feature;
+
+/**
+ * Feature stored as a band of a shared band-interleaved buffer.
+ */
+public abstract class BandFeature implements Feature {
+
+    protected String name;
+    protected BandBuffer buffer;
+    protected int band;
+
+    public BandFeature(BandBuffer buffer, int band, String name) {
+        this.name = name;
+        this.buffer = buffer;
+        this.band = band;
+    }
+
+    public BandFeature(BandBuffer buffer, int band) {
+        this(buffer, band, buffer.getName(band));
+    }
+
+    public BandBuffer getBuffer() {
+        return buffer;
+    }
+
+    public int getBand() {
+        return band;
+    }
+
+    /**
+     * @param site The index of a site.
+     * @return The value of the feature in the site.
+     */
+    public double getValue(int site) {
+        return buffer.getValue(site, band);
+    }
+
+    @Override
+    public double[] getData() {
+        return buffer.getDoubleBand(band);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.feature.raster;
 
+import chocoreserve.raster.RasterWindow;
 import chocoreserve.solver.feature.BinaryFeature;
 
 import java.io.IOException;
@@ -32,6 +33,14 @@ import java.io.IOException;
  */
 public class BinaryRasterFeature extends RasterFeature implements BinaryFeature {
 
+    public BinaryRasterFeature(String rasterFilePath, String name, RasterWindow window) throws IOException {
+        super(rasterFilePath, name, window);
+    }
+
+    public BinaryRasterFeature(String rasterFilePath, RasterWindow window) throws IOException {
+        super(rasterFilePath, window);
+    }
+
     public BinaryRasterFeature(String rasterFilePath, String name) throws IOException {
         super(rasterFilePath, name);
     }
@@ -42,6 +51,11 @@ public class BinaryRasterFeature extends RasterFeature implements BinaryFeature
 
     @Override
     public int[] getBinaryData() throws IOException {
-        return rasterReader.readAsIntArray();
+        return readIntData();
+    }
+
+    @Override
+    public void decode() throws IOException {
+        getBinaryData();
     }
 }
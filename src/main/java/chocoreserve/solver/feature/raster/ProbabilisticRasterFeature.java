@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.feature.raster;
 
+import chocoreserve.raster.RasterWindow;
 import chocoreserve.solver.feature.ProbabilisticFeature;
 
 import java.io.IOException;
@@ -32,6 +33,14 @@ import java.io.IOException;
  */
 public class ProbabilisticRasterFeature extends RasterFeature implements ProbabilisticFeature {
 
+    public ProbabilisticRasterFeature(String rasterFilePath, String name, RasterWindow window) throws IOException {
+        super(rasterFilePath, name, window);
+    }
+
+    public ProbabilisticRasterFeature(String rasterFilePath, RasterWindow window) throws IOException {
+        super(rasterFilePath, window);
+    }
+
     public ProbabilisticRasterFeature(String rasterFilePath, String name) throws IOException {
         super(rasterFilePath, name);
     }
@@ -23,6 +23,7 @@
 
 package chocoreserve.solver.feature.raster;
 
+import chocoreserve.raster.RasterWindow;
 import chocoreserve.solver.feature.QuantitativeFeature;
 
 import java.io.IOException;
@@ -32,6 +33,14 @@ import java.io.IOException;
  */
 public class QuantitativeRasterFeature extends RasterFeature implements QuantitativeFeature {
 
+    public QuantitativeRasterFeature(String rasterFilePath, String name, RasterWindow window) throws IOException {
+        super(rasterFilePath, name, window);
+    }
+
+    public QuantitativeRasterFeature(String rasterFilePath, RasterWindow window) throws IOException {
+        super(rasterFilePath, window);
+    }
+
     public QuantitativeRasterFeature(String rasterFilePath, String name) throws IOException {
         super(rasterFilePath, name);
     }
@@ -42,6 +51,11 @@ public class QuantitativeRasterFeature extends RasterFeature implements Quantita
 
     @Override
     public int[] getQuantitativeData() throws IOException {
-        return rasterReader.readAsIntArray();
+        return readIntData();
+    }
+
+    @Override
+    public void decode() throws IOException {
+        getQuantitativeData();
     }
 }
@@ -23,33 +23,112 @@
 
 package chocoreserve.solver.feature.raster;
 
+import chocoreserve.raster.RasterCache;
 import chocoreserve.raster.RasterReader;
+import chocoreserve.raster.RasterWindow;
 import chocoreserve.solver.feature.Feature;
 
 import java.io.File;
 import java.io.IOException;
 
 /**
- * Feature based on a raster file.
+ * Feature based on a raster file. The decoded values are served from the process-wide RasterCache, the returned
+ * arrays are thus shared and must not be modified.
+ *
+ * A raster window (e.g. RegularSquareGrid.getRasterWindow()) can be given to align the data with the cells of a grid:
+ * only the pixels of the valid cells are then decoded and stored, at their cell index.
  */
 public abstract class RasterFeature implements Feature {
 
     protected String name;
     protected String rasterFilePath;
-    protected RasterReader rasterReader;
+    protected RasterWindow window;
 
-    public RasterFeature(String rasterFilePath, String name) throws IOException {
+    /**
+     * Dimensions of the raster, read on demand (-1 until then)
+     */
+    private int width = -1, height = -1;
+
+    public RasterFeature(String rasterFilePath, String name, RasterWindow window) throws IOException {
+        if (!new File(rasterFilePath).isFile()) {
+            throw new IOException("The raster file " + rasterFilePath + " does not exist");
+        }
         this.name = name;
         this.rasterFilePath = rasterFilePath;
-        this.rasterReader = new RasterReader(rasterFilePath);
+        this.window = window;
+    }
+
+    public RasterFeature(String rasterFilePath, RasterWindow window) throws IOException {
+        this(rasterFilePath, new File(rasterFilePath).getName(), window);
+    }
+
+    public RasterFeature(String rasterFilePath, String name) throws IOException {
+        this(rasterFilePath, name, null);
     }
 
     public RasterFeature(String rasterFilePath) throws IOException {
-        this(rasterFilePath, new File(rasterFilePath).getName());
+        this(rasterFilePath, (RasterWindow) null);
+    }
+
+    /**
+     * Reads the dimensions of the raster, without keeping the reader open.
+     */
+    private synchronized void readDimensions() throws IOException {
+        if (width < 0) {
+            try (RasterReader reader = new RasterReader(rasterFilePath)) {
+                height = reader.getHeight();
+                width = reader.getWidth();
+            }
+        }
+    }
+
+    /**
+     * @return The width (in pixels) of the raster.
+     * @throws IOException
+     */
+    public int getWidth() throws IOException {
+        readDimensions();
+        return width;
+    }
+
+    /**
+     * @return The height (in pixels) of the raster.
+     * @throws IOException
+     */
+    public int getHeight() throws IOException {
+        readDimensions();
+        return height;
+    }
+
+    /**
+     * @return The window of the raster the feature is read from, null for the whole raster.
+     */
+    public RasterWindow getWindow() {
+        return window;
+    }
+
+    /**
+     * @return The values of the raster (or of its window) as ints, from the RasterCache.
+     * @throws IOException
+     */
+    protected int[] readIntData() throws IOException {
+        RasterCache cache = RasterCache.getInstance();
+        return window == null ? cache.getIntArray(rasterFilePath, 0) : cache.getIntArray(rasterFilePath, 0, window);
     }
 
     public double[] getData() throws IOException {
-        return rasterReader.readAsDoubleArray();
+        RasterCache cache = RasterCache.getInstance();
+        return window == null ?
+                cache.getDoubleArray(rasterFilePath, 0) : cache.getDoubleArray(rasterFilePath, 0, window);
+    }
+
+    /**
+     * Decodes the data of the feature into the RasterCache, if it is not already there.
+     *
+     * @throws IOException
+     */
+    public void decode() throws IOException {
+        getData();
     }
 
     @Override
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.raster;
+
+import chocoreserve.grid.Grid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.raster.RasterWindow;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk loading of raster features: the rasters are opened, checked against the grid and decoded concurrently on a
+ * bounded thread pool. Decoded values are kept in the RasterCache, so the features are served from memory afterwards
+ * (as long as they fit in the cache budget).
+ */
+public class RasterFeatureLoader {
+
+    /**
+     * Creates a feature from a raster file path.
+     */
+    @FunctionalInterface
+    public interface Maker<F extends RasterFeature> {
+        F make(String rasterFilePath) throws IOException;
+    }
+
+    private RasterFeatureLoader() {
+    }
+
+    /**
+     * @param directory The directory.
+     * @param glob      A glob pattern on file names (e.g. "*.tif").
+     * @return The paths of the files of the directory matching the pattern, sorted.
+     * @throws IOException
+     */
+    public static List<String> glob(String directory, String glob) throws IOException {
+        List<String> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory), glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) {
+                    paths.add(path.toString());
+                }
+            }
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    /**
+     * @param grid The grid.
+     * @return The raster window aligning raster data with the cells of the grid: for regular square grids (including
+     * partial ones and non row-major orderings), each pixel is stored at the index of its cell and the pixels of
+     * discarded cells are not decoded. Null for other grids, whose features are read as whole rasters.
+     */
+    public static RasterWindow gridWindow(Grid grid) {
+        return grid instanceof RegularSquareGrid ? ((RegularSquareGrid) grid).getRasterWindow() : null;
+    }
+
+    /**
+     * @param feature The feature.
+     * @param grid    The grid.
+     * @throws IOException              If the raster cannot be read.
+     * @throws IllegalArgumentException If the dimensions of the raster do not match the grid.
+     */
+    public static void checkDimensions(RasterFeature feature, Grid grid) throws IOException {
+        checkDimensions(feature.rasterFilePath, feature.getWidth(), feature.getHeight(), feature.getWindow(), grid);
+    }
+
+    /**
+     * Checks that a raster matches a grid. The raster must have the exact dimensions of the grid, unless it is read
+     * through a window other than gridWindow(grid) (e.g. RegularSquareGrid.getRasterWindow(x, y) with an offset),
+     * in which case it is cropped and the window must fit in the raster.
+     *
+     * @param rasterFilePath The path to the raster file.
+     * @param width          The width of the raster.
+     * @param height         The height of the raster.
+     * @param window         The window the raster is read through (null for the whole raster).
+     * @param grid           The grid.
+     * @throws IllegalArgumentException If the dimensions of the raster do not match the grid.
+     */
+    public static void checkDimensions(String rasterFilePath, int width, int height, RasterWindow window, Grid grid) {
+        boolean match;
+        if (window != null && !window.equals(gridWindow(grid))) {
+            match = window.getNbCells() == grid.getNbCells() && window.getX() >= 0 && window.getY() >= 0
+                    && window.getX() + window.getWidth() <= width && window.getY() + window.getHeight() <= height;
+        } else if (grid instanceof RegularSquareGrid) {
+            RegularSquareGrid g = (RegularSquareGrid) grid;
+            match = width == g.getNbCols() && height == g.getNbRows();
+        } else {
+            match = (long) width * height == grid.getNbCells();
+        }
+        if (!match) {
+            throw new IllegalArgumentException("The dimensions of the raster " + rasterFilePath + " ("
+                    + width + "x" + height + ") do not match the grid");
+        }
+    }
+
+    /**
+     * @param rasterFilePaths The paths to the raster files.
+     * @param grid            The grid the rasters must match.
+     * @param parallelism     The number of threads.
+     * @param maker           Creates a feature (e.g. a constructor reference).
+     * @return The features, in the order of the paths.
+     * @throws IOException              If a raster cannot be read.
+     * @throws IllegalArgumentException If the dimensions of a raster do not match the grid.
+     */
+    public static <F extends RasterFeature> List<F> load(List<String> rasterFilePaths, Grid grid, int parallelism,
+                                                         Maker<F> maker) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<F>> futures = new ArrayList<>();
+            for (String path : rasterFilePaths) {
+                futures.add(executor.submit(() -> {
+                    F feature = maker.make(path);
+                    checkDimensions(feature, grid);
+                    feature.decode();
+                    return feature;
+                }));
+            }
+            List<F> features = new ArrayList<>();
+            for (Future<F> future : futures) {
+                features.add(future.get());
+            }
+            return features;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading raster features", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
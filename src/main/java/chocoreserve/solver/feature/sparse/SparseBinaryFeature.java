@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.sparse;
+
+import chocoreserve.solver.feature.BinaryFeature;
+import chocoreserve.util.PackedBits;
+
+/**
+ * Binary feature stored as the sorted indices of its occurrence sites.
+ */
+public class SparseBinaryFeature extends SparseFeature implements BinaryFeature {
+
+    /**
+     * @param name    The name of the feature.
+     * @param nbSites The number of sites of the grid.
+     * @param sites   The indices of the occurrence sites.
+     */
+    public SparseBinaryFeature(String name, int nbSites, int[] sites) {
+        super(name, nbSites, sites, null);
+    }
+
+    protected SparseBinaryFeature(String name, int nbSites, int[] sites, int[] values) {
+        super(name, nbSites, sites, values);
+    }
+
+    /**
+     * @param name The name of the feature.
+     * @param data Dense binary data, indexed by site.
+     * @return A sparse binary feature occurring in the sites whose value is at least 1.
+     */
+    public static SparseBinaryFeature fromDense(String name, int[] data) {
+        int[] binary = new int[data.length];
+        for (int i = 0; i < data.length; i++) {
+            binary[i] = data[i] >= 1 ? 1 : 0;
+        }
+        return new SparseBinaryFeature(name, data.length, nonZeroSites(binary));
+    }
+
+    @Override
+    public int[] getBinaryData() {
+        int[] data = new int[nbSites];
+        for (int k = 0; k < sites.length; k++) {
+            data[sites[k]] = values[k] >= 1 ? 1 : 0;
+        }
+        return data;
+    }
+
+    @Override
+    public long[] getPackedBinaryData() {
+        long[] words = new long[PackedBits.nbWords(nbSites)];
+        for (int k = 0; k < sites.length; k++) {
+            if (values[k] >= 1) {
+                words[sites[k] >>> 6] |= 1L << sites[k];
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.sparse;
+
+import chocoreserve.solver.feature.Feature;
+
+import java.util.Arrays;
+
+/**
+ * Feature stored as its occurrences only: the sorted indices of the sites where its value is not zero, and the
+ * corresponding values. Memory and propagation cost scale with the number of occurrences instead of the number of
+ * sites, feature constraints detect sparse features and only visit their occurrence sites.
+ */
+public abstract class SparseFeature implements Feature {
+
+    protected String name;
+    protected int nbSites;
+    protected int[] sites;
+    protected int[] values;
+
+    /**
+     * @param name    The name of the feature.
+     * @param nbSites The number of sites of the grid.
+     * @param sites   The indices of the occurrence sites.
+     * @param values  The values of the feature in the occurrence sites, null if they all are 1. Zero values are
+     *                discarded.
+     */
+    public SparseFeature(String name, int nbSites, int[] sites, int[] values) {
+        assert values == null || values.length == sites.length;
+        this.name = name;
+        this.nbSites = nbSites;
+        Integer[] order = new Integer[sites.length];
+        for (int k = 0; k < sites.length; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(sites[a], sites[b]));
+        int[] s = new int[sites.length];
+        int[] v = new int[sites.length];
+        int n = 0;
+        int previous = -1;
+        for (int k : order) {
+            int value = values == null ? 1 : values[k];
+            if (sites[k] < 0 || sites[k] >= nbSites) {
+                throw new IllegalArgumentException("Site " + sites[k] + " is not a site of the grid");
+            }
+            // Compare with the previous input site, which may have been discarded (zero value)
+            if (sites[k] == previous) {
+                throw new IllegalArgumentException("Site " + sites[k] + " is given twice");
+            }
+            previous = sites[k];
+            if (value != 0) {
+                s[n] = sites[k];
+                v[n] = value;
+                n++;
+            }
+        }
+        this.sites = Arrays.copyOf(s, n);
+        this.values = Arrays.copyOf(v, n);
+    }
+
+    /**
+     * @param data Dense data, indexed by site.
+     * @return The indices of the sites where the value is not zero.
+     */
+    protected static int[] nonZeroSites(int[] data) {
+        int n = 0;
+        for (int d : data) {
+            if (d != 0) {
+                n++;
+            }
+        }
+        int[] sites = new int[n];
+        for (int i = 0, k = 0; i < data.length; i++) {
+            if (data[i] != 0) {
+                sites[k++] = i;
+            }
+        }
+        return sites;
+    }
+
+    /**
+     * @return The number of sites of the grid.
+     */
+    public int getNbSites() {
+        return nbSites;
+    }
+
+    /**
+     * @return The number of occurrence sites.
+     */
+    public int getNbOccurrences() {
+        return sites.length;
+    }
+
+    /**
+     * @return The sorted indices of the occurrence sites. Must not be modified.
+     */
+    public int[] getSites() {
+        return sites;
+    }
+
+    /**
+     * @return The values of the feature in the occurrence sites, in the order of getSites. Must not be modified.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param site The index of a site.
+     * @return The value of the feature in the site.
+     */
+    public int getValue(int site) {
+        int k = Arrays.binarySearch(sites, site);
+        return k >= 0 ? values[k] : 0;
+    }
+
+    @Override
+    public double[] getData() {
+        double[] data = new double[nbSites];
+        for (int k = 0; k < sites.length; k++) {
+            data[sites[k]] = values[k];
+        }
+        return data;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
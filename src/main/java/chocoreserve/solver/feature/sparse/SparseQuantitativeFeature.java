@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.sparse;
+
+import chocoreserve.solver.feature.QuantitativeFeature;
+
+/**
+ * Quantitative feature stored as the sorted indices of its occurrence sites and the corresponding quantities.
+ */
+public class SparseQuantitativeFeature extends SparseBinaryFeature implements QuantitativeFeature {
+
+    /**
+     * @param name    The name of the feature.
+     * @param nbSites The number of sites of the grid.
+     * @param sites   The indices of the occurrence sites.
+     * @param values  The quantities in the occurrence sites.
+     */
+    public SparseQuantitativeFeature(String name, int nbSites, int[] sites, int[] values) {
+        super(name, nbSites, sites, values);
+    }
+
+    /**
+     * @param name The name of the feature.
+     * @param data Dense quantitative data, indexed by site.
+     * @return A sparse quantitative feature occurring in the sites whose value is not zero.
+     */
+    public static SparseQuantitativeFeature fromDense(String name, int[] data) {
+        int[] sites = nonZeroSites(data);
+        int[] values = new int[sites.length];
+        for (int k = 0; k < sites.length; k++) {
+            values[k] = data[sites[k]];
+        }
+        return new SparseQuantitativeFeature(name, data.length, sites, values);
+    }
+
+    @Override
+    public int[] getQuantitativeData() {
+        int[] data = new int[nbSites];
+        for (int k = 0; k < sites.length; k++) {
+            data[sites[k]] = values[k];
+        }
+        return data;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.tiled;
+
+import chocoreserve.grid.regular.square.TiledLayer;
+import chocoreserve.solver.feature.BinaryFeature;
+
+/**
+ * Binary feature stored in a layer of a tiled grid.
+ */
+public class BinaryTiledFeature extends TiledFeature implements BinaryFeature {
+
+    public BinaryTiledFeature(TiledLayer layer, String name) {
+        super(layer, name);
+    }
+
+    public BinaryTiledFeature(TiledLayer layer) {
+        super(layer);
+    }
+
+    @Override
+    public int[] getBinaryData() {
+        int[] data = layer.toIntArray();
+        for (int i = 0; i < data.length; i++) {
+            data[i] = data[i] >= 1 ? 1 : 0;
+        }
+        return data;
+    }
+}
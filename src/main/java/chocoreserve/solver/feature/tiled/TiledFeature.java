@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature.tiled;
+
+import chocoreserve.grid.regular.square.TiledLayer;
+import chocoreserve.solver.feature.Feature;
+
+/**
+ * Feature whose data is stored in a layer of a tiled grid. Values can be accessed per cell without loading the
+ * whole layer, getData loads it for the constraints requiring arrays.
+ */
+public abstract class TiledFeature implements Feature {
+
+    protected String name;
+    protected TiledLayer layer;
+
+    public TiledFeature(TiledLayer layer, String name) {
+        this.name = name;
+        this.layer = layer;
+    }
+
+    public TiledFeature(TiledLayer layer) {
+        this(layer, layer.getName());
+    }
+
+    public TiledLayer getLayer() {
+        return layer;
+    }
+
+    /**
+     * @param cell The index of a cell.
+     * @return The value of the feature in the cell.
+     */
+    public double getValue(int cell) {
+        return layer.getValue(cell);
+    }
+
+    @Override
+    public double[] getData() {
+        return layer.toDoubleArray();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -23,8 +23,7 @@
 
 package chocoreserve.solver.search.selectors.variables;
 
-import chocoreserve.grid.Grid;
-import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.CompiledNeighborhood;
 import chocoreserve.solver.region.AbstractRegion;
 import org.chocosolver.solver.search.strategy.selectors.variables.VariableSelector;
 import org.chocosolver.solver.variables.IntVar;
@@ -72,10 +71,13 @@ public class NeighborhoodVarSelector implements VariableSelector<IntVar> {
         Set<Integer> neighborhood = new HashSet<>();
         ISet LB = region.getSetVar().getLB();
         ISet UB = region.getSetVar().getUB();
-        Grid grid = region.getReserveModel().getGrid();
-        INeighborhood neigh = region.getNeighborhood();
+        CompiledNeighborhood neigh = region.getReserveModel().getGrid()
+                .getCompiledNeighborhood(region.getNeighborhood());
+        int[] offsets = neigh.getOffsets();
+        int[] targets = neigh.getTargets();
         for (int i : LB) {
-            for (int j : neigh.getNeighbors(grid, i)) {
+            for (int n = offsets[i]; n < offsets[i + 1]; n++) {
+                int j = targets[n];
                 if (!LB.contains(j) && UB.contains(j)) {
                     neighborhood.add(j);
                 }
@@ -25,10 +25,12 @@ package chocoreserve.solver.search.selectors.variables;
 
 import chocoreserve.solver.ReserveModel;
 import chocoreserve.solver.feature.Feature;
+import chocoreserve.solver.feature.FeatureMatrix;
 import org.chocosolver.solver.search.strategy.selectors.variables.VariableSelector;
 import org.chocosolver.solver.variables.IntVar;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -69,10 +71,16 @@ public class PoorestVarSelector implements VariableSelector<IntVar> {
     }
 
     /**
-     * Builds a diversity score based on features for each planning unit of the grid associated to a model.
+     * Builds a diversity score based on features for each planning unit of the grid associated to a model. The feature
+     * matrix of the model is reused when it is already built and holds the features of the selector, otherwise the
+     * features are read one at a time.
      */
     private double[] makeScores() {
         int nbSites = reserveModel.getGrid().getNbCells();
+        FeatureMatrix matrix = reserveModel.getCachedFeatureMatrix();
+        if (matrix != null && Arrays.equals(features, reserveModel.getFeatures().values().toArray())) {
+            return matrix.siteScores(threshold);
+        }
         // Compute scores
         double[] scores = new double[nbSites];
         for (Feature f : features) {
@@ -80,7 +88,6 @@ public class PoorestVarSelector implements VariableSelector<IntVar> {
                 double[] data = f.getData();
                 for (int i = 0; i < nbSites; i++) {
                     double v = data[i] >= threshold ? data[i] : 0;
-//                    double v = data[i] >= threshold ? 1 : 0;
                     scores[i] += v;
                 }
             } catch (IOException e) {
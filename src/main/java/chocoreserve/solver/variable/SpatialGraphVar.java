@@ -25,6 +25,7 @@ package chocoreserve.solver.variable;
 
 import chocoreserve.grid.Grid;
 import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.util.objects.graphs.ImplicitUndirectedGraphFromSubgraph;
 import chocoreserve.util.objects.graphs.UndirectedGraphIncrementalCC;
 import org.chocosolver.solver.ICause;
 import org.chocosolver.solver.Model;
@@ -62,6 +63,8 @@ public class SpatialGraphVar extends AbstractVariable implements SetVar {
     protected INeighborhood neighborhood;
     protected UndirectedGraph GLB;
     protected UndirectedGraph GUB;
+    // Neighbors buffer, when GUB is implicit
+    protected int[] neighBuffer;
 
     public SpatialGraphVar(String name, int[] ker, SetType kerType, int[] env, SetType envType, Model model, Grid grid, INeighborhood neighborhood, boolean ubDecr) {
         super(name, model);
@@ -79,6 +82,9 @@ public class SpatialGraphVar extends AbstractVariable implements SetVar {
         lbReadOnly = new Set_ReadOnly(lb);
         ubReadOnly = new Set_ReadOnly(ub);
         // Adapted from set Var Impl - END //
+        if (GUB instanceof ImplicitUndirectedGraphFromSubgraph) {
+            this.neighBuffer = new int[((ImplicitUndirectedGraphFromSubgraph) GUB).getMaxNbNeighbors()];
+        }
     }
 
     public SpatialGraphVar(String name, int[] ker, SetType kerType, int[] env, SetType envType, Model model, Grid grid, INeighborhood neighborhood) {
@@ -186,10 +192,19 @@ public class SpatialGraphVar extends AbstractVariable implements SetVar {
             return true;
         }
         if (getGLB().addNode(element)) {
-            ISet nei = GUB.getSuccOrNeighOf(element);
-            for (int i : nei) {
-                if (lb.contains(i)) {
-                    GLB.addEdge(element, i);
+            if (neighBuffer != null) {
+                int nb = ((ImplicitUndirectedGraphFromSubgraph) GUB).fillNeighOf(element, neighBuffer);
+                for (int k = 0; k < nb; k++) {
+                    if (lb.contains(neighBuffer[k])) {
+                        GLB.addEdge(element, neighBuffer[k]);
+                    }
+                }
+            } else {
+                ISet nei = GUB.getSuccOrNeighOf(element);
+                for (int i : nei) {
+                    if (lb.contains(i)) {
+                        GLB.addEdge(element, i);
+                    }
                 }
             }
             if (reactOnModification) {
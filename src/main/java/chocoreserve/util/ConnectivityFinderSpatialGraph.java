@@ -24,6 +24,7 @@
 package chocoreserve.util;
 
 
+import chocoreserve.util.objects.graphs.ImplicitUndirectedGraphFromSubgraph;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
 import org.chocosolver.util.objects.setDataStructures.ISet;
 import org.chocosolver.util.objects.setDataStructures.SetFactory;
@@ -47,6 +48,8 @@ public class ConnectivityFinderSpatialGraph {
     private int n;
     private UndirectedGraph g;
     private int[] CCFirstNode, CCNextNode, nodeCC, p, fifo, sizeCC;
+    // Neighbors buffer, when g is implicit
+    private int[] neighBuffer;
     private int nbCC, sizeMinCC, sizeMaxCC;
 
     /**
@@ -58,6 +61,9 @@ public class ConnectivityFinderSpatialGraph {
         this.n = g.getNbMaxNodes();
         p = new int[n];
         fifo = new int[n];
+        if (g instanceof ImplicitUndirectedGraphFromSubgraph) {
+            neighBuffer = new int[((ImplicitUndirectedGraphFromSubgraph) g).getMaxNbNeighbors()];
+        }
     }
 
     public ISet getNeigh(int x) {
@@ -165,7 +171,17 @@ public class ConnectivityFinderSpatialGraph {
         add(start, cc);
         while (first < last) {
             int i = fifo[first++];
-            for (int j : g.getNeighOf(i).toArray()) {
+            int[] neighs;
+            int nb;
+            if (neighBuffer != null) {
+                neighs = neighBuffer;
+                nb = ((ImplicitUndirectedGraphFromSubgraph) g).fillNeighOf(i, neighBuffer);
+            } else {
+                neighs = g.getNeighOf(i).toArray();
+                nb = neighs.length;
+            }
+            for (int k = 0; k < nb; k++) {
+                int j = neighs[k];
                 if (p[j] == -1) {
                     p[j] = i;
                     add(j, cc);
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util;
+
+import org.chocosolver.util.objects.setDataStructures.ISet;
+
+import java.util.Arrays;
+
+/**
+ * Utility methods for bitsets packed in long arrays, aligned with the cell indices of a grid: the bit i is the bit
+ * (i % 64) of the word (i / 64). Set operations work on 64 cells at a time.
+ */
+public class PackedBits {
+
+    private PackedBits() {
+    }
+
+    /**
+     * @param nbBits The number of bits.
+     * @return The number of words needed to store nbBits bits.
+     */
+    public static int nbWords(int nbBits) {
+        return (nbBits + 63) >>> 6;
+    }
+
+    /**
+     * @param binary Binary data, indexed by cell.
+     * @return The packed bitset of the cells whose value is at least 1.
+     */
+    public static long[] pack(int[] binary) {
+        long[] words = new long[nbWords(binary.length)];
+        for (int i = 0; i < binary.length; i++) {
+            if (binary[i] >= 1) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @param indices The indices of the set bits.
+     * @param nbBits  The number of bits.
+     * @return The packed bitset of the given indices.
+     */
+    public static long[] pack(int[] indices, int nbBits) {
+        long[] words = new long[nbWords(nbBits)];
+        for (int i : indices) {
+            words[i >>> 6] |= 1L << i;
+        }
+        return words;
+    }
+
+    /**
+     * Packs a set into a reused bitset, ignoring the elements out of its range.
+     *
+     * @param set   The set.
+     * @param words The bitset to fill, cleared first.
+     * @return words.
+     */
+    public static long[] pack(ISet set, long[] words) {
+        Arrays.fill(words, 0);
+        for (int i : set) {
+            if (i >>> 6 < words.length) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * @return True if a and b share at least one bit.
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int w = 0; w < n; w++) {
+            if ((a[w] & b[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of bits set in both a and b.
+     */
+    public static int andCount(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        int count = 0;
+        for (int w = 0; w < n; w++) {
+            count += Long.bitCount(a[w] & b[w]);
+        }
+        return count;
+    }
+
+    /**
+     * @return The number of set bits.
+     */
+    public static int count(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param words The bitset.
+     * @param from  The index to start from.
+     * @return The index of the first set bit from the given index, -1 if there is none.
+     */
+    public static int nextSetBit(long[] words, int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+}
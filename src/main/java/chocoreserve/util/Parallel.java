@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Utility methods for splitting independent computations across a dedicated fork-join pool.
+ */
+public class Parallel {
+
+    private Parallel() {
+    }
+
+    /**
+     * Runs task(i) for each i in [0, n), in a dedicated fork-join pool if parallelism is greater than one.
+     *
+     * @param n           The number of tasks.
+     * @param parallelism The number of threads (1 for a sequential computation).
+     * @param task        The task.
+     */
+    public static void parallelFor(int n, int parallelism, IntConsumer task) {
+        if (parallelism <= 1) {
+            for (int i = 0; i < n; i++) {
+                task.accept(i);
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, n).parallel().forEach(task)));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
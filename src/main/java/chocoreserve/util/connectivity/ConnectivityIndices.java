@@ -27,11 +27,6 @@ import chocoreserve.grid.Grid;
 import chocoreserve.grid.neighborhood.INeighborhood;
 import chocoreserve.util.ConnectivityFinderSpatialGraph;
 import org.chocosolver.util.objects.graphs.UndirectedGraph;
-import org.chocosolver.util.objects.setDataStructures.ISet;
-
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * Utility class to compute connectivity indices on static objects.
@@ -43,21 +38,32 @@ public class ConnectivityIndices {
         ConnectivityFinderSpatialGraph connectivityFinder = new ConnectivityFinderSpatialGraph(g);
         connectivityFinder.findAllCC();
         // Construct inter-patch graph
-        int[][] neigh = new int[connectivityFinder.getNBCC()][];
+        int nbCC = connectivityFinder.getNBCC();
+        int[][] neigh = new int[nbCC][];
         int[] nodeCC = connectivityFinder.getNodeCC();
-        for (int i = 0; i < connectivityFinder.getNBCC(); i++) {
-            Set<Integer> conn = new HashSet<>();
+        int[] buffer = new int[threshold.getMaxNbNeighbors(grid)];
+        boolean[] conn = new boolean[nbCC];
+        for (int i = 0; i < nbCC; i++) {
+            int nAdj = 0;
             int[] cc = connectivityFinder.getCC(i);
             for (int node : cc) {
-                ISet n = threshold.getNeighbors(grid, node);
-                for (int j : n) {
-                    if (nodeCC[j] != i && g.getNodes().contains(j)) {
-                        conn.add(nodeCC[j]);
+                int nbNeighbors = threshold.fillNeighbors(grid, node, buffer);
+                for (int k = 0; k < nbNeighbors; k++) {
+                    int j = buffer[k];
+                    if (nodeCC[j] != i && g.getNodes().contains(j) && !conn[nodeCC[j]]) {
+                        conn[nodeCC[j]] = true;
+                        nAdj++;
                     }
                 }
             }
-            int[] adj = conn.stream().mapToInt(v -> v).toArray();
-            Arrays.sort(adj);
+            int[] adj = new int[nAdj];
+            int k = 0;
+            for (int j = 0; j < nbCC; j++) {
+                if (conn[j]) {
+                    adj[k++] = j;
+                    conn[j] = false;
+                }
+            }
             neigh[i] = adj;
         }
         // Compute IIC
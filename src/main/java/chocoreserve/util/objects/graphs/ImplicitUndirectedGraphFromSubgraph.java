@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util.objects.graphs;
+
+import chocoreserve.grid.Grid;
+import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.util.objects.setDataStructures.IntArraySet;
+import org.chocosolver.solver.Model;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+/**
+ * Backtrackable graph whose edges are implied by a neighborhood definition: two nodes are adjacent iff they are
+ * both in the graph and neighbors in the grid. Only the node set is stored, neighbors are derived on the fly from
+ * the grid geometry. Removing a node thus does not require any edge removal, and the memory footprint is one
+ * stored node set instead of one neighbor set per node.
+ *
+ * Edges cannot be added or removed independently of nodes.
+ */
+public class ImplicitUndirectedGraphFromSubgraph<T extends Grid> extends UndirectedGraphDecrementalFromSubgraph {
+
+    private final T grid;
+    private final INeighborhood<T> neighborhood;
+    private final int n;
+    private final ISet nodes;
+    private final int[] buffer;
+
+    public ImplicitUndirectedGraphFromSubgraph(Model model, T grid, INeighborhood<T> neighborhood, SetType type,
+                                               UndirectedGraphIncrementalCC GLB) {
+        super(model, 0, type, GLB, false);
+        this.grid = grid;
+        this.neighborhood = neighborhood;
+        this.n = grid.getNbCells();
+        this.nodes = SetFactory.makeStoredSet(type, 0, model);
+        this.buffer = new int[neighborhood.getMaxNbNeighbors(grid)];
+    }
+
+    public T getGrid() {
+        return grid;
+    }
+
+    public INeighborhood<T> getNeighborhood() {
+        return neighborhood;
+    }
+
+    @Override
+    public int getNbMaxNodes() {
+        return n;
+    }
+
+    @Override
+    public ISet getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public boolean addNode(int x) {
+        return nodes.add(x);
+    }
+
+    @Override
+    public boolean removeNode(int x) {
+        return nodes.remove(x);
+    }
+
+    /**
+     * Edges are implied by the nodes, an edge can only be "added" if it already exists.
+     */
+    @Override
+    public boolean addEdge(int x, int y) {
+        if (!edgeExists(x, y)) {
+            throw new UnsupportedOperationException("Edges of an implicit graph are implied by its nodes");
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeEdge(int x, int y) {
+        throw new UnsupportedOperationException("Edges of an implicit graph are implied by its nodes");
+    }
+
+    @Override
+    public boolean edgeExists(int x, int y) {
+        if (!nodes.contains(x) || !nodes.contains(y)) {
+            return false;
+        }
+        int nb = neighborhood.fillNeighbors(grid, x, buffer);
+        for (int k = 0; k < nb; k++) {
+            if (buffer[k] == y) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isArcOrEdge(int x, int y) {
+        return edgeExists(x, y);
+    }
+
+    /**
+     * @return The maximum number of neighbors of a node, i.e. the size needed for fillNeighOf buffers.
+     */
+    public int getMaxNbNeighbors() {
+        return buffer.length;
+    }
+
+    /**
+     * Writes the neighbors of x in the graph into a caller-owned buffer, in increasing order.
+     *
+     * @param x      A node.
+     * @param buffer The buffer to fill, its size must be at least getMaxNbNeighbors().
+     * @return The number of neighbors written in the buffer.
+     */
+    public int fillNeighOf(int x, int[] buffer) {
+        int nb = neighborhood.fillNeighbors(grid, x, buffer);
+        int k = 0;
+        for (int l = 0; l < nb; l++) {
+            int y = buffer[l];
+            if (nodes.contains(y)) {
+                // Insertion sort, neighborhoods are small
+                int m = k++;
+                while (m > 0 && buffer[m - 1] > y) {
+                    buffer[m] = buffer[m - 1];
+                    m--;
+                }
+                buffer[m] = y;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * @return A new set containing the neighbors of x in the graph. Its size is bounded by getMaxNbNeighbors() and
+     * does not depend on the number of nodes. Prefer fillNeighOf in loops.
+     */
+    @Override
+    public ISet getNeighOf(int x) {
+        int[] neighbors = new int[buffer.length];
+        return new IntArraySet(neighbors, fillNeighOf(x, neighbors));
+    }
+
+    @Override
+    public ISet getSuccOrNeighOf(int x) {
+        return getNeighOf(x);
+    }
+
+    @Override
+    public ISet getPredOrNeighOf(int x) {
+        return getNeighOf(x);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("nodes : \n").append(nodes).append("\n");
+        for (int i : nodes) {
+            sb.append("neighbors of ").append(i).append(" : ").append(getNeighOf(i)).append("\n");
+        }
+        return sb.toString();
+    }
+}
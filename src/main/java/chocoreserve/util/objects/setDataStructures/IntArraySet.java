@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util.objects.setDataStructures;
+
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.ISetIterator;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Unordered set of integers stored in a bounded int array, for small sets such as the neighbors of a cell: its
+ * memory footprint only depends on its capacity, not on the values it contains (unlike a bitset). Operations are
+ * linear in the size of the set.
+ */
+public class IntArraySet implements ISet {
+
+    private final int[] values;
+    private int size;
+    private final ISetIterator iter = newIterator();
+
+    /**
+     * @param capacity The maximum number of elements of the set.
+     */
+    public IntArraySet(int capacity) {
+        this(new int[capacity], 0);
+    }
+
+    /**
+     * Wraps an array without copying it.
+     *
+     * @param values The array, whose first size elements are the (distinct) elements of the set.
+     * @param size   The number of elements of the set.
+     */
+    public IntArraySet(int[] values, int size) {
+        assert size <= values.length;
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public ISetIterator iterator() {
+        iter.reset();
+        return iter;
+    }
+
+    @Override
+    public ISetIterator newIterator() {
+        return new ISetIterator() {
+            private int idx;
+
+            @Override
+            public void reset() {
+                idx = 0;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return idx < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (idx >= size) {
+                    throw new NoSuchElementException();
+                }
+                return values[idx++];
+            }
+        };
+    }
+
+    @Override
+    public boolean add(int element) {
+        if (contains(element)) {
+            return false;
+        }
+        if (size == values.length) {
+            throw new IllegalStateException("IntArraySet capacity (" + values.length + ") exceeded");
+        }
+        values[size++] = element;
+        return true;
+    }
+
+    @Override
+    public boolean remove(int element) {
+        for (int k = 0; k < size; k++) {
+            if (values[k] == element) {
+                System.arraycopy(values, k + 1, values, k, size - k - 1);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(int element) {
+        for (int k = 0; k < size; k++) {
+            if (values[k] == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public int min() {
+        if (size == 0) {
+            throw new IllegalStateException("cannot find minimal element of an empty set");
+        }
+        int min = values[0];
+        for (int k = 1; k < size; k++) {
+            min = Math.min(min, values[k]);
+        }
+        return min;
+    }
+
+    @Override
+    public int max() {
+        if (size == 0) {
+            throw new IllegalStateException("cannot find maximal element of an empty set");
+        }
+        int max = values[0];
+        for (int k = 1; k < size; k++) {
+            max = Math.max(max, values[k]);
+        }
+        return max;
+    }
+
+    /**
+     * @return FIXED_ARRAY, the closest choco set type (array-backed).
+     */
+    @Override
+    public SetType getSetType() {
+        return SetType.FIXED_ARRAY;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int k = 0; k < size; k++) {
+            sb.append(k == 0 ? "" : ", ").append(values[k]);
+        }
+        return sb.append("}").toString();
+    }
+}
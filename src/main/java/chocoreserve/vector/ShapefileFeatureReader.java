@@ -26,26 +26,19 @@ package chocoreserve.vector;
 import chocoreserve.grid.ShapefileGrid;
 import chocoreserve.solver.feature.BinaryFeature;
 import chocoreserve.solver.feature.array.BinaryArrayFeature;
-import org.geotools.data.DataStore;
-import org.geotools.data.DataStoreFinder;
-import org.geotools.data.FeatureSource;
-import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.FeatureIterator;
-import org.geotools.util.factory.GeoTools;
 import org.locationtech.jts.geom.Point;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.filter.Filter;
-import org.opengis.filter.FilterFactory2;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.IntStream;
 
 /**
  *
@@ -54,44 +47,91 @@ public class ShapefileFeatureReader {
 
     public static Map<String, BinaryFeature> binaryFeaturesFromShapefile(String path, String featureNameColumn,
                                                                          ShapefileGrid grid) throws IOException {
-        File shp = new File(path);
-        Map<String, Object> map = new HashMap<>();
-        map.put("url", shp.toURI().toURL());
-        DataStore dataStore = DataStoreFinder.getDataStore(map);
-        String typeName = dataStore.getTypeNames()[0];
-        FeatureSource<SimpleFeatureType, SimpleFeature> source = dataStore.getFeatureSource(typeName);
-        FilterFactory2 ff = CommonFactoryFinder.getFilterFactory2(GeoTools.getDefaultHints());
-        Filter filter = Filter.INCLUDE;
-        FeatureCollection<SimpleFeatureType, SimpleFeature> pointCollection = source.getFeatures(filter);
+        return binaryFeaturesFromShapefile(path, featureNameColumn, grid, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param path              The path of a point shapefile (e.g. species occurrences).
+     * @param featureNameColumn The attribute holding the feature (e.g. species) name of each point.
+     * @param grid              The shapefile grid.
+     * @param parallelism       The number of threads used for the point-in-polygon join.
+     * @return A binary feature for each feature name, with value 1 for the sites containing at least one point.
+     */
+    public static Map<String, BinaryFeature> binaryFeaturesFromShapefile(String path, String featureNameColumn,
+                                                                         ShapefileGrid grid, int parallelism)
+            throws IOException {
+        Map<String, BitSet> occurrences = occurrencesFromShapefile(path, featureNameColumn, grid, parallelism);
+        Map<String, BinaryFeature> result = new HashMap<>();
+        for (Map.Entry<String, BitSet> entry : occurrences.entrySet()) {
+            int[] array = new int[grid.getNbCells()];
+            BitSet sites = entry.getValue();
+            for (int i = sites.nextSetBit(0); i >= 0; i = sites.nextSetBit(i + 1)) {
+                array[i] = 1;
+            }
+            result.put(entry.getKey(), new BinaryArrayFeature(entry.getKey(), array));
+        }
+        return result;
+    }
 
-        Map<String, Set<Integer>> binaryFeatures = new HashMap<>();
+    /**
+     * Bulk point-in-polygon join between a point shapefile and a shapefile grid: both layers are read once, the
+     * sites are indexed in an STRtree and the points are located in parallel (see SpatialJoin.locatePoints).
+     *
+     * @param path              The path of a point shapefile (e.g. species occurrences).
+     * @param featureNameColumn The attribute holding the feature (e.g. species) name of each point.
+     * @param grid              The shapefile grid.
+     * @param parallelism       The number of threads used for the point-in-polygon join.
+     * @return For each feature name, the set of the internal ids of the sites containing at least one point.
+     */
+    public static Map<String, BitSet> occurrencesFromShapefile(String path, String featureNameColumn,
+                                                                ShapefileGrid grid, int parallelism)
+            throws IOException {
+        // The point layer is read through the data store session of the grid
+        FeatureCollection<SimpleFeatureType, SimpleFeature> pointCollection = grid.getFeatureSource(path)
+                .getFeatures(Filter.INCLUDE);
 
+        int nbPoints = pointCollection.size();
+        double[] xs = new double[nbPoints];
+        double[] ys = new double[nbPoints];
+        int[] pointFeatures = new int[nbPoints];
+        Map<String, Integer> featureIds = new HashMap<>();
+        List<String> featureNames = new ArrayList<>();
+
+        int p = 0;
         try (FeatureIterator<SimpleFeature> points = pointCollection.features()) {
             while (points.hasNext()) {
                 SimpleFeature pointFeature = points.next();
                 Point geom = (Point) pointFeature.getDefaultGeometry();
-                Filter f = ff.contains(ff.property("the_geom"), ff.literal(geom));
-                FeatureCollection<SimpleFeatureType, SimpleFeature> sitesCollection = grid.getFeatureCollection(f);
-                assert sitesCollection.size() <= 1;
-                if (sitesCollection.size() == 1) {
-                    try (FeatureIterator<SimpleFeature> iterator = sitesCollection.features()) {
-                        String shapeId = grid.getFeatureId(iterator.next());
-                        int internalId = grid.getInternalId(shapeId);
-                        String featName = pointFeature.getAttribute(featureNameColumn).toString();
-                        if (!binaryFeatures.keySet().contains(featName)) {
-                            binaryFeatures.put(featName, new HashSet<>());
-                        }
-                        binaryFeatures.get(featName).add(internalId);
-                    }
+                String featName = pointFeature.getAttribute(featureNameColumn).toString();
+                Integer featId = featureIds.get(featName);
+                if (featId == null) {
+                    featId = featureNames.size();
+                    featureIds.put(featName, featId);
+                    featureNames.add(featName);
                 }
+                xs[p] = geom.getX();
+                ys[p] = geom.getY();
+                pointFeatures[p] = featId;
+                p++;
             }
         }
-        Map<String, BinaryFeature> result = new HashMap<>();
-        for (String key : binaryFeatures.keySet()) {
-            int[] array = IntStream.range(0, grid.getNbCells())
-                    .map(i -> binaryFeatures.get(key).contains(i) ? 1 : 0)
-                    .toArray();
-            result.put(key, new BinaryArrayFeature(key, array));
+
+        int[] sites = SpatialJoin.locatePoints(grid.getGeometries(), xs, ys, parallelism);
+
+        BitSet[] occurrences = new BitSet[featureNames.size()];
+        for (int i = 0; i < occurrences.length; i++) {
+            occurrences[i] = new BitSet(grid.getNbCells());
+        }
+        for (int i = 0; i < nbPoints; i++) {
+            if (sites[i] >= 0) {
+                occurrences[pointFeatures[i]].set(sites[i]);
+            }
+        }
+        Map<String, BitSet> result = new HashMap<>();
+        for (int i = 0; i < occurrences.length; i++) {
+            if (!occurrences[i].isEmpty()) {
+                result.put(featureNames.get(i), occurrences[i]);
+            }
         }
         return result;
     }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.vector;
+
+import chocoreserve.util.Parallel;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory spatial joins between geometry layers, based on JTS STRtree indices and prepared geometries. Joins can
+ * be split across a fork-join pool: the indices are only read once built and each task writes its own result slot,
+ * so the results do not depend on the parallelism.
+ */
+public class SpatialJoin {
+
+    /**
+     * @param geometries Geometries.
+     * @return An STRtree (already built) indexing the envelopes of the geometries, with their index as items.
+     */
+    public static STRtree index(Geometry[] geometries) {
+        STRtree tree = new STRtree();
+        for (int i = 0; i < geometries.length; i++) {
+            tree.insert(geometries[i].getEnvelopeInternal(), i);
+        }
+        tree.build();
+        return tree;
+    }
+
+    /**
+     * @param geometries  The probe geometries.
+     * @param others      The geometries to join with, indexed once.
+     * @param parallelism The number of threads (1 for a sequential computation).
+     * @return For each probe geometry, the sorted indices of the geometries of others intersecting it.
+     */
+    public static int[][] intersecting(Geometry[] geometries, Geometry[] others, int parallelism) {
+        STRtree tree = index(others);
+        int[][] result = new int[geometries.length][];
+        Parallel.parallelFor(geometries.length, parallelism, i -> {
+            PreparedGeometry geom = PreparedGeometryFactory.prepare(geometries[i]);
+            List candidates = tree.query(geometries[i].getEnvelopeInternal());
+            int[] hits = new int[candidates.size()];
+            int nb = 0;
+            for (Object candidate : candidates) {
+                int j = (Integer) candidate;
+                if (geom.intersects(others[j])) {
+                    hits[nb++] = j;
+                }
+            }
+            hits = Arrays.copyOf(hits, nb);
+            Arrays.sort(hits);
+            result[i] = hits;
+        });
+        return result;
+    }
+
+    /**
+     * @param polygons    Polygonal geometries.
+     * @param xs          The x coordinates of the points.
+     * @param ys          The y coordinates of the points.
+     * @param parallelism The number of threads (1 for a sequential computation).
+     * @return For each point, the smallest index of a polygon containing it, -1 if there is none.
+     */
+    public static int[] locatePoints(Geometry[] polygons, double[] xs, double[] ys, int parallelism) {
+        assert xs.length == ys.length;
+        STRtree tree = index(polygons);
+        PreparedGeometry[] prepared = new PreparedGeometry[polygons.length];
+        Parallel.parallelFor(
+                polygons.length, parallelism, i -> prepared[i] = PreparedGeometryFactory.prepare(polygons[i])
+        );
+        GeometryFactory factory = new GeometryFactory();
+        int[] located = new int[xs.length];
+        Parallel.parallelFor(xs.length, parallelism, p -> {
+            Coordinate coordinate = new Coordinate(xs[p], ys[p]);
+            Point point = factory.createPoint(coordinate);
+            located[p] = -1;
+            for (Object candidate : tree.query(new Envelope(coordinate))) {
+                int i = (Integer) candidate;
+                if ((located[p] < 0 || i < located[p]) && prepared[i].contains(point)) {
+                    located[p] = i;
+                }
+            }
+        });
+        return located;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.benchmark;
+
+import chocoreserve.grid.neighborhood.CompiledNeighborhood;
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.CellOrdering;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares row-major and space-filling curve cell orderings on neighborhood-based traversals of large grids:
+ * a breadth-first search over the whole grid (as in connected components computations) and a neighborhood sum
+ * over cell data (as in feature aggregation). Neighborhoods computed arithmetically pay an index translation for
+ * non row-major orderings, the compiled variant does not.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=chocoreserve.benchmark.CellOrderingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CellOrderingBenchmark {
+
+    @Param({"1000", "2048"})
+    public int size;
+
+    @Param({"ROW_MAJOR", "MORTON", "HILBERT"})
+    public CellOrdering ordering;
+
+    private RegularSquareGrid grid;
+    private CompiledNeighborhood compiled;
+    private double[] data;
+    private int[] queue;
+    private int[] buffer;
+
+    @Setup
+    public void setup() {
+        grid = new RegularSquareGrid(size, size, ordering);
+        compiled = grid.getCompiledNeighborhood(Neighborhoods.FOUR_CONNECTED);
+        double[] rowMajorData = new double[grid.getNbCells()];
+        for (int i = 0; i < rowMajorData.length; i++) {
+            rowMajorData[i] = i % 7;
+        }
+        data = grid.toCellOrder(rowMajorData);
+        queue = new int[grid.getNbCells()];
+        buffer = new int[8];
+    }
+
+    @Benchmark
+    public int bfsFourConnected() {
+        BitSet visited = new BitSet(grid.getNbCells());
+        int head = 0;
+        int tail = 0;
+        int start = grid.getIndexFromCoordinates(size / 2, size / 2);
+        visited.set(start);
+        queue[tail++] = start;
+        while (head < tail) {
+            int i = queue[head++];
+            int nb = Neighborhoods.FOUR_CONNECTED.fillNeighbors(grid, i, buffer);
+            for (int k = 0; k < nb; k++) {
+                if (!visited.get(buffer[k])) {
+                    visited.set(buffer[k]);
+                    queue[tail++] = buffer[k];
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Same as bfsFourConnected, with neighbors read from the compiled (CSR) neighborhood: index translation
+     * costs are paid once at compilation, only the memory layout differs between orderings.
+     */
+    @Benchmark
+    public int bfsCompiledFourConnected() {
+        int[] offsets = compiled.getOffsets();
+        int[] targets = compiled.getTargets();
+        BitSet visited = new BitSet(grid.getNbCells());
+        int head = 0;
+        int tail = 0;
+        int start = grid.getIndexFromCoordinates(size / 2, size / 2);
+        visited.set(start);
+        queue[tail++] = start;
+        while (head < tail) {
+            int i = queue[head++];
+            for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                if (!visited.get(targets[k])) {
+                    visited.set(targets[k]);
+                    queue[tail++] = targets[k];
+                }
+            }
+        }
+        return tail;
+    }
+
+    @Benchmark
+    public double neighborhoodSumHeightConnected() {
+        double total = 0;
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int nb = Neighborhoods.HEIGHT_CONNECTED.fillNeighbors(grid, i, buffer);
+            for (int k = 0; k < nb; k++) {
+                total += data[buffer[k]];
+            }
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CellOrderingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.benchmark;
+
+import chocoreserve.util.PackedBits;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-element int[] loops and packed bitsets on coverage questions asked by feature constraints: how many
+ * features are present in a region, and how many cells of each feature the region contains.
+ *
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=chocoreserve.benchmark.PackedCoverageBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackedCoverageBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int nbCells;
+
+    @Param({"100"})
+    public int nbFeatures;
+
+    private int[][] features;
+    private long[][] packedFeatures;
+    private ISet region;
+    private long[] packedRegion;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        features = new int[nbFeatures][nbCells];
+        packedFeatures = new long[nbFeatures][];
+        for (int f = 0; f < nbFeatures; f++) {
+            for (int i = 0; i < nbCells; i++) {
+                features[f][i] = random.nextInt(100) == 0 ? 1 : 0;
+            }
+            packedFeatures[f] = PackedBits.pack(features[f]);
+        }
+        region = SetFactory.makeBitSet(0);
+        for (int i = 0; i < nbCells; i++) {
+            if (random.nextBoolean()) {
+                region.add(i);
+            }
+        }
+        packedRegion = new long[PackedBits.nbWords(nbCells)];
+    }
+
+    @Benchmark
+    public int presentIntArray() {
+        int nb = 0;
+        for (int[] feature : features) {
+            for (int i = 0; i < nbCells; i++) {
+                if (feature[i] >= 1 && region.contains(i)) {
+                    nb++;
+                    break;
+                }
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * The region is packed once for all the features, as in PropPackedCoverage.
+     */
+    @Benchmark
+    public int presentPacked() {
+        PackedBits.pack(region, packedRegion);
+        int nb = 0;
+        for (long[] feature : packedFeatures) {
+            if (PackedBits.intersects(feature, packedRegion)) {
+                nb++;
+            }
+        }
+        return nb;
+    }
+
+    @Benchmark
+    public int countIntArray() {
+        int total = 0;
+        for (int[] feature : features) {
+            for (int i : region) {
+                total += feature[i];
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int countPacked() {
+        PackedBits.pack(region, packedRegion);
+        int total = 0;
+        for (long[] feature : packedFeatures) {
+            total += PackedBits.andCount(feature, packedRegion);
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PackedCoverageBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
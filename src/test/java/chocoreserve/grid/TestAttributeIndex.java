@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAttributeIndex {
+
+    @Test
+    public void testIndex() {
+        AttributeIndex index = new AttributeIndex(new Object[]{"forest", 3L, "water", "forest", 3.0, null, 2.5, "3"});
+        Assert.assertEquals(6, index.getNbValues());
+        Assert.assertArrayEquals(new int[]{0, 3}, index.get("forest"));
+        Assert.assertArrayEquals(new int[]{2}, index.get("water"));
+        // Integral numbers match whatever their type
+        Assert.assertArrayEquals(new int[]{1, 4, 7}, index.get(3));
+        Assert.assertArrayEquals(new int[]{6}, index.get(2.5f));
+        // Numbers and strings representing numbers match, as with the GeoTools equality filter
+        Assert.assertArrayEquals(new int[]{1, 4, 7}, index.get("3"));
+        Assert.assertArrayEquals(new int[]{1, 4}, index.get("3.0"));
+        Assert.assertArrayEquals(new int[]{5}, index.get(null));
+        Assert.assertArrayEquals(new int[0], index.get("urban"));
+    }
+
+    @Test
+    public void testNumericStrings() {
+        // Character DBF fields holding numbers
+        AttributeIndex index = new AttributeIndex(new Object[]{"12", "3.0", "012", "12a", " 12 ", 12L});
+        Assert.assertArrayEquals(new int[]{0, 2, 4, 5}, index.get(12));
+        Assert.assertArrayEquals(new int[]{1}, index.get(3));
+        Assert.assertArrayEquals(new int[]{1}, index.get(3.0));
+        Assert.assertArrayEquals(new int[]{3}, index.get("12a"));
+        // Strings are compared as strings with each other
+        Assert.assertArrayEquals(new int[]{0, 5}, index.get("12"));
+        Assert.assertArrayEquals(new int[]{2, 5}, index.get("012"));
+        Assert.assertArrayEquals(new int[]{1}, index.get("3.0"));
+        Assert.assertArrayEquals(new int[0], index.get("3"));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+import chocoreserve.grid.regular.square.CellOrdering;
+import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCoordinateStore {
+
+    @Test
+    public void testRegularSquareGrid() {
+        RegularSquareGrid[] grids = new RegularSquareGrid[]{
+                new RegularSquareGrid(5, 7),
+                new RegularSquareGrid(5, 7, CellOrdering.HILBERT),
+                new PartialRegularSquareGrid(5, 7, new int[]{0, 6, 12, 34})
+        };
+        for (RegularSquareGrid grid : grids) {
+            CoordinateStore store = grid.getCoordinateStore();
+            Assert.assertSame(store, grid.getCoordinateStore());
+            Assert.assertEquals(grid.getNbCells(), store.getNbSites());
+            double[][] coords = grid.getCartesianCoordinates();
+            for (int i = 0; i < grid.getNbCells(); i++) {
+                Assert.assertArrayEquals(coords[i], store.getCoordinates(i), 0);
+            }
+        }
+        CoordinateStore store = grids[2].getCoordinateStore();
+        Assert.assertEquals(0, store.getMinX(), 0);
+        Assert.assertEquals(6, store.getMaxX(), 0);
+        Assert.assertEquals(0, store.getMinY(), 0);
+        Assert.assertEquals(4, store.getMaxY(), 0);
+    }
+
+    @Test
+    public void testArrays() {
+        CoordinateStore store = CoordinateStore.of(new double[][]{{0, 0}, {3, 4}, {-1, 2}});
+        Assert.assertEquals(3, store.getNbSites());
+        Assert.assertEquals(5, store.distance(0, 1), 1e-9);
+        Assert.assertEquals(Math.sqrt(5), store.distance(2, 0, 0), 1e-9);
+        Assert.assertEquals(-1, store.getMinX(), 0);
+        Assert.assertEquals(4, store.getMaxY(), 0);
+    }
+}
@@ -26,9 +26,14 @@ package chocoreserve.grid;
 import chocoreserve.grid.neighborhood.Neighborhoods;
 import org.junit.Assert;
 import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  *
@@ -83,6 +88,44 @@ public class TestShapefileGrid {
         }
     }
 
+    @Test
+    public void testComputeNeighbors() {
+        GeometryFactory factory = new GeometryFactory();
+        Geometry[] geometries = new Geometry[]{
+                factory.toGeometry(new Envelope(0, 1, 0, 1)),
+                factory.toGeometry(new Envelope(1, 2, 0, 1)),     // Shares an edge with 0
+                factory.toGeometry(new Envelope(2, 3, 1, 2)),     // Shares a corner with 1
+                factory.toGeometry(new Envelope(2.5, 4, 1.5, 3)), // Overlaps 2
+                factory.toGeometry(new Envelope(2.6, 2.7, 1.6, 1.7)), // Within 2 and 3
+                factory.createPolygon(new Coordinate[]{           // Envelope intersects 0 and 1, but disjoint
+                        new Coordinate(0.5, 2), new Coordinate(1.5, 2), new Coordinate(-0.5, 0.9), new Coordinate(0.5, 2)
+                })
+        };
+        int[][] expected = new int[][]{{1}, {0, 2}, {1, 3}, {2}, {}, {}};
+        int[][] computed = ShapefileGrid.computeNeighbors(geometries);
+        for (int i = 0; i < geometries.length; i++) {
+            Assert.assertArrayEquals(expected[i], computed[i]);
+        }
+    }
+
+    @Test
+    public void testComputeNeighborsParallel() {
+        GeometryFactory factory = new GeometryFactory();
+        Random random = new Random(0);
+        Geometry[] geometries = new Geometry[2000];
+        for (int i = 0; i < geometries.length; i++) {
+            // Boxes with integer bounds, so that many of them share edges or corners
+            int x = random.nextInt(100);
+            int y = random.nextInt(100);
+            geometries[i] = factory.toGeometry(new Envelope(x, x + 1 + random.nextInt(3), y, y + 1 + random.nextInt(3)));
+        }
+        int[][] sequential = ShapefileGrid.computeNeighbors(geometries);
+        int[][] parallel = ShapefileGrid.computeNeighbors(geometries, 4);
+        for (int i = 0; i < geometries.length; i++) {
+            Assert.assertArrayEquals(sequential[i], parallel[i]);
+        }
+    }
+
 //    @Test
 //    public void testBasicShapefileProblem() throws IOException {
 //        String path = getClass().getClassLoader().getResource("vector/BV_UnitesGestionProvinceSud_COTE_OUBLIEE/SousUnitesGestion.shp").getPath();
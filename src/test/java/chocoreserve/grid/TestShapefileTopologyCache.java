@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TestShapefileTopologyCache {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWriteRead() throws IOException {
+        File shp = folder.newFile("parcels.shp");
+        File dbf = folder.newFile("parcels.dbf");
+        Files.write(shp.toPath(), new byte[]{1, 2, 3});
+        Files.write(dbf.toPath(), new byte[]{4, 5});
+        String[] ids = new String[]{"a", "parcelle_\u00e9", ""};
+        double[] xs = new double[]{0.5, -2, 1e6};
+        double[] ys = new double[]{3, 4.25, -1e6};
+        int[][] neighbors = new int[][]{{1, 2}, {0}, {0}};
+
+        ShapefileTopologyCache cache = new ShapefileTopologyCache(shp.getPath(), "ID");
+        Assert.assertFalse(cache.read());
+        cache.write(ids, xs, ys, neighbors);
+        Assert.assertTrue(new File(shp.getPath() + ShapefileTopologyCache.EXTENSION).exists());
+
+        ShapefileTopologyCache loaded = new ShapefileTopologyCache(shp.getPath(), "ID");
+        Assert.assertTrue(loaded.read());
+        Assert.assertArrayEquals(ids, loaded.getShapeIds());
+        Assert.assertArrayEquals(xs, loaded.getCentroidXs(), 0);
+        Assert.assertArrayEquals(ys, loaded.getCentroidYs(), 0);
+        for (int i = 0; i < neighbors.length; i++) {
+            Assert.assertArrayEquals(neighbors[i], loaded.getNeighbors()[i]);
+        }
+
+        // Another id column or a modified shapefile invalidates the cache
+        Assert.assertFalse(new ShapefileTopologyCache(shp.getPath(), "").read());
+        Files.write(dbf.toPath(), new byte[]{6}, StandardOpenOption.APPEND);
+        Assert.assertFalse(new ShapefileTopologyCache(shp.getPath(), "ID").read());
+    }
+
+    @Test
+    public void testCorrupted() throws IOException {
+        File shp = folder.newFile("parcels.shp");
+        Files.write(new File(shp.getPath() + ShapefileTopologyCache.EXTENSION).toPath(), new byte[]{1, 2, 3});
+        Assert.assertFalse(new ShapefileTopologyCache(shp.getPath(), "").read());
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        File shp = folder.newFile("parcels.shp");
+        File cacheFile = new File(shp.getPath() + ShapefileTopologyCache.EXTENSION);
+        Files.write(cacheFile.toPath(), new byte[1 << 16]);
+        ShapefileTopologyCache cache = new ShapefileTopologyCache(shp.getPath(), "ID");
+        cache.write(new String[]{"a", "b"}, new double[2], new double[2], new int[][]{{1}, {0}});
+        Assert.assertTrue(new ShapefileTopologyCache(shp.getPath(), "ID").read());
+        // The temporary file was moved to the cache file
+        String[] files = folder.getRoot().list();
+        Arrays.sort(files);
+        Assert.assertArrayEquals(new String[]{"parcels.shp", "parcels.shp.crtopo"}, files);
+    }
+
+    @Test
+    public void testTooLarge() throws IOException {
+        File shp = folder.newFile("parcels.shp");
+        int nbSites = 60;
+        int[] neighs = new int[10000000];
+        int[][] neighbors = new int[nbSites][];
+        Arrays.fill(neighbors, neighs);
+        String[] ids = new String[nbSites];
+        Arrays.fill(ids, "a");
+        ShapefileTopologyCache cache = new ShapefileTopologyCache(shp.getPath(), "ID");
+        try {
+            cache.write(ids, new double[nbSites], new double[nbSites], neighbors);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("too large"));
+        }
+        Assert.assertFalse(cache.getCacheFile().exists());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood;
+
+import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestCompiledNeighborhood {
+
+    @Test
+    public void testSameNeighbors() {
+        RegularSquareGrid grid = new RegularSquareGrid(5, 7);
+        INeighborhood[] neighborhoods = new INeighborhood[]{
+                Neighborhoods.FOUR_CONNECTED,
+                Neighborhoods.HEIGHT_CONNECTED,
+                Neighborhoods.TWO_WIDE_FOUR_CONNECTED
+        };
+        for (INeighborhood neigh : neighborhoods) {
+            CompiledNeighborhood compiled = grid.getCompiledNeighborhood(neigh);
+            Assert.assertEquals(grid.getNbCells() + 1, compiled.getOffsets().length);
+            for (int i = 0; i < grid.getNbCells(); i++) {
+                int[] expected = neigh.getNeighbors(grid, i).toArray();
+                int[] computed = compiled.getNeighborsArray(i);
+                Arrays.sort(expected);
+                Arrays.sort(computed);
+                Assert.assertArrayEquals(expected, computed);
+                Assert.assertEquals(expected.length, compiled.getNbNeighbors(i));
+            }
+        }
+    }
+
+    @Test
+    public void testPartialGrid() {
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(4, 4, new int[]{0, 5, 6, 15});
+        CompiledNeighborhood compiled = grid.getCompiledNeighborhood(Neighborhoods.PARTIAL_HEIGHT_CONNECTED);
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expected = Neighborhoods.PARTIAL_HEIGHT_CONNECTED.getNeighbors(grid, i).toArray();
+            int[] computed = compiled.getNeighbors(grid, i).toArray();
+            Arrays.sort(expected);
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expected, computed);
+        }
+    }
+
+    @Test
+    public void testShared() {
+        RegularSquareGrid grid = new RegularSquareGrid(10, 10);
+        CompiledNeighborhood compiled = grid.getCompiledNeighborhood(Neighborhoods.FOUR_CONNECTED);
+        Assert.assertSame(compiled, grid.getCompiledNeighborhood(Neighborhoods.FOUR_CONNECTED));
+        Assert.assertSame(compiled, grid.getCompiledNeighborhood(compiled));
+        Assert.assertNotSame(compiled, grid.getCompiledNeighborhood(Neighborhoods.HEIGHT_CONNECTED));
+        Assert.assertNotSame(compiled, new RegularSquareGrid(10, 10).getCompiledNeighborhood(compiled));
+    }
+
+    @Test
+    public void testDefaultMaxNbNeighborsDoesNotCompile() {
+        RegularSquareGrid grid = new RegularSquareGrid(4, 4);
+        INeighborhood<RegularSquareGrid> neigh = new INeighborhood<RegularSquareGrid>() {
+            @Override
+            public ISet getNeighbors(RegularSquareGrid grid, int i) {
+                return Neighborhoods.FOUR_CONNECTED.getNeighbors(grid, i);
+            }
+
+            @Override
+            public CompiledNeighborhood<RegularSquareGrid> compile(RegularSquareGrid grid) {
+                throw new AssertionError("getMaxNbNeighbors must not compile the neighborhood");
+            }
+        };
+        Assert.assertEquals(4, neigh.getMaxNbNeighbors(grid));
+    }
+}
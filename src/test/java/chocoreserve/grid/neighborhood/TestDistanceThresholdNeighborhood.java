@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.neighborhood;
+
+import chocoreserve.grid.Grid;
+import chocoreserve.grid.neighborhood.regulare.square.StencilNeighborhood;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class TestDistanceThresholdNeighborhood {
+
+    @Test
+    public void testRegularSquareGrid() {
+        RegularSquareGrid grid = new RegularSquareGrid(9, 13);
+        DistanceThresholdNeighborhood<RegularSquareGrid> threshold = new DistanceThresholdNeighborhood<>(2);
+        StencilNeighborhood<RegularSquareGrid> stencil = new StencilNeighborhood<>(2, StencilNeighborhood.Metric.EUCLIDEAN);
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expected = stencil.getNeighbors(grid, i).toArray();
+            Arrays.sort(expected);
+            Assert.assertArrayEquals(expected, threshold.getNeighbors(grid, i).toArray());
+        }
+        Assert.assertEquals(12, threshold.getMaxNbNeighbors(grid));
+    }
+
+    @Test
+    public void testRandomPoints() {
+        Random random = new Random(0);
+        double[][] points = new double[500][];
+        for (int i = 0; i < points.length; i++) {
+            // Clustered points, with a few far away
+            double scale = i % 50 == 0 ? 1000 : 10;
+            points[i] = new double[]{random.nextDouble() * scale, random.nextDouble() * scale};
+        }
+        Grid grid = new PointGrid(points);
+        for (double d : new double[]{0, 0.5, 3}) {
+            DistanceThresholdNeighborhood<Grid> threshold = new DistanceThresholdNeighborhood<>(d);
+            int[] buffer = new int[threshold.getMaxNbNeighbors(grid)];
+            for (int i = 0; i < points.length; i++) {
+                int finalI = i;
+                int[] expected = IntStream.range(0, points.length)
+                        .filter(j -> j != finalI && Math.hypot(points[finalI][0] - points[j][0],
+                                points[finalI][1] - points[j][1]) <= d)
+                        .toArray();
+                int nb = threshold.fillNeighbors(grid, i, buffer);
+                Assert.assertArrayEquals(expected, Arrays.copyOf(buffer, nb));
+            }
+        }
+    }
+
+    @Test
+    public void testShared() {
+        RegularSquareGrid grid = new RegularSquareGrid(10, 10);
+        Assert.assertSame(
+                grid.getCompiledNeighborhood(new DistanceThresholdNeighborhood<>(1.5)),
+                grid.getCompiledNeighborhood(new DistanceThresholdNeighborhood<>(1.5))
+        );
+    }
+
+    /**
+     * Grid made of arbitrary points.
+     */
+    private static class PointGrid extends Grid {
+
+        private final double[][] points;
+
+        private PointGrid(double[][] points) {
+            this.points = points;
+        }
+
+        @Override
+        public int getNbCells() {
+            return points.length;
+        }
+
+        @Override
+        public double[][] getCartesianCoordinates() {
+            return points;
+        }
+
+        @Override
+        public double[] getCartesianCoordinates(int site) {
+            return points[site];
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.neighborhood.regulare.square.StencilNeighborhood;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestCellOrdering {
+
+    @Test
+    public void testPermutation() {
+        for (CellOrdering ordering : CellOrdering.values()) {
+            RegularSquareGrid grid = new RegularSquareGrid(13, 7, ordering);
+            boolean[] seen = new boolean[grid.getNbCells()];
+            for (int row = 0; row < 13; row++) {
+                for (int col = 0; col < 7; col++) {
+                    int i = grid.getIndexFromCoordinates(row, col);
+                    Assert.assertFalse(seen[i]);
+                    seen[i] = true;
+                    Assert.assertArrayEquals(new int[]{row, col}, grid.getCoordinatesFromIndex(i));
+                    Assert.assertEquals(7 * row + col, grid.getRowMajorIndex(i));
+                    Assert.assertEquals(i, grid.getCellIndex(7 * row + col));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCurves() {
+        RegularSquareGrid morton = new RegularSquareGrid(4, 4, CellOrdering.MORTON);
+        Assert.assertArrayEquals(new int[]{0, 1, 4, 5, 2, 3, 6, 7, 8, 9, 12, 13, 10, 11, 14, 15},
+                CellOrdering.MORTON.order(4, 4));
+        Assert.assertEquals(3, morton.getIndexFromCoordinates(1, 1));
+        // Consecutive cells along a Hilbert curve are always adjacent
+        RegularSquareGrid hilbert = new RegularSquareGrid(16, 16, CellOrdering.HILBERT);
+        for (int i = 1; i < hilbert.getNbCells(); i++) {
+            int[] a = hilbert.getCoordinatesFromIndex(i - 1);
+            int[] b = hilbert.getCoordinatesFromIndex(i);
+            Assert.assertEquals(1, Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]));
+        }
+    }
+
+    @Test
+    public void testNeighborhoods() {
+        INeighborhood[] neighborhoods = new INeighborhood[]{
+                Neighborhoods.FOUR_CONNECTED,
+                Neighborhoods.HEIGHT_CONNECTED,
+                new StencilNeighborhood(2, StencilNeighborhood.Metric.EUCLIDEAN)
+        };
+        RegularSquareGrid rowMajor = new RegularSquareGrid(9, 11);
+        for (CellOrdering ordering : new CellOrdering[]{CellOrdering.MORTON, CellOrdering.HILBERT}) {
+            RegularSquareGrid grid = new RegularSquareGrid(9, 11, ordering);
+            int[] buffer = new int[24];
+            for (INeighborhood neigh : neighborhoods) {
+                for (int i = 0; i < grid.getNbCells(); i++) {
+                    int[] expected = neigh.getNeighbors(rowMajor, grid.getRowMajorIndex(i)).toArray();
+                    int nb = neigh.fillNeighbors(grid, i, buffer);
+                    int[] computed = new int[nb];
+                    for (int k = 0; k < nb; k++) {
+                        computed[k] = grid.getRowMajorIndex(buffer[k]);
+                    }
+                    Arrays.sort(expected);
+                    Arrays.sort(computed);
+                    Assert.assertArrayEquals(expected, computed);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPartialGrid() {
+        int[] toDiscard = new int[]{0, 5, 6, 15, 20};
+        PartialRegularSquareGrid rowMajor = new PartialRegularSquareGrid(5, 6, toDiscard);
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(5, 6, toDiscard, CellOrdering.HILBERT);
+        Assert.assertEquals(rowMajor.getNbCells(), grid.getNbCells());
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] c = grid.getCoordinatesFromIndex(i);
+            Assert.assertEquals(i, grid.getIndexFromCoordinates(c[0], c[1]));
+            int[] expected = Neighborhoods.PARTIAL_FOUR_CONNECTED
+                    .getNeighbors(rowMajor, rowMajor.getCellIndex(grid.getRowMajorIndex(i))).toArray();
+            int[] computed = Neighborhoods.PARTIAL_FOUR_CONNECTED.getNeighbors(grid, i).toArray();
+            for (int k = 0; k < expected.length; k++) {
+                expected[k] = rowMajor.getRowMajorIndex(expected[k]);
+            }
+            for (int k = 0; k < computed.length; k++) {
+                computed[k] = grid.getRowMajorIndex(computed[k]);
+            }
+            Arrays.sort(expected);
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expected, computed);
+        }
+        double[] data = new double[30];
+        for (int i = 0; i < 30; i++) {
+            data[i] = i;
+        }
+        double[] reordered = grid.toCellOrder(data);
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            Assert.assertEquals(grid.getCompleteIndex(i), reordered[i], 0);
+        }
+    }
+}
@@ -28,7 +28,9 @@ import chocoreserve.grid.neighborhood.Neighborhoods;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Test case for FourConnectedSquareGrid.
@@ -94,4 +96,24 @@ public class TestFourConnectedSquareGrid {
         expected = new int[]{19, 23};
         Assert.assertTrue(Arrays.equals(neighbors, expected));
     }
+
+    @Test
+    public void testFillNeighbors() {
+        RegularSquareGrid grid = new RegularSquareGrid(5, 6);
+        INeighborhood neigh = Neighborhoods.FOUR_CONNECTED;
+        Assert.assertEquals(4, neigh.getMaxNbNeighbors(grid));
+        int[] buffer = new int[neigh.getMaxNbNeighbors(grid)];
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expected = neigh.getNeighbors(grid, i).toArray();
+            Arrays.sort(expected);
+            int nb = neigh.fillNeighbors(grid, i, buffer);
+            int[] filled = Arrays.copyOf(buffer, nb);
+            Arrays.sort(filled);
+            Assert.assertArrayEquals(expected, filled);
+            List<Integer> visited = new ArrayList<>();
+            neigh.forEachNeighbor(grid, i, visited::add);
+            int[] iterated = visited.stream().mapToInt(v -> v).sorted().toArray();
+            Assert.assertArrayEquals(expected, iterated);
+        }
+    }
 }
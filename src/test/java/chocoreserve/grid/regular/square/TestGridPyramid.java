@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.regular.square.GridPyramid.Aggregation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestGridPyramid {
+
+    @Test
+    public void testLevels() {
+        GridPyramid pyramid = new GridPyramid(new RegularSquareGrid(5, 7), 3);
+        Assert.assertEquals(3, pyramid.getNbLevels());
+        Assert.assertEquals(3, pyramid.getGrid(1).getNbRows());
+        Assert.assertEquals(4, pyramid.getGrid(1).getNbCols());
+        Assert.assertEquals(2, pyramid.getGrid(2).getNbRows());
+        Assert.assertEquals(2, pyramid.getGrid(2).getNbCols());
+        Assert.assertEquals(4, pyramid.getBlockSize(2));
+        RegularSquareGrid base = pyramid.getGrid(0);
+        // Every base cell is the child of its parent
+        for (int i = 0; i < base.getNbCells(); i++) {
+            int cell = i;
+            int parent = pyramid.getParent(0, i);
+            Assert.assertEquals(parent, pyramid.getCoarseCell(1, i));
+            Assert.assertTrue(Arrays.stream(pyramid.getChildren(1, parent)).anyMatch(j -> j == cell));
+            Assert.assertEquals(pyramid.getParent(1, parent), pyramid.getCoarseCell(2, i));
+        }
+        Assert.assertEquals(4, pyramid.getChildren(1, 0).length);
+        Assert.assertEquals(1, pyramid.getChildren(1, pyramid.getGrid(1).getIndexFromCoordinates(2, 3)).length);
+    }
+
+    @Test
+    public void testAggregation() {
+        GridPyramid pyramid = new GridPyramid(new RegularSquareGrid(4, 4, CellOrdering.MORTON), 3);
+        RegularSquareGrid base = pyramid.getGrid(0);
+        int[] data = new int[16];
+        data[base.getIndexFromCoordinates(0, 0)] = 3;
+        data[base.getIndexFromCoordinates(1, 1)] = 5;
+        data[base.getIndexFromCoordinates(3, 2)] = 2;
+        RegularSquareGrid level1 = pyramid.getGrid(1);
+        int[] sum = pyramid.aggregate(data, 1, Aggregation.SUM);
+        Assert.assertEquals(8, sum[level1.getIndexFromCoordinates(0, 0)]);
+        Assert.assertEquals(0, sum[level1.getIndexFromCoordinates(0, 1)]);
+        Assert.assertEquals(2, sum[level1.getIndexFromCoordinates(1, 1)]);
+        int[] max = pyramid.aggregate(data, 1, Aggregation.MAX);
+        Assert.assertEquals(5, max[level1.getIndexFromCoordinates(0, 0)]);
+        double[] any = pyramid.aggregate(Arrays.stream(data).asDoubleStream().toArray(), 1, Aggregation.ANY);
+        Assert.assertArrayEquals(new double[]{1, 0, 0, 1}, new double[]{
+                any[level1.getIndexFromCoordinates(0, 0)],
+                any[level1.getIndexFromCoordinates(0, 1)],
+                any[level1.getIndexFromCoordinates(1, 0)],
+                any[level1.getIndexFromCoordinates(1, 1)]
+        }, 0);
+        Assert.assertArrayEquals(new int[]{10}, pyramid.aggregate(data, 2, Aggregation.SUM));
+    }
+
+    @Test
+    public void testPartialBase() {
+        PartialRegularSquareGrid base = new PartialRegularSquareGrid(4, 4, new int[]{0, 1, 4, 5, 10});
+        GridPyramid pyramid = new GridPyramid(base, 2);
+        Assert.assertEquals(0, pyramid.getChildren(1, 0).length);
+        Assert.assertEquals(3, pyramid.getChildren(1, 3).length);
+        int[] ones = new int[base.getNbCells()];
+        Arrays.fill(ones, 1);
+        Assert.assertArrayEquals(new int[]{0, 4, 4, 3}, pyramid.aggregate(ones, 1, Aggregation.SUM));
+    }
+}
@@ -28,7 +28,9 @@ import chocoreserve.grid.neighborhood.Neighborhoods;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Test case for HeightConnectedSquareGrid.
@@ -77,4 +79,24 @@ public class TestHeightConnectedSquareGrid {
         expected = new int[]{18, 19, 23};
         Assert.assertTrue(Arrays.equals(neighbors, expected));
     }
+
+    @Test
+    public void testFillNeighbors() {
+        RegularSquareGrid grid = new RegularSquareGrid(5, 6);
+        INeighborhood neigh = Neighborhoods.HEIGHT_CONNECTED;
+        Assert.assertEquals(8, neigh.getMaxNbNeighbors(grid));
+        int[] buffer = new int[neigh.getMaxNbNeighbors(grid)];
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expected = neigh.getNeighbors(grid, i).toArray();
+            Arrays.sort(expected);
+            int nb = neigh.fillNeighbors(grid, i, buffer);
+            int[] filled = Arrays.copyOf(buffer, nb);
+            Arrays.sort(filled);
+            Assert.assertArrayEquals(expected, filled);
+            List<Integer> visited = new ArrayList<>();
+            neigh.forEachNeighbor(grid, i, visited::add);
+            int[] iterated = visited.stream().mapToInt(v -> v).sorted().toArray();
+            Assert.assertArrayEquals(expected, iterated);
+        }
+    }
 }
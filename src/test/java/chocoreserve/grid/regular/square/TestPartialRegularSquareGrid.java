@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.neighborhood.regulare.square.PartialFourConnected;
+import chocoreserve.grid.neighborhood.regulare.square.PartialHeightConnected;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class TestPartialRegularSquareGrid {
+
+    @Test
+    public void testIndices() {
+        int[] toDiscard = new int[]{0, 1, 10, 11, 12, 40, 41, 70, 70};
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(8, 9, toDiscard);
+        Assert.assertEquals(72 - 8, grid.getNbCells());
+        int partialIdx = 0;
+        for (int i = 0; i < 72; i++) {
+            int completeIdx = i;
+            boolean discarded = IntStream.of(toDiscard).anyMatch(j -> j == completeIdx);
+            Assert.assertEquals(!discarded, grid.isValid(i));
+            Assert.assertEquals(!discarded, grid.isValid(i / 9, i % 9));
+            if (discarded) {
+                Assert.assertEquals(-1, grid.getPartialIndex(i));
+                Assert.assertTrue(grid.getDiscardSet().contains(i));
+            } else {
+                Assert.assertEquals(partialIdx, grid.getPartialIndex(i));
+                Assert.assertEquals(i, grid.getCompleteIndex(partialIdx));
+                partialIdx++;
+            }
+        }
+        Assert.assertEquals(8, grid.getDiscardSet().size());
+    }
+
+    @Test
+    public void testNoDataMask() {
+        int[] toDiscard = new int[]{3, 4, 5, 63, 64, 65, 66};
+        boolean[] mask = new boolean[130];
+        for (int i : toDiscard) {
+            mask[i] = true;
+        }
+        PartialRegularSquareGrid g1 = new PartialRegularSquareGrid(10, 13, toDiscard);
+        PartialRegularSquareGrid g2 = new PartialRegularSquareGrid(10, 13, mask);
+        Assert.assertEquals(g1.getNbCells(), g2.getNbCells());
+        for (int i = 0; i < g1.getNbCells(); i++) {
+            Assert.assertEquals(g1.getCompleteIndex(i), g2.getCompleteIndex(i));
+        }
+    }
+
+    @Test
+    public void testNeighborhoods() {
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(8, 9, new int[]{0, 1, 10, 11, 12, 40, 41, 70});
+        PartialFourConnected four = new PartialFourConnected();
+        PartialHeightConnected height = new PartialHeightConnected();
+        int[] buffer = new int[8];
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] c = grid.getCoordinatesFromIndex(i);
+            int cell = i;
+            int[] expectedFour = IntStream.range(0, grid.getNbCells())
+                    .filter(j -> {
+                        int[] cj = grid.getCoordinatesFromIndex(j);
+                        return Math.abs(cj[0] - c[0]) + Math.abs(cj[1] - c[1]) == 1;
+                    })
+                    .toArray();
+            int[] expectedHeight = IntStream.range(0, grid.getNbCells())
+                    .filter(j -> {
+                        int[] cj = grid.getCoordinatesFromIndex(j);
+                        return j != cell && Math.max(Math.abs(cj[0] - c[0]), Math.abs(cj[1] - c[1])) == 1;
+                    })
+                    .toArray();
+            int[] computed = four.getNeighbors(grid, i).toArray();
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expectedFour, computed);
+            int nb = four.fillNeighbors(grid, i, buffer);
+            computed = Arrays.copyOf(buffer, nb);
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expectedFour, computed);
+            computed = height.getNeighbors(grid, i).toArray();
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expectedHeight, computed);
+            nb = height.fillNeighbors(grid, i, buffer);
+            computed = Arrays.copyOf(buffer, nb);
+            Arrays.sort(computed);
+            Assert.assertArrayEquals(expectedHeight, computed);
+        }
+    }
+}
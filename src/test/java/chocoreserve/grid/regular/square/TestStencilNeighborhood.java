@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.neighborhood.INeighborhood;
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.neighborhood.regulare.square.PartialStencilNeighborhood;
+import chocoreserve.grid.neighborhood.regulare.square.StencilNeighborhood;
+import chocoreserve.grid.neighborhood.regulare.square.StencilNeighborhood.Metric;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class TestStencilNeighborhood {
+
+    private static double distance(Metric metric, int dRow, int dCol) {
+        switch (metric) {
+            case CHEBYSHEV:
+                return Math.max(Math.abs(dRow), Math.abs(dCol));
+            case MANHATTAN:
+                return Math.abs(dRow) + Math.abs(dCol);
+            default:
+                return Math.sqrt(dRow * dRow + dCol * dCol);
+        }
+    }
+
+    @Test
+    public void testInteriorCell() {
+        RegularSquareGrid grid = new RegularSquareGrid(11, 11);
+        int center = grid.getIndexFromCoordinates(5, 5);
+        Assert.assertEquals(24, new StencilNeighborhood(2, Metric.CHEBYSHEV).getNeighbors(grid, center).size());
+        Assert.assertEquals(12, new StencilNeighborhood(2, Metric.MANHATTAN).getNeighbors(grid, center).size());
+        Assert.assertEquals(12, new StencilNeighborhood(2, Metric.EUCLIDEAN).getNeighbors(grid, center).size());
+        Assert.assertEquals(28, new StencilNeighborhood(3, Metric.EUCLIDEAN).getNeighbors(grid, center).size());
+        Assert.assertEquals(8, new StencilNeighborhood(1, Metric.CHEBYSHEV).getNeighbors(grid, center).size());
+    }
+
+    @Test
+    public void testAgainstDistances() {
+        RegularSquareGrid grid = new RegularSquareGrid(9, 13);
+        for (Metric metric : Metric.values()) {
+            for (int radius = 1; radius <= 6; radius++) {
+                StencilNeighborhood neigh = new StencilNeighborhood(radius, metric);
+                int[] buffer = new int[neigh.getMaxNbNeighbors(grid)];
+                for (int i = 0; i < grid.getNbCells(); i++) {
+                    int[] c = grid.getCoordinatesFromIndex(i);
+                    int cell = i;
+                    int r = radius;
+                    int[] expected = IntStream.range(0, grid.getNbCells())
+                            .filter(j -> {
+                                int[] cj = grid.getCoordinatesFromIndex(j);
+                                return j != cell && distance(metric, cj[0] - c[0], cj[1] - c[1]) <= r;
+                            })
+                            .toArray();
+                    int nb = neigh.fillNeighbors(grid, i, buffer);
+                    Assert.assertArrayEquals(expected, Arrays.copyOf(buffer, nb));
+                    Assert.assertArrayEquals(expected, neigh.getNeighbors(grid, i).toArray());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPartialGrid() {
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(8, 9, new int[]{0, 1, 10, 11, 12, 40, 41, 70});
+        for (Metric metric : Metric.values()) {
+            PartialStencilNeighborhood neigh = new PartialStencilNeighborhood(3, metric);
+            for (int i = 0; i < grid.getNbCells(); i++) {
+                int[] c = grid.getCoordinatesFromIndex(i);
+                int cell = i;
+                int[] expected = IntStream.range(0, grid.getNbCells())
+                        .filter(j -> {
+                            int[] cj = grid.getCoordinatesFromIndex(j);
+                            return j != cell && distance(metric, cj[0] - c[0], cj[1] - c[1]) <= 3;
+                        })
+                        .toArray();
+                int[] computed = neigh.getNeighbors(grid, i).toArray();
+                Arrays.sort(computed);
+                Assert.assertArrayEquals(expected, computed);
+            }
+        }
+    }
+
+    /**
+     * Reference 2-wide neighborhood: the neighbors of the direct neighbors (and the direct neighbors if withDirect).
+     */
+    private static int[] twoHops(INeighborhood neigh, RegularSquareGrid grid, int i, boolean withDirect,
+                                 boolean withSelf) {
+        return IntStream.of(neigh.getNeighbors(grid, i).toArray())
+                .flatMap(j -> IntStream.concat(
+                        withDirect ? IntStream.of(j) : IntStream.empty(),
+                        IntStream.of(neigh.getNeighbors(grid, j).toArray())
+                ))
+                .filter(j -> withSelf || j != i)
+                .distinct().sorted().toArray();
+    }
+
+    @Test
+    public void testTwoWide() {
+        RegularSquareGrid grid = new RegularSquareGrid(6, 7);
+        int[] buffer = new int[25];
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expectedFour = twoHops(Neighborhoods.FOUR_CONNECTED, grid, i, true, true);
+            int[] expectedHeight = twoHops(Neighborhoods.HEIGHT_CONNECTED, grid, i, true, true);
+            Assert.assertArrayEquals(expectedFour, Neighborhoods.TWO_WIDE_FOUR_CONNECTED.getNeighbors(grid, i).toArray());
+            Assert.assertArrayEquals(expectedHeight, Neighborhoods.TWO_WIDE_HEIGHT_CONNECTED.getNeighbors(grid, i).toArray());
+            int nb = Neighborhoods.TWO_WIDE_HEIGHT_CONNECTED.fillNeighbors(grid, i, buffer);
+            Assert.assertArrayEquals(expectedHeight, Arrays.copyOf(buffer, nb));
+        }
+        Assert.assertEquals(13, Neighborhoods.TWO_WIDE_FOUR_CONNECTED.getMaxNbNeighbors(grid));
+        Assert.assertEquals(25, Neighborhoods.TWO_WIDE_HEIGHT_CONNECTED.getMaxNbNeighbors(grid));
+        // The stencils are the same cells, without the cell itself
+        int center = grid.getIndexFromCoordinates(3, 3);
+        Assert.assertEquals(12, Neighborhoods.MANHATTAN_TWO.getNeighbors(grid, center).size());
+        Assert.assertEquals(24, Neighborhoods.CHEBYSHEV_TWO.getNeighbors(grid, center).size());
+    }
+
+    @Test
+    public void testPartialTwoWide() {
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(7, 8, new int[]{1, 9, 10, 11, 27, 28, 35, 50});
+        int[] buffer = new int[25];
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            int[] expectedFour = twoHops(Neighborhoods.PARTIAL_FOUR_CONNECTED, grid, i, false, false);
+            int[] expectedHeight = twoHops(Neighborhoods.PARTIAL_HEIGHT_CONNECTED, grid, i, true, true);
+            Assert.assertArrayEquals(
+                    expectedFour,
+                    Neighborhoods.PARTIAL_TWO_WIDE_FOUR_CONNECTED.getNeighbors(grid, i).toArray()
+            );
+            Assert.assertArrayEquals(
+                    expectedHeight,
+                    Neighborhoods.PARTIAL_TWO_WIDE_HEIGHT_CONNECTED.getNeighbors(grid, i).toArray()
+            );
+            int nb = Neighborhoods.PARTIAL_TWO_WIDE_FOUR_CONNECTED.fillNeighbors(grid, i, buffer);
+            int[] filled = Arrays.copyOf(buffer, nb);
+            Arrays.sort(filled);
+            Assert.assertArrayEquals(expectedFour, filled);
+        }
+    }
+
+    @Test
+    public void testEquality() {
+        Assert.assertEquals(new StencilNeighborhood(5, Metric.EUCLIDEAN), new StencilNeighborhood(5, Metric.EUCLIDEAN));
+        Assert.assertNotEquals(new StencilNeighborhood(5, Metric.EUCLIDEAN), new StencilNeighborhood(5, Metric.MANHATTAN));
+        Assert.assertNotEquals(new StencilNeighborhood(5, Metric.EUCLIDEAN), new PartialStencilNeighborhood(5, Metric.EUCLIDEAN));
+        RegularSquareGrid grid = new RegularSquareGrid(10, 10);
+        Assert.assertSame(
+                grid.getCompiledNeighborhood(new StencilNeighborhood(3, Metric.CHEBYSHEV)),
+                grid.getCompiledNeighborhood(new StencilNeighborhood(3, Metric.CHEBYSHEV))
+        );
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.grid.regular.square;
+
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.solver.feature.tiled.QuantitativeTiledFeature;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+public class TestTiledRegularSquareGrid {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTiles() throws IOException {
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, folder.getRoot())) {
+            Assert.assertEquals(2, grid.getNbTileRows());
+            Assert.assertEquals(3, grid.getNbTileCols());
+            boolean[] seen = new boolean[grid.getNbCells()];
+            for (int tile = 0; tile < grid.getNbTiles(); tile++) {
+                for (int cell : grid.getTileCells(tile)) {
+                    Assert.assertFalse(seen[cell]);
+                    seen[cell] = true;
+                    Assert.assertEquals(tile, grid.getTile(cell));
+                }
+            }
+            Assert.assertEquals(6, grid.getTileCells(5).length);
+            // Neighborhoods apply unchanged
+            RegularSquareGrid regular = new RegularSquareGrid(7, 10);
+            for (int i = 0; i < grid.getNbCells(); i++) {
+                Assert.assertArrayEquals(
+                        Neighborhoods.HEIGHT_CONNECTED.getNeighbors(regular, i).toArray(),
+                        Neighborhoods.HEIGHT_CONNECTED.getNeighbors(grid, i).toArray()
+                );
+            }
+        }
+    }
+
+    @Test
+    public void testLayers() throws IOException {
+        File dir = new File(folder.getRoot(), "work");
+        double[] values = new double[70];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 0.5;
+        }
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            TiledLayer layer = grid.openLayer("values", TiledLayer.Type.DOUBLE);
+            layer.write(values);
+            Assert.assertArrayEquals(values, layer.toDoubleArray(), 0);
+            double[] buffer = new double[16];
+            layer.readTile(1, buffer);
+            Assert.assertEquals(values[4], buffer[0], 0);
+            Assert.assertEquals(values[15], buffer[5], 0);
+            TiledLayer counts = grid.openLayer("counts", TiledLayer.Type.INT);
+            counts.setInt(42, 7);
+            Assert.assertEquals(7, new QuantitativeTiledFeature(counts).getQuantitativeData()[42]);
+            grid.setValid(3, false);
+            grid.setValid(69, false);
+            Assert.assertFalse(grid.isValid(0, 3));
+            Assert.assertEquals(68, grid.getValidCells().length);
+        }
+        // Layers persist in the working directory
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            Assert.assertArrayEquals(values, grid.openLayer("values", TiledLayer.Type.DOUBLE).toDoubleArray(), 0);
+            Assert.assertFalse(grid.isValid(69));
+            Assert.assertFalse(Arrays.stream(grid.getValidCells()).anyMatch(i -> i == 3 || i == 69));
+        }
+    }
+
+    @Test
+    public void testStaleLayerFile() throws IOException {
+        File dir = new File(folder.getRoot(), "stale");
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            grid.openLayer("values", TiledLayer.Type.DOUBLE).setDouble(3, 1.5);
+        }
+        // Same layout: values are retrieved
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            Assert.assertEquals(1.5, grid.openLayer("values", TiledLayer.Type.DOUBLE).getDouble(3), 0);
+        }
+        // Another type: the file is rejected
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            try {
+                new TiledLayer(grid, "values", TiledLayer.Type.INT, new File(dir, "values.layer"));
+                Assert.fail();
+            } catch (IOException e) {
+                Assert.assertTrue(e.getMessage().contains("DOUBLE"));
+            }
+        }
+        // Another grid layout: the stale files are rejected
+        try {
+            new TiledRegularSquareGrid(8, 10, 4, dir).close();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("7x10"));
+        }
+        File garbage = new File(dir, "garbage.layer");
+        Files.write(garbage.toPath(), new byte[]{1, 2, 3});
+        try (TiledRegularSquareGrid grid = new TiledRegularSquareGrid(7, 10, 4, dir)) {
+            grid.openLayer("garbage", TiledLayer.Type.BYTE);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("not a valid layer file"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.raster;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Test case for RasterCache.
+ */
+public class TestRasterCache {
+
+    @Test
+    public void testHit() throws IOException {
+        RasterCache cache = new RasterCache(1000);
+        int[] nbLoads = new int[1];
+        RasterCache.Loader loader = () -> {
+            nbLoads[0]++;
+            return new int[]{1, 2, 3};
+        };
+        Object a = cache.get("a", 0, 0, RasterCache.Type.INT, loader);
+        Object b = cache.get("a", 0, 0, RasterCache.Type.INT, loader);
+        Assert.assertSame(a, b);
+        Assert.assertEquals(1, nbLoads[0]);
+        Assert.assertEquals(12, cache.getSize());
+        // Other band, other type and modified file are other entries
+        cache.get("a", 0, 1, RasterCache.Type.INT, loader);
+        cache.get("a", 0, 0, RasterCache.Type.DOUBLE, () -> new double[]{1, 2, 3});
+        Assert.assertEquals(3, cache.getNbEntries());
+        // Windows are other entries, equal windows share them
+        int[] mapping = new int[]{0, -1, 1, -1};
+        RasterWindow window = new RasterWindow(0, 0, 2, 2, mapping, 2);
+        Object w = cache.get("a", 0, 0, RasterCache.Type.INT, window, loader);
+        Assert.assertNotSame(a, w);
+        RasterWindow sameWindow = new RasterWindow(0, 0, 2, 2, mapping, 2);
+        Assert.assertSame(w, cache.get("a", 0, 0, RasterCache.Type.INT, sameWindow, loader));
+        Assert.assertEquals(4, cache.getNbEntries());
+        Object c = cache.get("a", 1, 0, RasterCache.Type.INT, loader);
+        Assert.assertNotSame(a, c);
+        Assert.assertEquals(1, cache.getNbEntries());
+        cache.clear();
+        Assert.assertEquals(0, cache.getNbEntries());
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        RasterCache cache = new RasterCache(100);
+        cache.get("a", 0, 0, RasterCache.Type.DOUBLE, () -> new double[5]);
+        cache.get("b", 0, 0, RasterCache.Type.DOUBLE, () -> new double[5]);
+        // Access a so that b is the least recently used entry
+        cache.get("a", 0, 0, RasterCache.Type.DOUBLE, () -> null);
+        cache.get("c", 0, 0, RasterCache.Type.DOUBLE, () -> new double[5]);
+        Assert.assertEquals(2, cache.getNbEntries());
+        Assert.assertEquals(80, cache.getSize());
+        int[] nbLoads = new int[1];
+        cache.get("a", 0, 0, RasterCache.Type.DOUBLE, () -> {
+            nbLoads[0]++;
+            return new double[5];
+        });
+        Assert.assertEquals(0, nbLoads[0]);
+        // Larger than the budget: returned but not cached
+        double[] large = (double[]) cache.get("d", 0, 0, RasterCache.Type.DOUBLE, () -> new double[20]);
+        Assert.assertEquals(20, large.length);
+        Assert.assertEquals(2, cache.getNbEntries());
+        cache.setMaxBytes(40);
+        Assert.assertEquals(1, cache.getNbEntries());
+    }
+}
@@ -23,11 +23,18 @@
 
 package chocoreserve.raster;
 
+import chocoreserve.grid.regular.square.CellOrdering;
+import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.*;
 import java.io.IOException;
+import java.util.Vector;
 
 /**
  * Test case for RasterReader.
@@ -112,4 +119,192 @@ public class TestRasterReader {
             Assert.fail();
         }
     }
+
+    /**
+     * In-memory image split into tiles of tileSize x tileSize pixels, the last ones being truncated.
+     */
+    private static class TiledImage implements RenderedImage {
+
+        private final WritableRaster raster;
+        private final int tileSize;
+        private int nbFetchedTiles;
+
+        private TiledImage(int width, int height, int tileSize) {
+            this(width, height, tileSize, 1);
+        }
+
+        /**
+         * The value of the band b for the pixel p (row-major index) is p + 10000 * b.
+         */
+        private TiledImage(int width, int height, int tileSize, int nbBands) {
+            this.raster = Raster.createBandedRaster(DataBuffer.TYPE_INT, width, height, nbBands, new Point(0, 0));
+            this.tileSize = tileSize;
+            for (int b = 0; b < nbBands; b++) {
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        raster.setSample(x, y, b, y * width + x + 10000 * b);
+                    }
+                }
+            }
+        }
+
+        public Vector<RenderedImage> getSources() { return null; }
+        public Object getProperty(String name) { return null; }
+        public String[] getPropertyNames() { return null; }
+        public ColorModel getColorModel() { return null; }
+        public SampleModel getSampleModel() { return raster.getSampleModel(); }
+        public int getWidth() { return raster.getWidth(); }
+        public int getHeight() { return raster.getHeight(); }
+        public int getMinX() { return 0; }
+        public int getMinY() { return 0; }
+        public int getNumXTiles() { return (getWidth() + tileSize - 1) / tileSize; }
+        public int getNumYTiles() { return (getHeight() + tileSize - 1) / tileSize; }
+        public int getMinTileX() { return 0; }
+        public int getMinTileY() { return 0; }
+        public int getTileWidth() { return tileSize; }
+        public int getTileHeight() { return tileSize; }
+        public int getTileGridXOffset() { return 0; }
+        public int getTileGridYOffset() { return 0; }
+        public Raster getData() { return raster; }
+        public Raster getData(Rectangle rect) { return raster.createChild(rect.x, rect.y, rect.width, rect.height, rect.x, rect.y, null); }
+        public WritableRaster copyData(WritableRaster r) { return null; }
+
+        public Raster getTile(int tileX, int tileY) {
+            nbFetchedTiles++;
+            int x = tileX * tileSize;
+            int y = tileY * tileSize;
+            int w = Math.min(tileSize, getWidth() - x);
+            int h = Math.min(tileSize, getHeight() - y);
+            return raster.createChild(x, y, w, h, x, y, null);
+        }
+    }
+
+    @Test
+    public void testReadTiled() throws IOException {
+        RasterReader reader = new RasterReader(new TiledImage(75, 46, 16));
+        int[] ints = reader.readAsIntArray();
+        double[] doubles = reader.readAsDoubleArray();
+        int[][] matrix = reader.readAsIntMatrix();
+        Assert.assertEquals(46 * 75, ints.length);
+        for (int i = 0; i < ints.length; i++) {
+            Assert.assertEquals(i, ints[i]);
+            Assert.assertEquals(i, doubles[i], 0);
+            Assert.assertEquals(i, matrix[i / 75][i % 75]);
+        }
+    }
+
+    @Test
+    public void testStreamRows() {
+        RasterReader reader = new RasterReader(new TiledImage(75, 46, 16));
+        int[] nbRows = new int[1];
+        reader.streamRows((row, values) -> {
+            Assert.assertEquals(nbRows[0], row);
+            Assert.assertEquals(75, values.length);
+            for (int x = 0; x < 75; x++) {
+                Assert.assertEquals(row * 75 + x, values[x], 0);
+            }
+            nbRows[0]++;
+        });
+        Assert.assertEquals(46, nbRows[0]);
+    }
+
+    @Test
+    public void testReadBandInterleaved() throws IOException {
+        RasterReader reader = new RasterReader(new TiledImage(75, 46, 16, 4));
+        Assert.assertEquals(4, reader.getNbBands());
+        int[] bands = new int[]{3, 1};
+        int[] ints = reader.readAsBandInterleavedIntArray(bands);
+        double[] doubles = reader.readAsBandInterleavedDoubleArray(bands);
+        Assert.assertEquals(46 * 75 * 2, ints.length);
+        for (int p = 0; p < 46 * 75; p++) {
+            for (int k = 0; k < 2; k++) {
+                Assert.assertEquals(p + 10000 * bands[k], ints[p * 2 + k]);
+                Assert.assertEquals(p + 10000 * bands[k], doubles[p * 2 + k], 0);
+            }
+        }
+        Assert.assertArrayEquals(reader.readAsIntArray(3), reader.readAsBandInterleavedIntArray(new int[]{3}));
+    }
+
+    @Test
+    public void testBandInterleavedTooLarge() {
+        // 2000 bands of 1100x1000 pixels: 2.2e9 values, more than an array can hold
+        RasterReader reader = new RasterReader(new TiledImage(1, 1, 1) {
+            public int getWidth() { return 1100; }
+            public int getHeight() { return 1000; }
+        });
+        int[] bands = new int[2000];
+        try {
+            reader.readAsBandInterleavedIntArray(bands);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("2200000000"));
+        }
+        try {
+            reader.readAsBandInterleavedDoubleArray(bands);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("smaller chunks"));
+        }
+    }
+
+    @Test
+    public void testReadWindow() throws IOException {
+        TiledImage image = new TiledImage(75, 46, 16);
+        RasterReader reader = new RasterReader(image);
+        // Rows 10 to 29, columns 20 to 49, in row-major order
+        int[] values = reader.readAsIntArray(0, new RasterWindow(20, 10, 30, 20));
+        Assert.assertEquals(600, values.length);
+        for (int r = 0; r < 20; r++) {
+            for (int c = 0; c < 30; c++) {
+                Assert.assertEquals((10 + r) * 75 + 20 + c, values[r * 30 + c]);
+            }
+        }
+        try {
+            reader.readAsIntArray(0, new RasterWindow(50, 10, 30, 20));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testReadPartialGrid() throws IOException {
+        TiledImage image = new TiledImage(75, 46, 16);
+        RasterReader reader = new RasterReader(image);
+        // Discard the 32 first columns: the two first columns of tiles are never fetched
+        boolean[] noData = new boolean[46 * 75];
+        for (int i = 0; i < noData.length; i++) {
+            noData[i] = i % 75 < 32;
+        }
+        PartialRegularSquareGrid grid = new PartialRegularSquareGrid(46, 75, noData);
+        double[] values = reader.readAsDoubleArray(0, grid.getRasterWindow());
+        Assert.assertEquals(grid.getNbCells(), values.length);
+        for (int i = 0; i < grid.getNbCells(); i++) {
+            Assert.assertEquals(grid.getCompleteIndex(i), values[i], 0);
+        }
+        Assert.assertEquals(3 * 3, image.nbFetchedTiles);
+    }
+
+    @Test
+    public void testReadBandInterleavedWindow() throws IOException {
+        RasterReader reader = new RasterReader(new TiledImage(75, 46, 16, 4));
+        int[] bands = new int[]{3, 1};
+        boolean[] noData = new boolean[46 * 75];
+        for (int i = 0; i < noData.length; i++) {
+            noData[i] = i % 75 < 32;
+        }
+        PartialRegularSquareGrid partial = new PartialRegularSquareGrid(46, 75, noData, CellOrdering.HILBERT);
+        RegularSquareGrid morton = new RegularSquareGrid(46, 75, CellOrdering.MORTON);
+        for (RegularSquareGrid grid : new RegularSquareGrid[]{partial, morton}) {
+            int[] ints = reader.readAsBandInterleavedIntArray(bands, grid.getRasterWindow());
+            double[] doubles = reader.readAsBandInterleavedDoubleArray(bands, grid.getRasterWindow());
+            Assert.assertEquals(grid.getNbCells() * 2, ints.length);
+            for (int i = 0; i < grid.getNbCells(); i++) {
+                int p = grid.getRowMajorIndex(i);
+                for (int k = 0; k < 2; k++) {
+                    Assert.assertEquals(p + 10000 * bands[k], ints[i * 2 + k]);
+                    Assert.assertEquals(p + 10000 * bands[k], doubles[i * 2 + k], 0);
+                }
+            }
+        }
+    }
 }
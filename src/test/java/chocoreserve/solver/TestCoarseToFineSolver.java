@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver;
+
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.GridPyramid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.solver.feature.BinaryFeature;
+import chocoreserve.solver.region.Region;
+import org.chocosolver.solver.Solution;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Test for CoarseToFineSolver.
+ */
+public class TestCoarseToFineSolver {
+
+    @Test
+    public void testCoarseToFine() {
+        RegularSquareGrid grid = new RegularSquareGrid(8, 8);
+        int[] species = new int[grid.getNbCells()];
+        species[grid.getIndexFromCoordinates(1, 2)] = 1;
+        species[grid.getIndexFromCoordinates(2, 1)] = 1;
+        GridPyramid pyramid = new GridPyramid(grid, 3);
+        CoarseToFineSolver solver = new CoarseToFineSolver(pyramid, (p, level, LBNodes, UBNodes) -> {
+            Region core = LBNodes == null ?
+                    new Region("core", Neighborhoods.FOUR_CONNECTED) :
+                    new Region("core", Neighborhoods.FOUR_CONNECTED, SetType.BIPARTITESET, LBNodes[0], UBNodes[0]);
+            Region out = LBNodes == null ?
+                    new Region("out", Neighborhoods.FOUR_CONNECTED) :
+                    new Region("out", Neighborhoods.FOUR_CONNECTED, SetType.BIPARTITESET, LBNodes[1], UBNodes[1]);
+            ReserveModel model = new ReserveModel(p.getGrid(level), core, out);
+            BinaryFeature feature = model.binaryFeature("species", p.aggregate(species, level, GridPyramid.Aggregation.ANY));
+            model.coveredFeatures(core, feature).post();
+            model.nbConnectedComponents(core, 1, 1).post();
+            return model;
+        });
+        Solution solution = solver.solve();
+        Assert.assertNotNull(solution);
+        for (int level = 0; level < 3; level++) {
+            Assert.assertNotNull(solver.getSolution(level));
+        }
+        ReserveModel model = solver.getModel(0);
+        int[] core = IntStream.range(0, grid.getNbCells())
+                .filter(i -> solution.getIntVal(model.getSites()[i]) == 0)
+                .toArray();
+        Assert.assertTrue(Arrays.stream(core).anyMatch(i -> i == grid.getIndexFromCoordinates(1, 2)));
+        Assert.assertTrue(Arrays.stream(core).anyMatch(i -> i == grid.getIndexFromCoordinates(2, 1)));
+        // Core cells are within the relaxed core of level 1
+        ReserveModel coarseModel = solver.getModel(1);
+        Solution coarseSolution = solver.getSolution(1);
+        RegularSquareGrid level1 = pyramid.getGrid(1);
+        for (int i : core) {
+            int parent = pyramid.getParent(0, i);
+            boolean inCore = coarseSolution.getIntVal(coarseModel.getSites()[parent]) == 0;
+            for (int n : Neighborhoods.HEIGHT_CONNECTED.getNeighbors(level1, parent)) {
+                inCore |= coarseSolution.getIntVal(coarseModel.getSites()[n]) == 0;
+            }
+            Assert.assertTrue(inCore);
+        }
+    }
+}
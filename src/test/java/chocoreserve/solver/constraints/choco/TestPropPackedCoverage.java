@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.constraints.choco;
+
+import chocoreserve.util.PackedBits;
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.SetVar;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test for PropPackedCoverage.
+ */
+public class TestPropPackedCoverage {
+
+    /**
+     * The packed propagator must find the same solutions as one sumElements per feature.
+     */
+    @Test
+    public void testSameSolutionsAsSumElements() {
+        Random random = new Random(0);
+        int n = 9;
+        int[] universe = new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8};
+        for (int t = 0; t < 20; t++) {
+            int[][] features = new int[3][n];
+            for (int[] feature : features) {
+                for (int i = 0; i < n; i++) {
+                    feature[i] = random.nextInt(3) == 0 ? 1 : 0;
+                }
+            }
+            int lb = random.nextInt(3);
+            int ub = lb + random.nextInt(2);
+            Model denseModel = new Model();
+            SetVar denseSet = denseModel.setVar(new int[]{}, universe);
+            for (int[] feature : features) {
+                denseModel.sumElements(denseSet, feature, denseModel.intVar(lb, ub)).post();
+            }
+            Model packedModel = new Model();
+            SetVar packedSet = packedModel.setVar(new int[]{}, universe);
+            long[][] packed = new long[features.length][];
+            for (int f = 0; f < features.length; f++) {
+                packed[f] = PackedBits.pack(features[f]);
+            }
+            IntVar[] counts = packedModel.intVarArray(features.length, lb, ub);
+            packedModel.post(new Constraint("packed", new PropPackedCoverage(packedSet, packed, counts)));
+            Assert.assertEquals(
+                    denseModel.getSolver().findAllSolutions().size(),
+                    packedModel.getSolver().findAllSolutions().size()
+            );
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.constraints.choco;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.variables.IntVar;
+import org.chocosolver.solver.variables.SetVar;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test for PropSparseSumElements.
+ */
+public class TestPropSparseSumElements {
+
+    /**
+     * The sparse propagator must find the same solutions as sumElements over the dense coefficients.
+     */
+    @Test
+    public void testSameSolutionsAsDense() {
+        Random random = new Random(0);
+        for (int t = 0; t < 20; t++) {
+            int n = 8;
+            int[] dense = new int[n];
+            int nbOcc = 0;
+            for (int i = 0; i < n; i++) {
+                if (random.nextInt(3) == 0) {
+                    dense[i] = random.nextInt(7) - 2;
+                    nbOcc += dense[i] != 0 ? 1 : 0;
+                }
+            }
+            int[] sites = new int[nbOcc];
+            int[] values = new int[nbOcc];
+            for (int i = 0, k = 0; i < n; i++) {
+                if (dense[i] != 0) {
+                    sites[k] = i;
+                    values[k++] = dense[i];
+                }
+            }
+            int lb = random.nextInt(5) - 1;
+            int ub = lb + random.nextInt(3);
+            Model denseModel = new Model();
+            SetVar denseSet = denseModel.setVar(new int[]{}, new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+            IntVar denseSum = denseModel.intVar(lb, ub);
+            denseModel.sumElements(denseSet, dense, denseSum).post();
+            Model sparseModel = new Model();
+            SetVar sparseSet = sparseModel.setVar(new int[]{}, new int[]{0, 1, 2, 3, 4, 5, 6, 7});
+            IntVar sparseSum = sparseModel.intVar(lb, ub);
+            sparseModel.post(new Constraint("sparse", new PropSparseSumElements(sparseSet, sites, values, sparseSum)));
+            Assert.assertEquals(
+                    denseModel.getSolver().findAllSolutions().size(),
+                    sparseModel.getSolver().findAllSolutions().size()
+            );
+        }
+    }
+
+    @Test
+    public void testFiltering() throws Exception {
+        Model model = new Model();
+        SetVar set = model.setVar(new int[]{}, new int[]{0, 1, 2, 3, 4, 5});
+        IntVar sum = model.intVar(3, 3);
+        model.post(new Constraint("sparse", new PropSparseSumElements(set, new int[]{1, 3, 5}, new int[]{1, 1, 1}, sum)));
+        model.getSolver().propagate();
+        Assert.assertTrue(set.getLB().contains(1));
+        Assert.assertTrue(set.getLB().contains(3));
+        Assert.assertTrue(set.getLB().contains(5));
+        Assert.assertFalse(set.getLB().contains(0));
+    }
+}
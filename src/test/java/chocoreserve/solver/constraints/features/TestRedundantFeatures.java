@@ -132,4 +132,25 @@ public class TestRedundantFeatures {
         Solver solver = reserveModel.getChocoSolver();
         Assert.assertFalse(solver.solve());
     }
+
+    /**
+     * Same as success test case 1, with a sparse feature.
+     */
+    @Test
+    public void testSparse() {
+        RegularSquareGrid grid = new RegularSquareGrid(3, 3);
+        Region core = new Region("core", Neighborhoods.FOUR_CONNECTED);
+        Region out = new Region("out", Neighborhoods.FOUR_CONNECTED);
+        ReserveModel reserveModel = new ReserveModel(grid, core, out);
+        BinaryFeature feature = reserveModel.sparseBinaryFeature("binary", new int[]{0, 1, 2});
+        reserveModel.redundantFeatures(core, 3, feature).post();
+        Solver solver = reserveModel.getChocoSolver();
+        int nbSolutions = 0;
+        while (solver.solve()) {
+            ISet nodes = core.getSetVar().getLB();
+            Assert.assertTrue(nodes.contains(0) && nodes.contains(1) && nodes.contains(2));
+            nbSolutions++;
+        }
+        Assert.assertEquals(64, nbSolutions);
+    }
 }
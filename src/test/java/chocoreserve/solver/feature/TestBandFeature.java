@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature;
+
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.solver.feature.band.BandBuffer;
+import chocoreserve.solver.feature.band.BinaryBandFeature;
+import chocoreserve.solver.feature.band.ProbabilisticBandFeature;
+import chocoreserve.solver.feature.band.QuantitativeBandFeature;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Test for BandFeature class.
+ */
+public class TestBandFeature {
+
+    @Test
+    public void testIntBuffer() throws IOException {
+        // 3 bands over 4 sites
+        BandBuffer buffer = BandBuffer.ofInts(
+                new String[]{"a", "b", "c"},
+                new int[]{0, 1, 5, 1, 0, 6, 1, 1, 7, 0, 0, 8}
+        );
+        Assert.assertEquals(3, buffer.getNbBands());
+        Assert.assertEquals(4, buffer.getNbSites());
+        BinaryBandFeature a = new BinaryBandFeature(buffer, 0);
+        BinaryBandFeature b = new BinaryBandFeature(buffer, 1, "other");
+        QuantitativeBandFeature c = new QuantitativeBandFeature(buffer, 2);
+        Assert.assertEquals("a", a.getName());
+        Assert.assertEquals("other", b.getName());
+        Assert.assertArrayEquals(new int[]{0, 1, 1, 0}, a.getBinaryData());
+        Assert.assertArrayEquals(new int[]{1, 0, 1, 0}, b.getBinaryData());
+        Assert.assertArrayEquals(new int[]{5, 6, 7, 8}, c.getQuantitativeData());
+        Assert.assertArrayEquals(new int[]{1, 1, 1, 1}, c.getBinaryData());
+        Assert.assertArrayEquals(new double[]{5, 6, 7, 8}, c.getData(), 0);
+        Assert.assertEquals(7, c.getValue(2), 0);
+        // Band columns are extracted once and shared
+        Assert.assertSame(c.getQuantitativeData(), c.getQuantitativeData());
+        Assert.assertSame(c.getData(), c.getData());
+    }
+
+    @Test
+    public void testDoubleBuffer() throws IOException {
+        BandBuffer buffer = BandBuffer.ofDoubles(
+                new String[]{"a", "b"},
+                new double[]{0.1, 0.9, 0.2, 0.8, 0.3, 0.7}
+        );
+        ProbabilisticBandFeature a = new ProbabilisticBandFeature(buffer, 0);
+        ProbabilisticBandFeature b = new ProbabilisticBandFeature(buffer, 1);
+        Assert.assertArrayEquals(new double[]{0.1, 0.2, 0.3}, a.getProbabilisticData(), 0);
+        Assert.assertArrayEquals(new double[]{0.9, 0.8, 0.7}, b.getProbabilisticData(), 0);
+        Assert.assertEquals(0.8, b.getValue(1), 0);
+    }
+
+    @Test
+    public void testCheckNbSites() {
+        BandBuffer buffer = BandBuffer.ofDoubles(new String[]{"a", "b"}, new double[]{0.1, 0.9, 0.2, 0.8});
+        buffer.checkNbSites(new RegularSquareGrid(1, 2));
+        try {
+            buffer.checkNbSites(new RegularSquareGrid(2, 2));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
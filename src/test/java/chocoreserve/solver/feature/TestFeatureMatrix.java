@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature;
+
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.solver.ReserveModel;
+import chocoreserve.solver.feature.array.BinaryArrayFeature;
+import chocoreserve.solver.feature.array.ProbabilisticArrayFeature;
+import chocoreserve.solver.feature.sparse.SparseQuantitativeFeature;
+import chocoreserve.solver.region.Region;
+import org.chocosolver.solver.exception.ContradictionException;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Test for FeatureMatrix class.
+ */
+public class TestFeatureMatrix {
+
+    @Test
+    public void testKernels() throws IOException {
+        FeatureMatrix matrix = new FeatureMatrix(
+                4,
+                new BinaryArrayFeature("a", new int[]{1, 0, 1, 1}),
+                new ProbabilisticArrayFeature("b", new double[]{0.2, 0.9, 0.5, 0}),
+                new SparseQuantitativeFeature("c", 4, new int[]{1, 3}, new int[]{4, 2})
+        );
+        Assert.assertEquals(3, matrix.getNbFeatures());
+        Assert.assertEquals(1, matrix.getFeatureIndex("b"));
+        Assert.assertEquals(4, matrix.getValue(1, 2), 0);
+        Assert.assertArrayEquals(new double[]{1.2, 4.9, 1.5, 3}, matrix.siteScores(), 1e-9);
+        Assert.assertArrayEquals(new double[]{3, 1.6, 6}, matrix.featureTotals(), 1e-9);
+        Assert.assertArrayEquals(
+                new double[]{2, 0.7, 0},
+                matrix.featureTotals(SetFactory.makeConstantSet(new int[]{0, 2})),
+                1e-9
+        );
+        FeatureMatrix thresholded = matrix.copy().threshold(0.5);
+        Assert.assertArrayEquals(new double[]{1, 4.9, 1.5, 3}, thresholded.siteScores(), 1e-9);
+        Assert.assertArrayEquals(new double[]{1, 4.9, 1.5, 3}, matrix.siteScores(0.5), 1e-9);
+        Assert.assertArrayEquals(new double[]{1.2, 4.9, 1.5, 3}, matrix.siteScores(), 1e-9);
+        FeatureMatrix normalized = matrix.copy().normalizeByRarity();
+        Assert.assertArrayEquals(new double[]{1, 1, 1}, normalized.featureTotals(), 1e-9);
+        FeatureMatrix weighted = matrix.copy().weight(new double[]{2, 0, 1});
+        Assert.assertArrayEquals(new double[]{2, 4, 2, 4}, weighted.siteScores(), 1e-9);
+    }
+
+    @Test
+    public void testParallel() throws IOException {
+        int nbSites = 3 * FeatureMatrix.BLOCK_SIZE + 17;
+        Random random = new Random(0);
+        Feature[] features = new Feature[5];
+        for (int f = 0; f < features.length; f++) {
+            double[] data = new double[nbSites];
+            for (int i = 0; i < nbSites; i++) {
+                data[i] = random.nextDouble();
+            }
+            features[f] = new ProbabilisticArrayFeature("f" + f, data);
+        }
+        FeatureMatrix sequential = new FeatureMatrix(nbSites, features).threshold(0.3).normalizeByRarity();
+        FeatureMatrix parallel = new FeatureMatrix(nbSites, features).setParallelism(4)
+                .threshold(0.3).normalizeByRarity();
+        Assert.assertArrayEquals(sequential.siteScores(), parallel.siteScores(), 1e-12);
+        Assert.assertArrayEquals(sequential.featureTotals(), parallel.featureTotals(), 1e-12);
+    }
+
+    @Test
+    public void testReserveModel() throws IOException, ContradictionException {
+        RegularSquareGrid grid = new RegularSquareGrid(2, 2);
+        Region core = new Region("core", Neighborhoods.FOUR_CONNECTED);
+        Region out = new Region("out", Neighborhoods.FOUR_CONNECTED);
+        ReserveModel<RegularSquareGrid> reserveModel = new ReserveModel<>(grid, core, out);
+        reserveModel.addFeature(new BinaryArrayFeature("a", new int[]{1, 0, 1, 1}));
+        FeatureMatrix matrix = reserveModel.getFeatureMatrix();
+        Assert.assertSame(matrix, reserveModel.getFeatureMatrix());
+        Assert.assertEquals(1, matrix.getNbFeatures());
+        reserveModel.addFeature(new BinaryArrayFeature("b", new int[]{0, 1, 1, 0}));
+        matrix = reserveModel.getFeatureMatrix();
+        Assert.assertArrayEquals(new String[]{"a", "b"}, matrix.getNames());
+        Assert.assertEquals(0, reserveModel.getFeatureRepresentation(core).get("b"), 0);
+        // Once a feature is added, the representation is computed without building the matrix
+        reserveModel.addFeature(new SparseQuantitativeFeature("c", 4, new int[]{1, 3}, new int[]{4, 2}));
+        reserveModel.mandatorySites(core, 1, 3).post();
+        reserveModel.getChocoSolver().propagate();
+        Assert.assertNull(reserveModel.getCachedFeatureMatrix());
+        Map<String, Double> representation = reserveModel.getFeatureRepresentation(core);
+        Assert.assertNull(reserveModel.getCachedFeatureMatrix());
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(representation.keySet()));
+        Assert.assertEquals(1, representation.get("a"), 0);
+        Assert.assertEquals(1.0, representation.get("b"), 0);
+        Assert.assertEquals(6, representation.get("c"), 0);
+        reserveModel.getFeatureMatrix();
+        Assert.assertEquals(representation, reserveModel.getFeatureRepresentation(core));
+        try {
+            reserveModel.getFeatures().remove("a");
+            Assert.fail();
+        } catch (UnsupportedOperationException e) {
+            Assert.assertEquals(3, reserveModel.getFeatures().size());
+        }
+    }
+
+    @Test
+    public void testTooLarge() throws IOException {
+        Feature[] features = new Feature[1100];
+        for (int f = 0; f < features.length; f++) {
+            features[f] = new BinaryArrayFeature("f" + f, new int[0]);
+        }
+        try {
+            new FeatureMatrix(2000000, features);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("2200000000"));
+        }
+    }
+}
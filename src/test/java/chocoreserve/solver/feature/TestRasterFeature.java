@@ -23,13 +23,18 @@
 
 package chocoreserve.solver.feature;
 
+import chocoreserve.grid.regular.square.PartialRegularSquareGrid;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
 import chocoreserve.solver.feature.raster.BinaryRasterFeature;
 import chocoreserve.solver.feature.raster.ProbabilisticRasterFeature;
 import chocoreserve.solver.feature.raster.QuantitativeRasterFeature;
+import chocoreserve.solver.feature.raster.RasterFeatureLoader;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Test for RasterFeature class.
@@ -79,4 +84,66 @@ public class TestRasterFeature {
             Assert.fail();
         }
     }
+
+    @Test
+    public void testGlob() throws IOException {
+        String dir = new File(getClass().getClassLoader().getResource("raster/test_raster_binary.tif").getPath())
+                .getParent();
+        List<String> paths = RasterFeatureLoader.glob(dir, "test_raster_{binary,quantitative}.tif");
+        Assert.assertEquals(2, paths.size());
+        Assert.assertTrue(paths.get(0).endsWith("test_raster_binary.tif"));
+        Assert.assertTrue(paths.get(1).endsWith("test_raster_quantitative.tif"));
+    }
+
+    @Test
+    public void testBulkLoad() throws IOException {
+        String dir = new File(getClass().getClassLoader().getResource("raster/test_raster_binary.tif").getPath())
+                .getParent();
+        List<String> paths = RasterFeatureLoader.glob(dir, "*.tif");
+        List<BinaryRasterFeature> features = RasterFeatureLoader.load(
+                paths, new RegularSquareGrid(46, 75), 2, BinaryRasterFeature::new
+        );
+        Assert.assertEquals(3, features.size());
+        Assert.assertEquals("test_raster_binary.tif", features.get(0).getName());
+        Assert.assertEquals(46 * 75, features.get(0).getBinaryData().length);
+        Assert.assertEquals(75, features.get(0).getWidth());
+        Assert.assertEquals(46, features.get(0).getHeight());
+        try {
+            RasterFeatureLoader.load(paths, new RegularSquareGrid(10, 10), 2, BinaryRasterFeature::new);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingFile() throws IOException {
+        new BinaryRasterFeature(new File("missing_raster.tif").getAbsolutePath());
+    }
+
+    @Test
+    public void testCheckDimensions() {
+        RegularSquareGrid grid = new RegularSquareGrid(10, 20);
+        RasterFeatureLoader.checkDimensions("r.tif", 20, 10, RasterFeatureLoader.gridWindow(grid), grid);
+        RasterFeatureLoader.checkDimensions("r.tif", 20, 10, null, grid);
+        // A larger raster read through the grid window is not silently cropped
+        try {
+            RasterFeatureLoader.checkDimensions("r.tif", 30, 15, RasterFeatureLoader.gridWindow(grid), grid);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+        // Unless the crop is explicit
+        RasterFeatureLoader.checkDimensions("r.tif", 30, 15, grid.getRasterWindow(5, 2), grid);
+        try {
+            RasterFeatureLoader.checkDimensions("r.tif", 30, 15, grid.getRasterWindow(15, 2), grid);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+        PartialRegularSquareGrid partial = new PartialRegularSquareGrid(10, 20, new int[]{0, 5});
+        RasterFeatureLoader.checkDimensions("r.tif", 20, 10, RasterFeatureLoader.gridWindow(partial), partial);
+        try {
+            RasterFeatureLoader.checkDimensions("r.tif", 21, 10, RasterFeatureLoader.gridWindow(partial), partial);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.feature;
+
+import chocoreserve.solver.feature.sparse.SparseBinaryFeature;
+import chocoreserve.solver.feature.sparse.SparseQuantitativeFeature;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for SparseFeature class.
+ */
+public class TestSparseFeature {
+
+    @Test
+    public void testBinary() {
+        SparseBinaryFeature feature = new SparseBinaryFeature("sparse", 8, new int[]{6, 1, 3});
+        Assert.assertEquals("sparse", feature.getName());
+        Assert.assertArrayEquals(new int[]{1, 3, 6}, feature.getSites());
+        Assert.assertEquals(3, feature.getNbOccurrences());
+        Assert.assertArrayEquals(new int[]{0, 1, 0, 1, 0, 0, 1, 0}, feature.getBinaryData());
+        Assert.assertArrayEquals(new double[]{0, 1, 0, 1, 0, 0, 1, 0}, feature.getData(), 0);
+        SparseBinaryFeature fromDense = SparseBinaryFeature.fromDense("dense", new int[]{0, 1, 0, 4, 0, 0, 1, 0});
+        Assert.assertArrayEquals(feature.getSites(), fromDense.getSites());
+    }
+
+    @Test
+    public void testQuantitative() {
+        SparseQuantitativeFeature feature = new SparseQuantitativeFeature(
+                "sparse", 6, new int[]{4, 0, 2}, new int[]{7, 3, 0}
+        );
+        Assert.assertArrayEquals(new int[]{0, 4}, feature.getSites());
+        Assert.assertArrayEquals(new int[]{3, 7}, feature.getValues());
+        Assert.assertEquals(7, feature.getValue(4));
+        Assert.assertEquals(0, feature.getValue(2));
+        Assert.assertArrayEquals(new int[]{3, 0, 0, 0, 7, 0}, feature.getQuantitativeData());
+        Assert.assertArrayEquals(new int[]{1, 0, 0, 0, 1, 0}, feature.getBinaryData());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfGrid() {
+        new SparseBinaryFeature("sparse", 4, new int[]{1, 4});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateAfterZero() {
+        new SparseQuantitativeFeature("sparse", 6, new int[]{2, 4, 2}, new int[]{0, 1, 3});
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.solver.search.selectors.variables;
+
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.solver.ReserveModel;
+import chocoreserve.solver.feature.Feature;
+import chocoreserve.solver.region.Region;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Test for PoorestVarSelector.
+ */
+public class TestPoorestVarSelector {
+
+    @Test
+    public void testScores() throws IOException {
+        RegularSquareGrid grid = new RegularSquareGrid(2, 2);
+        Region core = new Region("core", Neighborhoods.FOUR_CONNECTED);
+        Region out = new Region("out", Neighborhoods.FOUR_CONNECTED);
+        ReserveModel<RegularSquareGrid> reserveModel = new ReserveModel<>(grid, core, out);
+        Feature a = reserveModel.binaryFeature("a", new int[]{1, 0, 1, 1});
+        Feature b = reserveModel.probabilisticFeature("b", new double[]{0.2, 0.9, 0.5, 0});
+        double[] expected = new double[]{1, 0.9, 1.5, 1};
+        // Features read one at a time
+        Assert.assertNull(reserveModel.getCachedFeatureMatrix());
+        Assert.assertArrayEquals(expected, new PoorestVarSelector(reserveModel, 0.5, true, a, b).scores, 1e-9);
+        Assert.assertNull(reserveModel.getCachedFeatureMatrix());
+        // Feature matrix of the model, once built
+        reserveModel.getFeatureMatrix();
+        Assert.assertArrayEquals(expected, new PoorestVarSelector(reserveModel, 0.5, true, a, b).scores, 1e-9);
+        // An unreadable feature is skipped
+        Feature unreadable = new Feature() {
+            @Override
+            public double[] getData() throws IOException {
+                throw new IOException("unreadable");
+            }
+
+            @Override
+            public String getName() {
+                return "unreadable";
+            }
+        };
+        Assert.assertArrayEquals(
+                expected, new PoorestVarSelector(reserveModel, 0.5, true, a, unreadable, b).scores, 1e-9
+        );
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util;
+
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test for PackedBits.
+ */
+public class TestPackedBits {
+
+    @Test
+    public void testPack() {
+        int[] binary = new int[130];
+        binary[0] = 1;
+        binary[63] = 1;
+        binary[64] = 2;
+        binary[129] = 1;
+        long[] words = PackedBits.pack(binary);
+        Assert.assertEquals(3, words.length);
+        Assert.assertArrayEquals(words, PackedBits.pack(new int[]{0, 63, 64, 129}, 130));
+        Assert.assertEquals(4, PackedBits.count(words));
+        Assert.assertEquals(0, PackedBits.nextSetBit(words, 0));
+        Assert.assertEquals(63, PackedBits.nextSetBit(words, 1));
+        Assert.assertEquals(64, PackedBits.nextSetBit(words, 64));
+        Assert.assertEquals(129, PackedBits.nextSetBit(words, 65));
+        Assert.assertEquals(-1, PackedBits.nextSetBit(words, 130));
+        ISet set = SetFactory.makeBitSet(0);
+        set.add(63);
+        set.add(100);
+        long[] packedSet = PackedBits.pack(set, new long[3]);
+        Assert.assertTrue(PackedBits.intersects(words, packedSet));
+        Assert.assertEquals(1, PackedBits.andCount(words, packedSet));
+        set.remove(63);
+        Assert.assertFalse(PackedBits.intersects(words, PackedBits.pack(set, packedSet)));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.util.objects.graphs;
+
+import chocoreserve.grid.neighborhood.Neighborhoods;
+import chocoreserve.grid.regular.square.RegularSquareGrid;
+import chocoreserve.util.ConnectivityFinderSpatialGraph;
+import chocoreserve.util.objects.setDataStructures.IntArraySet;
+import org.chocosolver.graphsolver.GraphModel;
+import org.chocosolver.util.objects.graphs.UndirectedGraph;
+import org.chocosolver.util.objects.setDataStructures.ISet;
+import org.chocosolver.util.objects.setDataStructures.SetType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class TestImplicitGraph {
+
+    @Test
+    public void testSameAsExplicit() {
+        GraphModel model = new GraphModel();
+        RegularSquareGrid grid = new RegularSquareGrid(6, 6);
+        int[] lb = new int[]{0, 1, 7};
+        int[] ub = IntStream.range(0, grid.getNbCells()).toArray();
+        UndirectedGraphIncrementalCC GLB = (UndirectedGraphIncrementalCC) Neighborhoods.HEIGHT_CONNECTED
+                .getPartialGraph(grid, model, lb, SetType.BIPARTITESET);
+        UndirectedGraph implicit = Neighborhoods.HEIGHT_CONNECTED
+                .getPartialGraphUBFromLB(grid, model, ub, SetType.BIPARTITESET, GLB);
+        UndirectedGraph explicit = grid.getCompiledNeighborhood(Neighborhoods.HEIGHT_CONNECTED)
+                .getPartialGraphUBFromLB(grid, model, ub, SetType.BIPARTITESET, GLB);
+        Assert.assertTrue(implicit instanceof ImplicitUndirectedGraphFromSubgraph);
+        Assert.assertFalse(explicit instanceof ImplicitUndirectedGraphFromSubgraph);
+        for (int x : new int[]{14, 15, 20, 35}) {
+            implicit.removeNode(x);
+            explicit.removeNode(x);
+            Assert.assertEquals(explicit.getNodes().size(), implicit.getNodes().size());
+            for (int i : explicit.getNodes()) {
+                int[] expected = explicit.getNeighOf(i).toArray();
+                int[] computed = implicit.getNeighOf(i).toArray();
+                Arrays.sort(expected);
+                Arrays.sort(computed);
+                Assert.assertArrayEquals(expected, computed);
+                for (int j : expected) {
+                    Assert.assertTrue(implicit.edgeExists(i, j));
+                }
+            }
+            Assert.assertFalse(implicit.edgeExists(x, x + 1));
+        }
+        ((UndirectedGraphDecrementalFromSubgraph) implicit).findCCs();
+        ((UndirectedGraphDecrementalFromSubgraph) explicit).findCCs();
+        Assert.assertEquals(
+                ((UndirectedGraphDecrementalFromSubgraph) explicit).getNbCC(),
+                ((UndirectedGraphDecrementalFromSubgraph) implicit).getNbCC()
+        );
+    }
+
+    @Test
+    public void testBoundedNeighbors() {
+        GraphModel model = new GraphModel();
+        RegularSquareGrid grid = new RegularSquareGrid(50, 50);
+        int[] ub = IntStream.range(0, grid.getNbCells()).filter(i -> i % 7 != 0).toArray();
+        UndirectedGraphIncrementalCC GLB = (UndirectedGraphIncrementalCC) Neighborhoods.FOUR_CONNECTED
+                .getPartialGraph(grid, model, new int[]{}, SetType.BIPARTITESET);
+        ImplicitUndirectedGraphFromSubgraph implicit = (ImplicitUndirectedGraphFromSubgraph)
+                Neighborhoods.FOUR_CONNECTED.getPartialGraphUBFromLB(grid, model, ub, SetType.BIPARTITESET, GLB);
+        UndirectedGraph explicit = grid.getCompiledNeighborhood(Neighborhoods.FOUR_CONNECTED)
+                .getPartialGraphUBFromLB(grid, model, ub, SetType.BIPARTITESET, GLB);
+        Assert.assertEquals(4, implicit.getMaxNbNeighbors());
+        int[] buffer = new int[implicit.getMaxNbNeighbors()];
+        int last = grid.getNbCells() - 1;
+        // Sets are independent of each other and do not grow with the node indices
+        ISet first = implicit.getNeighOf(1);
+        ISet high = implicit.getNeighOf(last);
+        Assert.assertTrue(high instanceof IntArraySet);
+        Assert.assertArrayEquals(new int[]{2, 51}, first.toArray());
+        Assert.assertArrayEquals(new int[]{last - 50, last - 1}, high.toArray());
+        for (int i : ub) {
+            int[] expected = explicit.getNeighOf(i).toArray();
+            Arrays.sort(expected);
+            int nb = implicit.fillNeighOf(i, buffer);
+            Assert.assertArrayEquals(expected, Arrays.copyOf(buffer, nb));
+        }
+        ConnectivityFinderSpatialGraph implicitFinder = new ConnectivityFinderSpatialGraph(implicit);
+        ConnectivityFinderSpatialGraph explicitFinder = new ConnectivityFinderSpatialGraph(explicit);
+        implicitFinder.findAllCC();
+        explicitFinder.findAllCC();
+        Assert.assertEquals(explicitFinder.getNBCC(), implicitFinder.getNBCC());
+        Assert.assertEquals(explicitFinder.getSizeMaxCC(), implicitFinder.getSizeMaxCC());
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, Dimitri Justeau-Allaire
+ *
+ * CIRAD, UMR AMAP, F-34398 Montpellier, France
+ * Institut Agronomique neo-Caledonien (IAC), 98800 Noumea, New Caledonia
+ * AMAP, Univ Montpellier, CIRAD, CNRS, INRA, IRD, Montpellier, France
+ *
+ * This file is part of Choco-reserve.
+ *
+ * Choco-reserve is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Choco-reserve is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Choco-reserve.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package chocoreserve.vector;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class TestSpatialJoin {
+
+    @Test
+    public void testIntersecting() {
+        GeometryFactory factory = new GeometryFactory();
+        Random random = new Random(0);
+        Geometry[] sites = new Geometry[300];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = factory.toGeometry(new Envelope(i % 20, i % 20 + 1, i / 20, i / 20 + 1));
+        }
+        Geometry[] others = new Geometry[100];
+        for (int i = 0; i < others.length; i++) {
+            double x = random.nextDouble() * 20;
+            double y = random.nextDouble() * 15;
+            others[i] = factory.toGeometry(new Envelope(x, x + random.nextDouble() * 3, y, y + random.nextDouble() * 3));
+        }
+        int[][] sequential = SpatialJoin.intersecting(sites, others, 1);
+        int[][] parallel = SpatialJoin.intersecting(sites, others, 4);
+        for (int i = 0; i < sites.length; i++) {
+            int finalI = i;
+            int[] expected = IntStream.range(0, others.length)
+                    .filter(j -> sites[finalI].intersects(others[j]))
+                    .toArray();
+            Assert.assertArrayEquals(expected, sequential[i]);
+            Assert.assertArrayEquals(expected, parallel[i]);
+        }
+    }
+
+    @Test
+    public void testLocatePoints() {
+        GeometryFactory factory = new GeometryFactory();
+        Geometry[] sites = new Geometry[]{
+                factory.toGeometry(new Envelope(0, 1, 0, 1)),
+                factory.toGeometry(new Envelope(1, 2, 0, 1)),
+                factory.toGeometry(new Envelope(0, 2, 1, 3))
+        };
+        double[] xs = new double[]{0.5, 1.5, 1.5, 5, 1, 0.1};
+        double[] ys = new double[]{0.5, 0.2, 2.9, 5, 0.5, 1.1};
+        // Points on a shared boundary are not contained by any site
+        int[] expected = new int[]{0, 1, 2, -1, -1, 2};
+        Assert.assertArrayEquals(expected, SpatialJoin.locatePoints(sites, xs, ys, 1));
+        Assert.assertArrayEquals(expected, SpatialJoin.locatePoints(sites, xs, ys, 3));
+    }
+}